@@ -0,0 +1,198 @@
+package game.evo.utils;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * OpenSimplexNoise.eval over a run of points with the incubating Vector API, one lane per point.
+ * The region of the lattice each point falls in is picked with masks instead of branches. Every
+ * lane performs the same IEEE operations, in the same order, as the scalar eval (no fused
+ * multiply-add), so results are bit-for-bit equal.
+ *
+ * Lattice coordinates stay in double lanes (they are small integers, so exact): on JDK 17 the
+ * double/int lane conversions are not compiled to vector instructions and made the kernel slower
+ * than the scalar loop. The first permutation lookup runs per lane, as in eval; the gradients are
+ * then gathered from tables indexed by the second one.
+ *
+ * Compiled only by the "vector" Maven profile and loaded by OpenSimplexNoise when the
+ * jdk.incubator.vector module is present at runtime (--add-modules jdk.incubator.vector).
+ */
+final class VectorNoiseKernel implements OpenSimplexNoise.OctaveKernel {
+
+	private static final VectorSpecies<Double> DOUBLE = DoubleVector.SPECIES_PREFERRED;
+	private static final int LANES = DOUBLE.length();
+	// Adding and subtracting 1.5 * 2^52 rounds a double below 2^51 to an integer, exactly.
+	private static final double ROUNDING = 6755399441055744.0;
+
+	private static final double STRETCH = -0.211324865405187; // OpenSimplexNoise.STRETCH_CONSTANT_2D
+	private static final double SQUISH = 0.366025403784439;   // OpenSimplexNoise.SQUISH_CONSTANT_2D
+	private static final double SQUISH_2X = 2 * SQUISH;
+	private static final double NORM = 47.0;
+	private static final int VERTICES = 4; // Contributions per point: (1,0), (0,1), (0,0) or (1,1), and the extra one
+
+	private static final DoubleVector LANE_OFFSETS = DoubleVector.fromArray(DOUBLE, laneOffsets(), 0);
+
+	private final short[] perm;
+	private final double[] gradientX = new double[256]; // Gradient picked by the second permutation lookup
+	private final double[] gradientY = new double[256];
+
+	/**
+	 * @return false on CPUs with vectors narrower than 4 doubles (before AVX), where JDK 17 does
+	 * not compile the blends to vector code and the kernel would be much slower than eval.
+	 */
+	static boolean isSupported() {
+		return LANES >= 4;
+	}
+
+	VectorNoiseKernel(short[] perm, byte[] gradients2D) {
+		this.perm = perm;
+		for (int i = 0; i < 256; i++) {
+			int index = perm[i] & 0x0E;
+			gradientX[i] = gradients2D[index];
+			gradientY[i] = gradients2D[index + 1];
+		}
+	}
+
+	/**
+	 * OpenSimplexNoise.eval for LANES points at a time. Written as a single method on purpose:
+	 * C2 does not inline helpers this big, and a vector passed to or returned from a call that is
+	 * not inlined is boxed on the heap, which costs more than the lanes save.
+	 */
+	@Override
+	public int addOctave(double[] out, int offset, int startX, int count, double yy, double frequency, double scale, double amplitude) {
+		// Lattice vertices of the four contributions, moved through arrays for the table lookups.
+		// Allocated per call so one noise can serve several threads.
+		double[] vertexX = new double[VERTICES * LANES];
+		double[] vertexY = new double[VERTICES * LANES];
+		int[] gradients = new int[VERTICES * LANES];
+		DoubleVector y = DoubleVector.broadcast(DOUBLE, yy);
+		DoubleVector two = DoubleVector.broadcast(DOUBLE, 2);
+		int done = count - count % LANES;
+		for (int i = 0; i < done; i += LANES) {
+			DoubleVector x = LANE_OFFSETS.add(startX + i).mul(frequency).div(scale);
+
+			// Place input coordinates onto grid.
+			DoubleVector stretchOffset = x.add(y).mul(STRETCH);
+			DoubleVector xs = x.add(stretchOffset);
+			DoubleVector ys = y.add(stretchOffset);
+
+			// Floor to get grid coordinates of rhombus (stretched square) cell origin: round to an
+			// integer, then step down where that went up.
+			DoubleVector xsb = xs.add(ROUNDING).sub(ROUNDING);
+			xsb = xsb.blend(xsb.sub(1), xsb.compare(VectorOperators.GT, xs));
+			DoubleVector ysb = ys.add(ROUNDING).sub(ROUNDING);
+			ysb = ysb.blend(ysb.sub(1), ysb.compare(VectorOperators.GT, ys));
+
+			// Skew out to get coordinates of cell origin in unstretched space.
+			DoubleVector squishOffset = xsb.add(ysb).mul(SQUISH);
+			DoubleVector xb = xsb.add(squishOffset);
+			DoubleVector yb = ysb.add(squishOffset);
+
+			// Compute grid coordinates relative to rhombus origin.
+			DoubleVector xins = xs.sub(xsb);
+			DoubleVector yins = ys.sub(ysb);
+			DoubleVector inSum = xins.add(yins);
+
+			// Positions relative to origin point.
+			DoubleVector dx0 = x.sub(xb);
+			DoubleVector dy0 = y.sub(yb);
+
+			// Contribution (1,0) and (0,1)
+			DoubleVector dx1 = dx0.sub(1).sub(SQUISH);
+			DoubleVector dy1 = dy0.sub(SQUISH);
+			DoubleVector dx2 = dx0.sub(SQUISH);
+			DoubleVector dy2 = dy0.sub(1).sub(SQUISH);
+
+			// The six cases of eval's if/else tree, as masks.
+			VectorMask<Double> inside = inSum.compare(VectorOperators.LE, 1);       // Triangle at (0,0)
+			VectorMask<Double> xGreater = xins.compare(VectorOperators.GT, yins);
+			DoubleVector zinsLow = DoubleVector.broadcast(DOUBLE, 1).sub(inSum);
+			DoubleVector zinsHigh = two.sub(inSum);
+			VectorMask<Double> nearLow = zinsLow.compare(VectorOperators.GT, xins).or(zinsLow.compare(VectorOperators.GT, yins));
+			VectorMask<Double> nearHigh = zinsHigh.compare(VectorOperators.LT, xins).or(zinsHigh.compare(VectorOperators.LT, yins));
+			VectorMask<Double> lowX = inside.and(nearLow).and(xGreater);           // (0,0) closest two, x > y
+			VectorMask<Double> lowY = inside.and(nearLow).andNot(xGreater);        // (0,0) closest two, x <= y
+			VectorMask<Double> lowFar = inside.andNot(nearLow);                    // (1,1) is the closest vertex
+			VectorMask<Double> highX = inside.not().and(nearHigh).and(xGreater);   // (1,1) closest two, x > y
+			VectorMask<Double> highY = inside.not().and(nearHigh).andNot(xGreater); // (1,1) closest two, x <= y
+			// Otherwise (0,0) is the closest vertex of the (1,1) triangle: the defaults below.
+
+			DoubleVector dx11 = dx0.sub(1).sub(SQUISH_2X);
+			DoubleVector dy11 = dy0.sub(1).sub(SQUISH_2X);
+			DoubleVector dxExt = dx0
+					.blend(dx0.sub(1), lowX)
+					.blend(dx0.add(1), lowY)
+					.blend(dx11, lowFar)
+					.blend(dx0.sub(2).sub(SQUISH_2X), highX)
+					.blend(dx0.sub(SQUISH_2X), highY);
+			DoubleVector dyExt = dy0
+					.blend(dy0.add(1), lowX)
+					.blend(dy0.sub(1), lowY)
+					.blend(dy11, lowFar)
+					.blend(dy0.sub(SQUISH_2X), highX)
+					.blend(dy0.sub(2).sub(SQUISH_2X), highY);
+
+			// Contribution (0,0) or (1,1)
+			DoubleVector dxBase = dx11.blend(dx0, inside);
+			DoubleVector dyBase = dy11.blend(dy0, inside);
+
+			// Gradients of the four vertices, looked up per lane as eval's extrapolate does.
+			xsb.add(1).intoArray(vertexX, 0);
+			ysb.intoArray(vertexY, 0);
+			xsb.intoArray(vertexX, LANES);
+			ysb.add(1).intoArray(vertexY, LANES);
+			xsb.add(1).blend(xsb, inside).intoArray(vertexX, 2 * LANES);
+			ysb.add(1).blend(ysb, inside).intoArray(vertexY, 2 * LANES);
+			xsb.blend(xsb.add(1), lowX.or(lowFar)).blend(xsb.sub(1), lowY).blend(xsb.add(2), highX).intoArray(vertexX, 3 * LANES);
+			ysb.blend(ysb.sub(1), lowX).blend(ysb.add(1), lowY.or(lowFar)).blend(ysb.add(2), highY).intoArray(vertexY, 3 * LANES);
+			for (int v = 0; v < VERTICES * LANES; v++) {
+				gradients[v] = (perm[(int) vertexX[v] & 0xFF] + (int) vertexY[v]) & 0xFF;
+			}
+
+			// value += attn^4 * extrapolate, in eval's order, only where attn > 0. Blended, so the
+			// other lanes keep their value exactly (adding 0.0 would turn -0.0 into 0.0).
+			DoubleVector value = DoubleVector.zero(DOUBLE);
+			DoubleVector attn = two.sub(dx1.mul(dx1)).sub(dy1.mul(dy1));
+			DoubleVector gradient = DoubleVector.fromArray(DOUBLE, gradientX, 0, gradients, 0).mul(dx1)
+					.add(DoubleVector.fromArray(DOUBLE, gradientY, 0, gradients, 0).mul(dy1));
+			VectorMask<Double> positive = attn.compare(VectorOperators.GT, 0);
+			attn = attn.mul(attn);
+			value = value.blend(value.add(attn.mul(attn).mul(gradient)), positive);
+
+			attn = two.sub(dx2.mul(dx2)).sub(dy2.mul(dy2));
+			gradient = DoubleVector.fromArray(DOUBLE, gradientX, 0, gradients, LANES).mul(dx2)
+					.add(DoubleVector.fromArray(DOUBLE, gradientY, 0, gradients, LANES).mul(dy2));
+			positive = attn.compare(VectorOperators.GT, 0);
+			attn = attn.mul(attn);
+			value = value.blend(value.add(attn.mul(attn).mul(gradient)), positive);
+
+			attn = two.sub(dxBase.mul(dxBase)).sub(dyBase.mul(dyBase));
+			gradient = DoubleVector.fromArray(DOUBLE, gradientX, 0, gradients, 2 * LANES).mul(dxBase)
+					.add(DoubleVector.fromArray(DOUBLE, gradientY, 0, gradients, 2 * LANES).mul(dyBase));
+			positive = attn.compare(VectorOperators.GT, 0);
+			attn = attn.mul(attn);
+			value = value.blend(value.add(attn.mul(attn).mul(gradient)), positive);
+
+			attn = two.sub(dxExt.mul(dxExt)).sub(dyExt.mul(dyExt));
+			gradient = DoubleVector.fromArray(DOUBLE, gradientX, 0, gradients, 3 * LANES).mul(dxExt)
+					.add(DoubleVector.fromArray(DOUBLE, gradientY, 0, gradients, 3 * LANES).mul(dyExt));
+			positive = attn.compare(VectorOperators.GT, 0);
+			attn = attn.mul(attn);
+			value = value.blend(value.add(attn.mul(attn).mul(gradient)), positive);
+
+			DoubleVector noise = value.div(NORM).mul(amplitude);
+			DoubleVector.fromArray(DOUBLE, out, offset + i).add(noise).intoArray(out, offset + i);
+		}
+		return done;
+	}
+
+	private static double[] laneOffsets() {
+		double[] offsets = new double[LANES];
+		for (int i = 0; i < LANES; i++) {
+			offsets[i] = i;
+		}
+		return offsets;
+	}
+}
@@ -14,12 +14,14 @@ import game.evo.view.GamePanel;
 import game.evo.view.GameWindow;
 import game.evo.world.EntityFactory;
 import game.evo.world.GameMap;
+import game.evo.world.InfluenceMap;
 import game.evo.components.StartGameplayRequestComponent;
 
 import javax.swing.JOptionPane;
 import javax.swing.SwingUtilities;
 import javax.swing.Timer;
 import java.awt.Component;
+import java.awt.Rectangle;
 import java.io.Serializable;
 import java.util.List;
 
@@ -232,8 +234,12 @@ public class Main implements Serializable {
         GameMap gameMap = new GameMap(world, config);
         InputManager inputManager = new InputManager();
         this.renderSystem = new RenderSystem(world);
+        renderSystem.prewarmSprites(config);
 
-        this.logicSystems = List.of(new PlayerInputSystem(world, inputManager, gameMap), new AISystem(world, gameMap), new CombatSystem(world, entityFactory), new InteractionSystem(world), new GameLogicSystem(world, entityFactory), new NotificationSystem(world));
+        InfluenceMapSystem influenceMapSystem = new InfluenceMapSystem(world, new InfluenceMap(gameMap, GameConstants.INFLUENCE_DECAY_PER_TICK));
+        RespawnSystem respawnSystem = new RespawnSystem(world, gameMap, entityFactory, config);
+        respawnSystem.setView(this::currentViewBounds);
+        this.logicSystems = List.of(new PlayerInputSystem(world, inputManager, gameMap), influenceMapSystem, new AISystem(world, gameMap, influenceMapSystem), new CombatSystem(world, entityFactory), new InteractionSystem(world), new GameLogicSystem(world, entityFactory), respawnSystem, new NotificationSystem(world));
         this.gamePanel = new GamePanel(world, gameMap, renderSystem, inputManager, entityFactory);
         gameWindow.setTitle("Evo - " + config.levelName);
         gameWindow.switchPanel(this.gamePanel);
@@ -249,36 +255,46 @@ public class Main implements Serializable {
      */
     private void startNewGameLoop(EntityFactory entityFactory, LevelConfig config) {
         this.gameLoopTimer = new Timer(GameConstants.GAME_LOOP_DELAY_MS, e -> {
-            
-            // --- INÍCIO DA LÓGICA CORRIGIDA ---
-
-            // 1. Processa o input do jogador. Roda SEMPRE.
-            if (playerInputSystem != null) {
-                playerInputSystem.update();
+            // A renderização ativa desenha em outra thread: o tick inteiro acontece entre dois frames
+            synchronized (GamePanel.getFrameLock()) {
+                runGameLoopTick(entityFactory, config);
             }
+        });
+        gameLoopTimer.start();
+    }
 
-            // 2. Processa eventos do jogo (como 'iniciar gameplay' ou 'salvar'). Roda SEMPRE.
-            handleGameEvents();
-
-            // 3. Executa a lógica principal do jogo APENAS se o carregamento estiver completo.
-            if (currentLoadingPhase == LoadingPhase.COMPLETE) {
-                if (logicSystems != null) {
-                     logicSystems.forEach(GameSystem::update); // IA, Combate, etc.
-                }
-                updateCameraForPlayer();
-            } else {
-                // 4. Se não, continua a sequência de carregamento.
-                updateLoadingSequence(entityFactory, config);
-            }
+    /**
+     * Um tick do game loop: input, eventos, lógica (ou a sequência de carregamento) e o pedido de
+     * repintura quando o GamePanel é pintado pelo Swing.
+     */
+    private void runGameLoopTick(EntityFactory entityFactory, LevelConfig config) {
+        // --- INÍCIO DA LÓGICA CORRIGIDA ---
 
-            // --- FIM DA LÓGICA CORRIGIDA ---
+        // 1. Processa o input do jogador. Roda SEMPRE.
+        if (playerInputSystem != null) {
+            playerInputSystem.update();
+        }
 
-            // 5. Repinta a tela ao final de cada frame.
-            if (gamePanel != null) {
-                gamePanel.repaint();
+        // 2. Processa eventos do jogo (como 'iniciar gameplay' ou 'salvar'). Roda SEMPRE.
+        handleGameEvents();
+
+        // 3. Executa a lógica principal do jogo APENAS se o carregamento estiver completo.
+        if (currentLoadingPhase == LoadingPhase.COMPLETE) {
+            if (logicSystems != null) {
+                 logicSystems.forEach(GameSystem::update); // IA, Combate, etc.
             }
-        });
-        gameLoopTimer.start();
+            updateCameraForPlayer();
+        } else {
+            // 4. Se não, continua a sequência de carregamento.
+            updateLoadingSequence(entityFactory, config);
+        }
+
+        // --- FIM DA LÓGICA CORRIGIDA ---
+
+        // 5. Repinta a tela ao final de cada frame (a renderização ativa não precisa).
+        if (gamePanel != null && !gamePanel.isActiveRendering()) {
+            gamePanel.repaint();
+        }
     }
 
     /**
@@ -311,23 +327,33 @@ public class Main implements Serializable {
             case PLAYER_SPAWNED:
                 System.out.println("[Loader] Phase 3: Populating World...");
                 new PopulationSystem(world, gamePanel.getGameMap(), entityFactory, config).update();
-                currentLoadingPhase = LoadingPhase.WORLD_POPULATED;
+                        currentLoadingPhase = LoadingPhase.WORLD_POPULATED;
                 renderSystem.setLoadingPhase(currentLoadingPhase);
                 break;
             case WORLD_POPULATED:
                 System.out.println("[Loader] Phase 4: Awaiting player start...");
 
+                // Gera os sprites do que foi populado em segundo plano, enquanto a introdução é exibida
+                int pendingSprites = renderSystem.prewarmSprites(config);
+                System.out.println("[Loader] Generating " + pendingSprites + " sprites in the background.");
+
                 // CRIA E ARMAZENA O PLAYER INPUT SYSTEM SEPARADAMENTE
                 this.playerInputSystem = new PlayerInputSystem(world, (InputManager) gamePanel.getKeyListeners()[0], gamePanel.getGameMap());
                 this.playerInputSystem.resetActionKeyStates(); // Garante que a flag do Enter esteja limpa
 
                 // A lista de sistemas de lógica agora NÃO INCLUI o sistema de input
+                InfluenceMapSystem influenceMapSystem = new InfluenceMapSystem(world,
+                        new InfluenceMap(gamePanel.getGameMap(), GameConstants.INFLUENCE_DECAY_PER_TICK));
+                RespawnSystem respawnSystem = new RespawnSystem(world, gamePanel.getGameMap(), entityFactory, config);
+                respawnSystem.setView(this::currentViewBounds); // Nada reaparece dentro da tela
                 this.logicSystems = List.of(
-                        new AISystem(world, gamePanel.getGameMap()),
+                        influenceMapSystem, // Deve rodar antes da IA
+                        new AISystem(world, gamePanel.getGameMap(), influenceMapSystem),
                         new PortalSystem(world), 
                         new CombatSystem(world, entityFactory),
                         new InteractionSystem(world),
                         new GameLogicSystem(world, entityFactory),
+                        respawnSystem,
                         new NotificationSystem(world)
                 );
 
@@ -391,6 +417,13 @@ public class Main implements Serializable {
         }
     }
 
+    /**
+     * A área do mapa visível na tela, ou null se o painel ainda não existe.
+     */
+    private Rectangle currentViewBounds() {
+        return gamePanel != null ? gamePanel.getViewBounds() : null;
+    }
+
     /**
      * Atualiza a posição da câmera para seguir o jogador.
      */
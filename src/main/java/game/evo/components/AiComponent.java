@@ -15,7 +15,23 @@ public class AiComponent implements Component , Serializable { // << 2. ADICIONE
         PATROL_HORIZONTAL,
         PATROL_VERTICAL,
         WANDER_RANDOM,
-        CHASE_PLAYER
+        CHASE_PLAYER,
+        FLEE_PLAYER;
+
+        /**
+         * The behavior an NPC gets from its temperament when none is configured explicitly.
+         */
+        public static BehaviorType forTemperament(EcologyComponent.Temperament temperament) {
+            if (temperament == null) {
+                return WANDER_RANDOM;
+            }
+            switch (temperament) {
+                case AGGRESSIVE: return CHASE_PLAYER;
+                case SKITTISH:   return FLEE_PLAYER;
+                case NEUTRAL:
+                default:         return WANDER_RANDOM;
+            }
+        }
     }
 
     public BehaviorType behavior;
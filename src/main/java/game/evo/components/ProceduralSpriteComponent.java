@@ -37,6 +37,10 @@ public class ProceduralSpriteComponent implements Component, Serializable { // <
     public boolean isMoving;     // Is the entity currently moving?
     public int animationFrame; // 0, 1, 2... to cycle through animation frames
 
+    // Handle of the baked sprite in the SpriteAtlas, set on first draw (0 = not baked yet).
+    // Transient: handles are only valid in the running game, so a loaded save bakes again.
+    public transient int spriteHandle;
+
     public ProceduralSpriteComponent(long creatureSeed, int size, Color primaryColor, Color secondaryColor, BodyType bodyType) {
         this.creatureSeed = creatureSeed;
         this.size = size;
@@ -0,0 +1,24 @@
+package game.evo.components;
+
+import game.evo.ecs.Component;
+import java.io.Serializable;
+
+/**
+ * Scenery that never moves (trees, rocks, bushes, coral...). It holds the sprite genes in place
+ * of a ProceduralSpriteComponent, so RenderSystem does not sort and draw it as an entity every
+ * frame: the sprite is baked once into the terrain chunks (TerrainChunks), under everything
+ * else. Besides its position, the entity only keeps its CollisionComponent and FoodComponent,
+ * if it has them.
+ *
+ * The genes are not changed in place: to change a piece of scenery, remove this component and
+ * add a new one, and only the region it covers is redrawn.
+ */
+public class SceneryComponent implements Component, Serializable {
+
+    private static final long serialVersionUID = 1L;
+    public final ProceduralSpriteComponent sprite; // Genes of the still sprite baked into the terrain
+
+    public SceneryComponent(ProceduralSpriteComponent sprite) {
+        this.sprite = sprite;
+    }
+}
@@ -0,0 +1,20 @@
+package game.evo.components;
+
+import game.evo.ecs.Component;
+import java.io.Serializable;
+
+/**
+ * Marks an entity created from one of the level's population rules, so the RespawnSystem
+ * knows which density target it counts toward and can replace it once it is gone.
+ */
+public class SpawnedByComponent implements Component, Serializable {
+
+    private static final long serialVersionUID = 1L;
+    public final int ruleIndex;      // Index in LevelConfig.biomeRules
+    public final int spawnableIndex; // Index in that rule's spawnables
+
+    public SpawnedByComponent(int ruleIndex, int spawnableIndex) {
+        this.ruleIndex = ruleIndex;
+        this.spawnableIndex = spawnableIndex;
+    }
+}
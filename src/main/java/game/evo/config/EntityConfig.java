@@ -15,4 +15,7 @@ public class EntityConfig implements Serializable {
     public int row;
     public int column;
     public Map<String, Object> properties;
+    // Seed opcional da entidade (cores, forma e status). Uma "seed" nas properties tem prioridade;
+    // sem nenhuma das duas a EntityFactory sorteia uma.
+    public Long seed;
 }
\ No newline at end of file
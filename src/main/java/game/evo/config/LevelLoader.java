@@ -5,6 +5,7 @@ import com.google.gson.JsonSyntaxException;
 import com.google.gson.stream.JsonReader;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.StringReader;
 import java.nio.charset.StandardCharsets;
 
 /**
@@ -45,4 +46,20 @@ public class LevelLoader {
             return null;
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Parses a level configuration from JSON text. Each call returns a new, independent
+     * LevelConfig, so callers can modify the result (e.g. its seed) without affecting others.
+     * @param json The JSON content of a level file.
+     * @param sourceName A name for the source, used in log messages.
+     * @return The parsed LevelConfig, or null if the JSON is invalid.
+     */
+    public LevelConfig loadLevelFromJson(String json, String sourceName) {
+        try {
+            return gson.fromJson(new JsonReader(new StringReader(json)), LevelConfig.class);
+        } catch (JsonSyntaxException e) {
+            System.err.println("[ERROR LevelLoader] JSON syntax error in " + sourceName + ": " + e.getMessage());
+            return null;
+        }
+    }
+}
@@ -21,6 +21,12 @@ public class SpawnableConfig {
      * on any given valid tile within its allowed biomes.
      */
     public double density; 
+
+    /**
+     * Optional minimum distance, in tiles, between two entities of this spawnable
+     * (e.g. so trees and rocks don't clump). 0, the default, places them uniformly at random.
+     */
+    public double minSpacing;
     
     /**
      * A map of properties passed to the EntityFactory to customize the entity.
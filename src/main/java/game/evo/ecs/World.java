@@ -18,6 +18,10 @@ public class World implements Serializable { // << 2. ADICIONE 'implements Seria
     private Map<Class<? extends Component>, Map<Entity, Component>> componentsByType;
     private Map<Entity, Set<Class<? extends Component>>> entityComponentTypes;
 
+    // Incremented whenever an entity gains or loses a component of the given type.
+    // Transient: rebuilt lazily after a save is loaded.
+    private transient Map<Class<? extends Component>, Integer> componentVersions;
+
     /**
      * Flag to control verbose logging for World operations. Set to true for
      * detailed debugging of entity/component management.
@@ -72,7 +76,9 @@ public class World implements Serializable { // << 2. ADICIONE 'implements Seria
 
         Class<? extends Component> componentType = component.getClass();
         componentsByType.computeIfAbsent(componentType, k -> new HashMap<>());
-        componentsByType.get(componentType).put(entity, component);
+        if (componentsByType.get(componentType).put(entity, component) == null) {
+            bumpComponentVersion(componentType);
+        }
         entityComponentTypes.get(entity).add(componentType);
 
         if (MODO_VERBOSE_WORLD) { // Usando a nova flag
@@ -89,6 +95,9 @@ public class World implements Serializable { // << 2. ADICIONE 'implements Seria
         Map<Entity, Component> entityToComponentMap = componentsByType.get(componentType);
         if (entityToComponentMap != null) {
             Component removedComponent = entityToComponentMap.remove(entity);
+            if (removedComponent != null) {
+                bumpComponentVersion(componentType);
+            }
             if (removedComponent != null && MODO_VERBOSE_WORLD) { // Usando a nova flag
                 System.out.println("[INFO World] Removed " + componentType.getSimpleName() + " from " + entity);
             }
@@ -149,4 +158,27 @@ public class World implements Serializable { // << 2. ADICIONE 'implements Seria
         }
         return resultSet;
     }
+
+    public int getEntityCount() {
+        return entities.size();
+    }
+
+    /**
+     * Returns a counter that changes every time an entity gains or loses a component
+     * of the given type. Systems can compare it with a stored value to skip rebuilding
+     * their own views of the world when nothing relevant changed.
+     */
+    public int getComponentVersion(Class<? extends Component> componentType) {
+        if (componentVersions == null) {
+            return 0;
+        }
+        return componentVersions.getOrDefault(componentType, 0);
+    }
+
+    private void bumpComponentVersion(Class<? extends Component> componentType) {
+        if (componentVersions == null) {
+            componentVersions = new HashMap<>();
+        }
+        componentVersions.merge(componentType, 1, Integer::sum);
+    }
 }
@@ -31,4 +31,18 @@ public class InputManager implements KeyListener {
     public void keyTyped(KeyEvent e) {
         // Not used.
     }
-}
\ No newline at end of file
+
+    // --- Synthetic input, used by headless runs that have no keyboard ---
+
+    public void press(int keyCode) {
+        pressedKeys.add(keyCode);
+    }
+
+    public void release(int keyCode) {
+        pressedKeys.remove(keyCode);
+    }
+
+    public void releaseAll() {
+        pressedKeys.clear();
+    }
+}
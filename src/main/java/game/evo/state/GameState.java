@@ -11,11 +11,19 @@ public class GameState implements Serializable {
     
     private static final long serialVersionUID = 1L;
 
+    /**
+     * Version of the saved data. Saves written before it existed read as 0: their NPCs all hold
+     * WANDER_RANDOM, and the behavior actually came from the temperament.
+     */
+    public static final int CURRENT_VERSION = 1;
+
     public final int levelNumber;
     public final World world;
+    public final int version;
 
     public GameState(int levelNumber, World world) {
         this.levelNumber = levelNumber;
         this.world = world;
+        this.version = CURRENT_VERSION;
     }
 }
\ No newline at end of file
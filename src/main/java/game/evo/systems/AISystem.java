@@ -3,26 +3,103 @@ package game.evo.systems;
 import game.evo.ecs.Entity;
 import game.evo.ecs.World;
 import game.evo.world.GameMap;
+import game.evo.world.InfluenceMap;
+import game.evo.world.TileType;
 import game.evo.utils.CollisionUtil;
+import game.evo.utils.GameConstants;
+import game.evo.utils.ZOrderIndex;
 import game.evo.components.*;
 
 import java.util.Random;
 import java.util.Set;
+import java.util.function.LongSupplier;
 
 /**
  * AISystem controls the behavior of Non-Player Characters (NPCs).
- * It reads the EcologyComponent to determine an NPC's temperament (Aggressive, Skittish, Neutral)
- * and updates its movement and actions accordingly.
+ * NPCs are grouped by their AiComponent.BehaviorType into structure-of-arrays batches
+ * (see NpcBatch), and each behavior runs as one tight loop ("kernel") over its batch.
+ * NPCs without a behavior fall back to their EcologyComponent temperament: aggressive ones
+ * chase the player and skittish ones flee from it, as before behaviors were assigned explicitly.
+ * When an InfluenceMapSystem is available, the kernels sample its layers (danger, food,
+ * crowding) instead of measuring distances to other entities.
+ * NPCs and solid entities are visited in Z-order (Morton order) of their positions,
+ * so consecutive NPCs are map neighbours and collision lookups are binary searches.
  */
 public class AISystem extends GameSystem {
 
+    // Danger (in influence units) above which a skittish NPC starts fleeing.
+    private static final float FLEE_DANGER_THRESHOLD = 1.0f;
+    // Chance per move that a wandering NPC follows the food or crowding gradient instead of walking randomly.
+    private static final double GRADIENT_FOLLOW_CHANCE = 0.6;
+
+    private static final int DETECTION_RANGE = 8; // How many tiles away a chaser can "see" the player
+    private static final int ATTACK_RANGE = 1;    // How close it needs to be to attack
+    private static final int FLEE_RANGE = 6;      // How close the player has to be to scare a fleeing NPC
+
+    // Row/column offsets indexed by DirectionComponent.Direction ordinal (UP, DOWN, LEFT, RIGHT).
+    private static final int[] DIRECTION_ROW_STEP = {-1, 1, 0, 0};
+    private static final int[] DIRECTION_COL_STEP = {0, 0, -1, 1};
+    private static final int UP = 0, DOWN = 1, LEFT = 2, RIGHT = 3;
+
     private final GameMap gameMap;
-    private final Random random = new Random();
-    private Entity playerEntityCache; // Cache for the player entity to avoid repeated lookups per frame
+    private final InfluenceMapSystem influence; // Optional: null falls back to player-distance checks
+    private Random random = new Random(); // Unseeded in the game; a headless run injects a seeded one
+    private LongSupplier clock = System::currentTimeMillis; // Milliseconds used for the move timers
+
+    // Player state, read once per tick for all kernels
+    private boolean hasPlayer;
+    private int playerRow;
+    private int playerColumn;
+
+    private final ZOrderIndex npcOrder = new ZOrderIndex(NpcComponent.class);
+    private final ZOrderIndex colliderOrder = new ZOrderIndex(CollisionComponent.class);
+    private boolean spatialOrderingActive; // Snapshot of the flag for the current tick
+
+    private final NpcBatch[] batches; // Indexed by BehaviorType ordinal
+    private int batchesSignature = -1;
+    private boolean batchesSpatial;
+    private int ticksSinceBatchRebuild = 0;
 
     public AISystem(World world, GameMap gameMap) {
+        this(world, gameMap, null);
+    }
+
+    public AISystem(World world, GameMap gameMap, InfluenceMapSystem influence) {
         super(world);
         this.gameMap = gameMap;
+        this.influence = influence;
+        AiComponent.BehaviorType[] behaviors = AiComponent.BehaviorType.values();
+        this.batches = new NpcBatch[behaviors.length];
+        for (AiComponent.BehaviorType behavior : behaviors) {
+            batches[behavior.ordinal()] = new NpcBatch(behavior);
+        }
+    }
+
+    /**
+     * Replaces the wall clock used for the move timers, e.g. with a SimulationClock that
+     * advances a fixed amount per tick so a headless run can tick faster than real time.
+     */
+    public void setClock(LongSupplier clock) {
+        this.clock = clock;
+    }
+
+    /**
+     * Replaces the random stream of the NPC decisions, e.g. with one seeded from the run's seed
+     * so a headless run can be replayed tick for tick.
+     */
+    public void setRandom(Random random) {
+        this.random = random;
+    }
+
+    /**
+     * Resolves the behavior an NPC actually runs. An explicit behavior, WANDER_RANDOM included,
+     * always wins; only a missing one comes from the temperament.
+     */
+    public static AiComponent.BehaviorType resolveBehavior(AiComponent ai, EcologyComponent ecology) {
+        if (ai.behavior != null) {
+            return ai.behavior;
+        }
+        return AiComponent.BehaviorType.forTemperament(ecology.temperament);
     }
 
     /**
@@ -30,182 +107,316 @@ public class AISystem extends GameSystem {
      */
     @Override
     public void update() {
-        // Find the player entity once per frame for all NPCs to reference
-        this.playerEntityCache = findPlayer();
-        
-        Set<Entity> npcs = world.getEntitiesWithComponent(NpcComponent.class);
-        long currentTime = System.currentTimeMillis();
-
-        for (Entity npc : npcs) {
-            // Get all necessary components for the NPC
-            AiComponent ai = world.getComponent(npc, AiComponent.class);
-            EcologyComponent ecology = world.getComponent(npc, EcologyComponent.class);
-            ProceduralSpriteComponent sprite = world.getComponent(npc, ProceduralSpriteComponent.class);
-            
-            if (ai == null || ecology == null || sprite == null) continue;
-
-            // Check timing to control movement speed
-            if (currentTime - ai.lastMoveTime < ai.moveDelay) {
-                sprite.isMoving = false; // If not moving, ensure animation state is idle
-                continue; 
+        // Read the player's tile once per frame for all NPCs to reference
+        cachePlayerPosition();
+        long currentTime = clock.getAsLong();
+
+        this.spatialOrderingActive = GameConstants.AI_SPATIAL_ORDERING_ENABLED;
+        if (spatialOrderingActive) {
+            // Bring both orders up to date: membership changes, then the moves of the last tick.
+            npcOrder.sync(world);
+            npcOrder.refresh();
+            colliderOrder.sync(world);
+            colliderOrder.refresh();
+        }
+        rebuildBatchesIfNeeded();
+
+        for (NpcBatch batch : batches) {
+            if (batch.size == 0) continue;
+            batch.gather();
+            switch (batch.behavior) {
+                case STATIC:            runStatic(batch); break;
+                case PATROL_HORIZONTAL: runPatrol(batch, currentTime, true); break;
+                case PATROL_VERTICAL:   runPatrol(batch, currentTime, false); break;
+                case CHASE_PLAYER:      runChase(batch, currentTime); break;
+                case FLEE_PLAYER:       runFlee(batch, currentTime); break;
+                case WANDER_RANDOM:
+                default:                runWander(batch, currentTime); break;
+            }
+            batch.scatter();
+        }
+    }
+
+    /**
+     * Regroups the NPCs into batches when any component they depend on was added or removed,
+     * when the ordering mode changed, or periodically so batches follow the Z-order as NPCs move
+     * (and pick up behaviors changed in place).
+     */
+    private void rebuildBatchesIfNeeded() {
+        int signature = world.getComponentVersion(NpcComponent.class)
+                + world.getComponentVersion(AiComponent.class)
+                + world.getComponentVersion(EcologyComponent.class)
+                + world.getComponentVersion(PositionComponent.class)
+                + world.getComponentVersion(DirectionComponent.class)
+                + world.getComponentVersion(ProceduralSpriteComponent.class);
+        ticksSinceBatchRebuild++;
+        if (signature == batchesSignature && batchesSpatial == spatialOrderingActive
+                && ticksSinceBatchRebuild < GameConstants.AI_BATCH_REBUILD_INTERVAL_TICKS) {
+            return;
+        }
+        batchesSignature = signature;
+        batchesSpatial = spatialOrderingActive;
+        ticksSinceBatchRebuild = 0;
+
+        for (NpcBatch batch : batches) {
+            batch.clear();
+        }
+        if (spatialOrderingActive) {
+            for (int i = 0; i < npcOrder.size(); i++) {
+                addToBatch(npcOrder.entityAt(i));
             }
-            ai.lastMoveTime = currentTime;
-            sprite.isMoving = true; // Assume movement will happen unless it stands still
-
-            // Decide which action to take based on temperament
-            switch (ecology.temperament) {
-                case AGGRESSIVE:
-                    handleAggressive(npc);
-                    break;
-                case SKITTISH:
-                    handleSkittish(npc);
-                    break;
-                case NEUTRAL:
-                default:
-                    handleNeutral(npc);
-                    break;
+        } else {
+            for (Entity npc : world.getEntitiesWithComponent(NpcComponent.class)) {
+                addToBatch(npc);
+            }
+        }
+    }
+
+    private void addToBatch(Entity npc) {
+        AiComponent ai = world.getComponent(npc, AiComponent.class);
+        EcologyComponent ecology = world.getComponent(npc, EcologyComponent.class);
+        PositionComponent position = world.getComponent(npc, PositionComponent.class);
+        DirectionComponent direction = world.getComponent(npc, DirectionComponent.class);
+        ProceduralSpriteComponent sprite = world.getComponent(npc, ProceduralSpriteComponent.class);
+        if (ai == null || ecology == null || position == null || direction == null || sprite == null) return;
+
+        batches[resolveBehavior(ai, ecology).ordinal()].add(npc, ai, position, direction, sprite, ecology);
+    }
+
+    // --- Behavior kernels: one loop per batch, working on the primitive arrays ---
+
+    /**
+     * STATIC: never moves, always shown idle.
+     */
+    private void runStatic(NpcBatch b) {
+        for (int i = 0; i < b.size; i++) {
+            b.moving[i] = false;
+        }
+    }
+
+    /**
+     * WANDER_RANDOM: random walk, drifting towards food for plant eaters.
+     */
+    private void runWander(NpcBatch b, long now) {
+        for (int i = 0; i < b.size; i++) {
+            if (!readyToAct(b, i, now)) continue;
+            wanderStep(b, i);
+        }
+    }
+
+    /**
+     * CHASE_PLAYER: chase and attack the player if nearby, otherwise roam towards crowds (prey) or wander.
+     */
+    private void runChase(NpcBatch b, long now) {
+        for (int i = 0; i < b.size; i++) {
+            if (!readyToAct(b, i, now)) continue;
+
+            int distance = distanceToPlayer(b, i);
+            if (distance <= DETECTION_RANGE) {
+                if (distance <= ATTACK_RANGE) {
+                    Entity npc = b.entities[i];
+                    if (!world.hasComponent(npc, WantsToAttackComponent.class)) {
+                        world.addComponent(npc, new WantsToAttackComponent());
+                    }
+                    b.moving[i] = false; // Stop moving to attack
+                } else {
+                    stepTowards(b, i, playerRow, playerColumn, 1);
+                }
+            } else if (random.nextDouble() >= GRADIENT_FOLLOW_CHANCE
+                    || !followGradient(b, i, InfluenceMap.Layer.CROWDING, true)) {
+                wanderStep(b, i);
             }
         }
     }
 
     /**
-     * Handles AGGRESSIVE behavior: find and chase the player if nearby, otherwise wander.
+     * FLEE_PLAYER: flee from danger if nearby, otherwise wander.
+     * With an influence map, "danger" is the DANGER layer (player and aggressive NPCs);
+     * without one, only the player's distance is considered.
      */
-    private void handleAggressive(Entity npc) {
-        PositionComponent npcPos = world.getComponent(npc, PositionComponent.class);
-        PositionComponent playerPos = (playerEntityCache != null) ? world.getComponent(playerEntityCache, PositionComponent.class) : null;
-        
-        int detectionRange = 8; // How many tiles away the NPC can "see" the player
-        int attackRange = 1; // How close it needs to be to attack
+    private void runFlee(NpcBatch b, long now) {
+        for (int i = 0; i < b.size; i++) {
+            if (!readyToAct(b, i, now)) continue;
 
-        if (playerPos != null && isWithinDistance(npcPos, playerPos, detectionRange)) {
-            // If right next to the player, try to attack
-            if (isWithinDistance(npcPos, playerPos, attackRange)) {
-                if (!world.hasComponent(npc, WantsToAttackComponent.class)) {
-                    world.addComponent(npc, new WantsToAttackComponent());
+            if (influence != null) {
+                if (influence.sampleFor(b.entities[i], InfluenceMap.Layer.DANGER, b.rows[i], b.columns[i]) >= FLEE_DANGER_THRESHOLD
+                        && followGradient(b, i, InfluenceMap.Layer.DANGER, false)) {
+                    continue;
                 }
-                world.getComponent(npc, ProceduralSpriteComponent.class).isMoving = false; // Stop moving to attack
+                wanderStep(b, i);
+            } else if (distanceToPlayer(b, i) <= FLEE_RANGE) {
+                stepTowards(b, i, playerRow, playerColumn, -1);
             } else {
-                // Otherwise, move towards the player
-                moveTowards(npc, playerPos);
+                wanderStep(b, i);
             }
-        } else {
-            // If player is not in range, just wander around
-            handleNeutral(npc);
         }
     }
 
     /**
-     * Handles SKITTISH behavior: flee from the player if nearby, otherwise wander.
+     * PATROL_HORIZONTAL / PATROL_VERTICAL: walk back and forth along one axis, at most
+     * patrolRange tiles away from the starting tile, turning around early when blocked.
      */
-    private void handleSkittish(Entity npc) {
-        PositionComponent npcPos = world.getComponent(npc, PositionComponent.class);
-        PositionComponent playerPos = (playerEntityCache != null) ? world.getComponent(playerEntityCache, PositionComponent.class) : null;
-        int fleeRange = 6; // How close the player has to be to scare the NPC
+    private void runPatrol(NpcBatch b, long now, boolean horizontal) {
+        int[] axis = horizontal ? b.columns : b.rows;
+        int forwardDirection = horizontal ? RIGHT : DOWN;
+        int backwardDirection = horizontal ? LEFT : UP;
 
-        if (playerPos != null && isWithinDistance(npcPos, playerPos, fleeRange)) {
-            moveAwayFrom(npc, playerPos);
-        } else {
-            handleNeutral(npc);
+        for (int i = 0; i < b.size; i++) {
+            if (!readyToAct(b, i, now)) continue;
+
+            int range = b.patrolRanges[i];
+            if (range <= 0) {
+                b.moving[i] = false;
+                continue;
+            }
+            int offset = axis[i] - b.patrolOrigins[i];
+            boolean forward = b.patrolForward[i];
+            if (forward && offset >= range) {
+                forward = false;
+            } else if (!forward && offset <= -range) {
+                forward = true;
+            }
+            if (!step(b, i, forward ? forwardDirection : backwardDirection)) {
+                forward = !forward; // Blocked: try the other way next time
+            }
+            b.patrolForward[i] = forward;
+        }
+    }
+
+    // --- Helpers shared by the kernels ---
+
+    /**
+     * Checks the move timer. Marks the NPC idle if it must still wait, or moving (until proven otherwise) if it acts.
+     */
+    private boolean readyToAct(NpcBatch b, int i, long now) {
+        if (now - b.lastMoveTimes[i] < b.moveDelays[i]) {
+            b.moving[i] = false; // If not moving, ensure animation state is idle
+            return false;
         }
+        b.lastMoveTimes[i] = now;
+        b.moving[i] = true; // Assume movement will happen unless it stands still
+        return true;
     }
 
     /**
-     * Handles NEUTRAL behavior: wander randomly.
+     * One random-walk step, or a step up the food gradient for plant eaters.
      */
-    private void handleNeutral(Entity npc) {
-        // This is a simple random walk
+    private void wanderStep(NpcBatch b, int i) {
+        if (influence != null && b.eatsPlants[i] && random.nextDouble() < GRADIENT_FOLLOW_CHANCE
+                && followGradient(b, i, InfluenceMap.Layer.FOOD, true)) {
+            return;
+        }
+
         int moveChoice = random.nextInt(5); // 0-3 for movement, 4 for standing still
         if (moveChoice == 4) {
-            world.getComponent(npc, ProceduralSpriteComponent.class).isMoving = false;
+            b.moving[i] = false;
             return;
         }
-        
-        DirectionComponent.Direction moveDirection = DirectionComponent.Direction.values()[moveChoice];
-        moveInDirection(npc, moveDirection);
+        step(b, i, moveChoice);
     }
 
-    // --- Helper Methods for AI Movement ---
-
     /**
-     * Calculates the best single step to take to get closer to a target position.
+     * Steps towards the neighbouring influence cell with the highest (or lowest) value of a layer.
+     * Neighbours are sampled one influence cell away, since adjacent tiles usually share a cell,
+     * and without the NPC's own contribution (see InfluenceMapSystem.sampleFor).
+     * @return true if a better neighbour existed and a move was attempted, false otherwise.
      */
-    private void moveTowards(Entity npc, PositionComponent targetPos) {
-        PositionComponent npcPos = world.getComponent(npc, PositionComponent.class);
-        if (npcPos == null) return;
+    private boolean followGradient(NpcBatch b, int i, InfluenceMap.Layer layer, boolean ascend) {
+        if (influence == null) {
+            return false;
+        }
+        int stepSize = InfluenceMap.TILES_PER_CELL;
+        Entity self = b.entities[i];
+        int row = b.rows[i];
+        int col = b.columns[i];
+        float best = influence.sampleFor(self, layer, row, col);
+        int bestDirection = -1;
 
-        int dr = targetPos.row - npcPos.row;
-        int dc = targetPos.column - npcPos.column;
+        for (int d = 0; d < DIRECTION_ROW_STEP.length; d++) {
+            int r = row + DIRECTION_ROW_STEP[d] * stepSize;
+            int c = col + DIRECTION_COL_STEP[d] * stepSize;
+            if (gameMap.getLogicalTileType(r, c) == TileType.UNKNOWN) {
+                continue; // Never steer off the map
+            }
+            float value = influence.sampleFor(self, layer, r, c);
+            if (ascend ? value > best : value < best) {
+                best = value;
+                bestDirection = d;
+            }
+        }
+
+        if (bestDirection < 0) {
+            return false;
+        }
+        step(b, i, bestDirection);
+        return true;
+    }
+
+    /**
+     * Takes the single step that best closes (sign 1) or opens (sign -1) the gap to a target tile,
+     * moving along the axis with the greatest distance first.
+     */
+    private void stepTowards(NpcBatch b, int i, int targetRow, int targetColumn, int sign) {
+        int dr = (targetRow - b.rows[i]) * sign;
+        int dc = (targetColumn - b.columns[i]) * sign;
 
-        // Move along the axis with the greatest distance first to close the gap
         if (Math.abs(dr) > Math.abs(dc)) {
-            moveInDirection(npc, dr > 0 ? DirectionComponent.Direction.DOWN : DirectionComponent.Direction.UP);
+            step(b, i, dr > 0 ? DOWN : UP);
         } else if (dc != 0) { // Check dc != 0 to avoid standing still if on same column
-            moveInDirection(npc, dc > 0 ? DirectionComponent.Direction.RIGHT : DirectionComponent.Direction.LEFT);
-        } else { // Already on the same column, move vertically
-            moveInDirection(npc, dr > 0 ? DirectionComponent.Direction.DOWN : DirectionComponent.Direction.UP);
+            step(b, i, dc > 0 ? RIGHT : LEFT);
+        } else { // Same column: move vertically
+            step(b, i, dr > 0 ? DOWN : UP);
         }
     }
 
     /**
-     * Calculates the best single step to take to get further away from a target position.
+     * Tries to move an NPC one tile in a direction after checking for collisions.
+     * Updates the facing regardless of the outcome, and the PositionComponent right away on success
+     * so collision checks of the NPCs after it in this tick see the new tile.
+     * @return true if the NPC moved.
      */
-    private void moveAwayFrom(Entity npc, PositionComponent targetPos) {
-        PositionComponent npcPos = world.getComponent(npc, PositionComponent.class);
-        if (npcPos == null) return;
+    private boolean step(NpcBatch b, int i, int direction) {
+        b.facing[i] = (byte) direction;
+        int targetRow = b.rows[i] + DIRECTION_ROW_STEP[direction];
+        int targetCol = b.columns[i] + DIRECTION_COL_STEP[direction];
+        Entity entity = b.entities[i];
 
-        int dr = npcPos.row - targetPos.row;
-        int dc = npcPos.column - targetPos.column;
-        
-        // Move along the axis that creates the most distance
-        if (Math.abs(dr) > Math.abs(dc)) {
-            moveInDirection(npc, dr > 0 ? DirectionComponent.Direction.DOWN : DirectionComponent.Direction.UP);
-        } else if (dc != 0) {
-            moveInDirection(npc, dc > 0 ? DirectionComponent.Direction.RIGHT : DirectionComponent.Direction.LEFT);
-        } else { // Flee vertically if on same column
-             moveInDirection(npc, dr > 0 ? DirectionComponent.Direction.DOWN : DirectionComponent.Direction.UP);
-        }
-    }
-
-    /**
-     * Tries to move an entity one step in a given direction after checking for collisions.
-     * @param entity The entity to move.
-     * @param direction The direction to move in.
-     */
-    private void moveInDirection(Entity entity, DirectionComponent.Direction direction) {
-        PositionComponent position = world.getComponent(entity, PositionComponent.class);
-        DirectionComponent dirComponent = world.getComponent(entity, DirectionComponent.class);
-        if (position == null || dirComponent == null) return;
-        
-        dirComponent.facing = direction; // Update direction component regardless of successful move
-        
-        int targetRow = position.row;
-        int targetCol = position.column;
-        
-        switch (direction) {
-            case UP:    targetRow--; break;
-            case DOWN:  targetRow++; break;
-            case LEFT:  targetCol--; break;
-            case RIGHT: targetCol++; break;
-        }
-
-        if (CollisionUtil.isPositionOpen(world, gameMap, targetRow, targetCol, entity)) {
-            position.row = targetRow;
-            position.column = targetCol;
-        } else {
-             // If move failed, it's not in a "moving" state for animation
-             world.getComponent(entity, ProceduralSpriteComponent.class).isMoving = false;
+        boolean open = spatialOrderingActive
+                ? CollisionUtil.isPositionOpen(gameMap, colliderOrder, targetRow, targetCol, entity)
+                : CollisionUtil.isPositionOpen(world, gameMap, targetRow, targetCol, entity);
+        if (!open) {
+            b.moving[i] = false; // If move failed, it's not in a "moving" state for animation
+            return false;
         }
+
+        b.rows[i] = targetRow;
+        b.columns[i] = targetCol;
+        PositionComponent position = b.positions[i];
+        position.row = targetRow;
+        position.column = targetCol;
+        if (spatialOrderingActive) {
+            colliderOrder.moved(entity); // Keep later lookups in this tick exact
+        }
+        return true;
     }
 
-    private boolean isWithinDistance(PositionComponent pos1, PositionComponent pos2, int distance) {
-        if (pos1 == null || pos2 == null) return false;
-        // Using Manhattan distance for simplicity and performance on a grid
-        return (Math.abs(pos1.row - pos2.row) + Math.abs(pos1.column - pos2.column)) <= distance;
+    /**
+     * Manhattan distance from an NPC to the player, or Integer.MAX_VALUE when there is no player.
+     */
+    private int distanceToPlayer(NpcBatch b, int i) {
+        if (!hasPlayer) {
+            return Integer.MAX_VALUE;
+        }
+        return Math.abs(b.rows[i] - playerRow) + Math.abs(b.columns[i] - playerColumn);
     }
 
-    private Entity findPlayer() {
+    private void cachePlayerPosition() {
         Set<Entity> players = world.getEntitiesWithComponent(PlayerControlledComponent.class);
-        return players.isEmpty() ? null : players.iterator().next();
+        PositionComponent playerPos = players.isEmpty() ? null : world.getComponent(players.iterator().next(), PositionComponent.class);
+        hasPlayer = playerPos != null;
+        if (hasPlayer) {
+            playerRow = playerPos.row;
+            playerColumn = playerPos.column;
+        }
     }
 }
@@ -0,0 +1,162 @@
+package game.evo.systems;
+
+import game.evo.components.EcologyComponent;
+import game.evo.components.FoodComponent;
+import game.evo.components.NpcComponent;
+import game.evo.components.PlayerControlledComponent;
+import game.evo.components.PositionComponent;
+import game.evo.components.SizeComponent;
+import game.evo.ecs.Entity;
+import game.evo.ecs.World;
+import game.evo.world.InfluenceMap;
+
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * Keeps the InfluenceMap layers in sync with the world.
+ * For every source it remembers the cell and strength it last stamped, so each tick
+ * only sources that changed cell (or appeared/disappeared) touch the layers.
+ * Must run before AISystem so NPCs sample up-to-date values, through sampleFor() so an
+ * NPC does not mistake its own stamp for the influence around it.
+ */
+public class InfluenceMapSystem extends GameSystem {
+
+    private final InfluenceMap influenceMap;
+    private final Map<InfluenceMap.Layer, Map<Entity, TrackedSource>> trackedByLayer = new EnumMap<>(InfluenceMap.Layer.class);
+    private int tick = 0;
+
+    /**
+     * The last stamp written by one source into one layer, and the last trail it left.
+     */
+    private static final class TrackedSource {
+        int cell;
+        int strength;
+        int seenTick;
+        int trailCell = -1;
+        int trailStrength;
+        int trailTick;
+
+        TrackedSource(int cell, int strength) {
+            this.cell = cell;
+            this.strength = strength;
+        }
+
+        // Called before cell/strength are overwritten, when the current stamp became a trail.
+        void rememberTrail(int tick) {
+            trailCell = cell;
+            trailStrength = strength;
+            trailTick = tick;
+        }
+    }
+
+    public InfluenceMapSystem(World world, InfluenceMap influenceMap) {
+        super(world);
+        if (influenceMap == null) {
+            throw new IllegalArgumentException("InfluenceMapSystem requires a non-null InfluenceMap.");
+        }
+        this.influenceMap = influenceMap;
+        for (InfluenceMap.Layer layer : InfluenceMap.Layer.values()) {
+            trackedByLayer.put(layer, new HashMap<>());
+        }
+    }
+
+    @Override
+    public void update() {
+        tick++;
+        influenceMap.advanceTick();
+
+        // DANGER and CROWDING come from NPCs, DANGER also from the player.
+        for (Entity npc : world.getEntitiesWithComponent(NpcComponent.class)) {
+            PositionComponent pos = world.getComponent(npc, PositionComponent.class);
+            if (pos == null) continue;
+            int cell = influenceMap.cellIndexFor(pos.row, pos.column);
+
+            track(InfluenceMap.Layer.CROWDING, npc, cell, 1);
+
+            EcologyComponent ecology = world.getComponent(npc, EcologyComponent.class);
+            if (ecology != null && ecology.temperament == EcologyComponent.Temperament.AGGRESSIVE) {
+                track(InfluenceMap.Layer.DANGER, npc, cell, strengthFromSize(npc));
+            }
+        }
+
+        for (Entity player : world.getEntitiesWithComponent(PlayerControlledComponent.class)) {
+            PositionComponent pos = world.getComponent(player, PositionComponent.class);
+            if (pos == null) continue;
+            track(InfluenceMap.Layer.DANGER, player, influenceMap.cellIndexFor(pos.row, pos.column), strengthFromSize(player));
+        }
+
+        for (Entity food : world.getEntitiesWithComponent(FoodComponent.class)) {
+            PositionComponent pos = world.getComponent(food, PositionComponent.class);
+            if (pos == null) continue;
+            track(InfluenceMap.Layer.FOOD, food, influenceMap.cellIndexFor(pos.row, pos.column), 1);
+        }
+
+        // Sources not seen this tick were destroyed (or changed role): turn them into trails.
+        for (Map.Entry<InfluenceMap.Layer, Map<Entity, TrackedSource>> layerEntry : trackedByLayer.entrySet()) {
+            Iterator<TrackedSource> it = layerEntry.getValue().values().iterator();
+            while (it.hasNext()) {
+                TrackedSource source = it.next();
+                if (source.seenTick != tick) {
+                    influenceMap.removeSource(layerEntry.getKey(), source.cell, source.strength);
+                    it.remove();
+                }
+            }
+        }
+    }
+
+    private void track(InfluenceMap.Layer layer, Entity entity, int cell, int strength) {
+        if (cell < 0) {
+            return;
+        }
+        Map<Entity, TrackedSource> tracked = trackedByLayer.get(layer);
+        TrackedSource source = tracked.get(entity);
+        if (source == null) {
+            source = new TrackedSource(cell, strength);
+            tracked.put(entity, source);
+            influenceMap.addSource(layer, cell, strength);
+        } else if (source.strength != strength) {
+            influenceMap.removeSource(layer, source.cell, source.strength);
+            influenceMap.addSource(layer, cell, strength);
+            source.rememberTrail(influenceMap.getCurrentTick());
+            source.cell = cell;
+            source.strength = strength;
+        } else if (source.cell != cell) {
+            influenceMap.moveSource(layer, source.cell, cell, strength);
+            source.rememberTrail(influenceMap.getCurrentTick());
+            source.cell = cell;
+        }
+        source.seenTick = tick;
+    }
+
+    /**
+     * Samples a layer the way an entity perceives it: without its own presence stamp and
+     * without the trail of its last move, which would otherwise outweigh its neighbours
+     * (the center of a stamp weighs more than its edges) and pull it back where it was.
+     * Older trails of its own have decayed and are left in.
+     */
+    public float sampleFor(Entity self, InfluenceMap.Layer layer, int row, int column) {
+        float value = influenceMap.sample(layer, row, column);
+        TrackedSource own = trackedByLayer.get(layer).get(self);
+        if (own == null) {
+            return value;
+        }
+        int cell = influenceMap.cellIndexFor(row, column);
+        value -= influenceMap.presenceShare(own.cell, cell) * own.strength;
+        if (own.trailCell >= 0) {
+            value -= influenceMap.trailShare(own.trailCell, own.trailTick, cell) * own.trailStrength;
+        }
+        return value;
+    }
+
+    private int strengthFromSize(Entity entity) {
+        SizeComponent size = world.getComponent(entity, SizeComponent.class);
+        return (size != null) ? size.size : 1;
+    }
+
+    public InfluenceMap getInfluenceMap() {
+        return influenceMap;
+    }
+}
@@ -0,0 +1,142 @@
+package game.evo.systems;
+
+import game.evo.components.AiComponent;
+import game.evo.components.DirectionComponent;
+import game.evo.components.EcologyComponent;
+import game.evo.components.PositionComponent;
+import game.evo.components.ProceduralSpriteComponent;
+import game.evo.ecs.Entity;
+
+import java.util.Arrays;
+
+/**
+ * Structure-of-arrays working copy of the AI state of every NPC sharing one BehaviorType.
+ * AISystem gathers the hot fields (tile, timers, facing, patrol state) from the components
+ * into primitive arrays, runs one kernel loop over the batch, and scatters the results back.
+ * The component references are only touched by gather() and scatter(), and by a kernel
+ * when an NPC actually changes tile (collision lookups read the live PositionComponent).
+ */
+final class NpcBatch {
+
+    private static final int INITIAL_CAPACITY = 32;
+    private static final DirectionComponent.Direction[] DIRECTIONS = DirectionComponent.Direction.values();
+
+    final AiComponent.BehaviorType behavior;
+    int size = 0;
+
+    // --- Component references, used only for gather/scatter ---
+    Entity[] entities = new Entity[INITIAL_CAPACITY];
+    AiComponent[] ais = new AiComponent[INITIAL_CAPACITY];
+    PositionComponent[] positions = new PositionComponent[INITIAL_CAPACITY];
+    DirectionComponent[] directions = new DirectionComponent[INITIAL_CAPACITY];
+    ProceduralSpriteComponent[] sprites = new ProceduralSpriteComponent[INITIAL_CAPACITY];
+    EcologyComponent[] ecologies = new EcologyComponent[INITIAL_CAPACITY];
+
+    // --- Hot state read and written by the kernels ---
+    int[] rows = new int[INITIAL_CAPACITY];
+    int[] columns = new int[INITIAL_CAPACITY];
+    long[] lastMoveTimes = new long[INITIAL_CAPACITY];
+    long[] moveDelays = new long[INITIAL_CAPACITY];
+    byte[] facing = new byte[INITIAL_CAPACITY];        // DirectionComponent.Direction ordinal
+    boolean[] moving = new boolean[INITIAL_CAPACITY];
+    boolean[] eatsPlants = new boolean[INITIAL_CAPACITY];
+
+    // --- Patrol state (only filled for the PATROL_* batches) ---
+    int[] patrolOrigins = new int[INITIAL_CAPACITY];   // Starting column (horizontal) or row (vertical)
+    int[] patrolRanges = new int[INITIAL_CAPACITY];
+    boolean[] patrolForward = new boolean[INITIAL_CAPACITY]; // Moving right (horizontal) or down (vertical)
+
+    NpcBatch(AiComponent.BehaviorType behavior) {
+        this.behavior = behavior;
+    }
+
+    void clear() {
+        Arrays.fill(entities, 0, size, null);
+        Arrays.fill(ais, 0, size, null);
+        Arrays.fill(positions, 0, size, null);
+        Arrays.fill(directions, 0, size, null);
+        Arrays.fill(sprites, 0, size, null);
+        Arrays.fill(ecologies, 0, size, null);
+        size = 0;
+    }
+
+    void add(Entity entity, AiComponent ai, PositionComponent position, DirectionComponent direction,
+             ProceduralSpriteComponent sprite, EcologyComponent ecology) {
+        ensureCapacity(size + 1);
+        entities[size] = entity;
+        ais[size] = ai;
+        positions[size] = position;
+        directions[size] = direction;
+        sprites[size] = sprite;
+        ecologies[size] = ecology;
+        size++;
+    }
+
+    /**
+     * Copies the current component values into the primitive arrays.
+     * Done every tick, since other systems (input, combat, saves) may change them between ticks.
+     */
+    void gather() {
+        boolean horizontal = behavior == AiComponent.BehaviorType.PATROL_HORIZONTAL;
+        boolean patrol = horizontal || behavior == AiComponent.BehaviorType.PATROL_VERTICAL;
+        for (int i = 0; i < size; i++) {
+            AiComponent ai = ais[i];
+            rows[i] = positions[i].row;
+            columns[i] = positions[i].column;
+            lastMoveTimes[i] = ai.lastMoveTime;
+            moveDelays[i] = ai.moveDelay;
+            facing[i] = (byte) directions[i].facing.ordinal();
+            eatsPlants[i] = ecologies[i].diet != EcologyComponent.DietaryType.CARNIVORE;
+            if (patrol) {
+                patrolOrigins[i] = horizontal ? ai.initialColumn : ai.initialRow;
+                patrolRanges[i] = ai.patrolRange;
+                patrolForward[i] = horizontal ? ai.movingRight : ai.movingDown;
+            }
+        }
+    }
+
+    /**
+     * Writes the kernel results back into the components.
+     * Positions are not written here: kernels update them as soon as a move succeeds.
+     */
+    void scatter() {
+        boolean horizontal = behavior == AiComponent.BehaviorType.PATROL_HORIZONTAL;
+        boolean patrol = horizontal || behavior == AiComponent.BehaviorType.PATROL_VERTICAL;
+        for (int i = 0; i < size; i++) {
+            AiComponent ai = ais[i];
+            ai.lastMoveTime = lastMoveTimes[i];
+            directions[i].facing = DIRECTIONS[facing[i]];
+            sprites[i].isMoving = moving[i];
+            if (patrol) {
+                if (horizontal) {
+                    ai.movingRight = patrolForward[i];
+                } else {
+                    ai.movingDown = patrolForward[i];
+                }
+            }
+        }
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity <= entities.length) {
+            return;
+        }
+        int n = Math.max(capacity, entities.length * 2);
+        entities = Arrays.copyOf(entities, n);
+        ais = Arrays.copyOf(ais, n);
+        positions = Arrays.copyOf(positions, n);
+        directions = Arrays.copyOf(directions, n);
+        sprites = Arrays.copyOf(sprites, n);
+        ecologies = Arrays.copyOf(ecologies, n);
+        rows = Arrays.copyOf(rows, n);
+        columns = Arrays.copyOf(columns, n);
+        lastMoveTimes = Arrays.copyOf(lastMoveTimes, n);
+        moveDelays = Arrays.copyOf(moveDelays, n);
+        facing = Arrays.copyOf(facing, n);
+        moving = Arrays.copyOf(moving, n);
+        eatsPlants = Arrays.copyOf(eatsPlants, n);
+        patrolOrigins = Arrays.copyOf(patrolOrigins, n);
+        patrolRanges = Arrays.copyOf(patrolRanges, n);
+        patrolForward = Arrays.copyOf(patrolForward, n);
+    }
+}
@@ -4,32 +4,58 @@ import game.evo.config.EntityConfig;
 import game.evo.config.LevelConfig;
 import game.evo.config.BiomeRuleConfig;
 import game.evo.config.SpawnableConfig;
+import game.evo.components.CollisionComponent;
+import game.evo.components.NpcComponent;
+import game.evo.components.PlayerControlledComponent;
+import game.evo.components.PositionComponent;
+import game.evo.components.SpawnedByComponent;
+import game.evo.ecs.Entity;
 import game.evo.ecs.World;
 import game.evo.world.EntityFactory;
 import game.evo.world.GameMap;
+import game.evo.world.RegionLabels;
 import game.evo.world.TileType;
-import game.evo.utils.GridPosition;
 
 import java.util.*;
+import java.util.function.IntPredicate;
 
 /**
  * A system responsible for populating the game world with entities
  * at the start of a level, based on procedural population rules.
- * This version uses a two-pass approach to enforce total entity counts.
+ *
+ * Population runs in two phases. First the spawns of every biome are planned in parallel:
+ * rules of the same biome draw from the same tile pool, so the biome is the unit of work,
+ * and each biome draws positions and entity seeds from its own SplittableRandom substream
+ * split from proceduralSeed in a fixed order. Then the plans are committed to the World on
+ * the calling thread, in rule order. The resulting world is therefore the same for a given
+ * seed no matter how many threads planned it.
+ *
+ * Static obstacles (spawnables whose entities get a collider and never move, like rocks and
+ * trees; see EntityFactory.isStaticObstacle) are planned and committed first. The walkable
+ * regions are then labeled again with their tiles blocked, and food and NPCs are planned
+ * only on tiles the player can still walk to, so scenery that walls off a pocket of the map
+ * does not leave anything stranded in it.
  */
 public class PopulationSystem extends GameSystem {
 
+    // Candidates drawn per entity before a spaced spawnable gives up (k in Bridson's algorithm)
+    private static final int SPACED_ATTEMPTS_PER_SPAWN = 30;
+
     private final GameMap gameMap;
     private final EntityFactory entityFactory;
     private final LevelConfig levelConfig;
-    private final Random random;
+    private final Map<String, Integer> spawnCounts = new LinkedHashMap<>(); // Entities created per spawnable type
+
+    /**
+     * The planned spawns of one spawnable: packed tile indices and the seed of each entity.
+     */
+    private record SpawnBatch(int spawnableIndex, SpawnableConfig spawnable, int[] tiles, long[] seeds) {}
 
     public PopulationSystem(World world, GameMap gameMap, EntityFactory entityFactory, LevelConfig levelConfig) {
         super(world);
         this.gameMap = gameMap;
         this.entityFactory = entityFactory;
         this.levelConfig = levelConfig;
-        this.random = new Random(levelConfig.proceduralSeed);
     }
 
     /**
@@ -37,82 +63,376 @@ public class PopulationSystem extends GameSystem {
      */
     @Override
     public void update() {
-        if (levelConfig.biomeRules == null || levelConfig.biomeRules.isEmpty()) {
+        List<BiomeRuleConfig> rules = levelConfig.biomeRules;
+        if (rules == null || rules.isEmpty()) {
             System.out.println("[INFO PopulationSystem] No population rules found for this level.");
             return;
         }
 
-        // Step 1: Map all valid spawn locations by biome type.
-        Map<TileType, List<GridPosition>> validTilesByBiome = mapAllBiomeLocations();
+        // Step 1: Map all valid spawn locations by biome type, in the player's region only.
+        TilePool[] validTilesByBiome = mapAllBiomeLocations(gameMap.getRegions(), findPlayerRegion(world, gameMap.getRegions()));
+
+        // Step 2: Group the rules by biome, keeping rule order within each biome.
+        Map<TileType, List<Integer>> rulesByBiome = new EnumMap<>(TileType.class);
+        for (int i = 0; i < rules.size(); i++) {
+            try {
+                rulesByBiome.computeIfAbsent(TileType.valueOf(rules.get(i).biome), k -> new ArrayList<>()).add(i);
+            } catch (IllegalArgumentException | NullPointerException e) {
+                System.err.println("[ERROR PopulationSystem] Biome '" + rules.get(i).biome + "' defined in JSON does not match any TileType enum.");
+            }
+        }
 
-        // Step 2: Populate the world based on the rules.
+        // Step 3: Split one random substream per TileType, in ordinal order, so each biome
+        // always gets the same one.
         System.out.println("[INFO PopulationSystem] Populating world based on biome density rules...");
+        SplittableRandom root = new SplittableRandom(levelConfig.proceduralSeed);
+        SplittableRandom[] streams = new SplittableRandom[TileType.VALUES.length];
+        for (int b = 0; b < streams.length; b++) {
+            streams[b] = root.split();
+        }
 
-        for (BiomeRuleConfig biomeRule : levelConfig.biomeRules) {
-            try {
-                TileType biomeType = TileType.valueOf(biomeRule.biome);
-                List<GridPosition> spawnableLocations = validTilesByBiome.get(biomeType);
+        // Step 4: Plan and commit the static obstacles.
+        commit(planBiomes(rules, rulesByBiome, validTilesByBiome, streams, true));
 
-                if (spawnableLocations == null || spawnableLocations.isEmpty()) {
-                    continue; // No tiles of this biome exist on the map.
+        // Step 5: Label the regions again with the obstacles in place, and keep only the pool
+        // tiles the player can still reach.
+        RegionLabels reachable = labelReachableRegions(world, gameMap);
+        int region = findPlayerRegion(world, reachable);
+        if (region != RegionLabels.NO_REGION && reachable != gameMap.getRegions()) {
+            int width = gameMap.getWidthInTiles();
+            for (TilePool pool : validTilesByBiome) {
+                if (pool != null) {
+                    pool.retain(tile -> reachable.getRegion(tile / width, tile % width) == region);
                 }
+            }
+        }
 
-                // Shuffle the list of locations to ensure random placement.
-                Collections.shuffle(spawnableLocations, random);
+        // Step 6: Plan and commit everything else (food, NPCs, walkable scenery).
+        commit(planBiomes(rules, rulesByBiome, validTilesByBiome, streams, false));
+        System.out.println("[INFO PopulationSystem] World population complete.");
+    }
 
-                for (SpawnableConfig spawnable : biomeRule.spawnables) {
-                    // Calculate the total number of entities to create for this type.
-                    int totalToSpawn = (int) (spawnableLocations.size() * spawnable.density);
+    /**
+     * Plans the obstacle spawnables, or all the others, of every rule, one biome per task.
+     * @return The batches of each rule, indexed like the rules.
+     */
+    private List<List<SpawnBatch>> planBiomes(List<BiomeRuleConfig> rules, Map<TileType, List<Integer>> rulesByBiome,
+                                              TilePool[] pools, SplittableRandom[] streams, boolean obstacles) {
+        List<List<SpawnBatch>> plans = new ArrayList<>(Collections.nCopies(rules.size(), null));
+        rulesByBiome.entrySet().parallelStream().forEach(entry -> {
+            int biome = entry.getKey().ordinal();
+            for (int ruleIndex : entry.getValue()) {
+                plans.set(ruleIndex, planRule(rules.get(ruleIndex), pools[biome], streams[biome], obstacles));
+            }
+        });
+        return plans;
+    }
 
-                    if (World.MODO_VERBOSE_WORLD) {
-                        System.out.println("  > Rule for Biome '" + biomeRule.biome + "': Spawning " + totalToSpawn + 
-                                           " of type '" + spawnable.type + "' in an area of " + spawnableLocations.size() + " tiles.");
-                    }
-                    
-                    // Create the entities at random locations from the valid list.
-                    for (int i = 0; i < totalToSpawn; i++) {
-                        if (spawnableLocations.isEmpty()) {
-                            System.err.println("[WARN PopulationSystem] Ran out of valid spawn locations for biome " + biomeRule.biome);
-                            break; // No more available spots.
-                        }
-                        
-                        // Take the last position from the shuffled list and remove it to prevent reuse.
-                        GridPosition spawnPos = spawnableLocations.remove(spawnableLocations.size() - 1);
-                        
-                        EntityConfig entityConfig = new EntityConfig();
-                        entityConfig.type = spawnable.type;
-                        entityConfig.row = spawnPos.row(); // Use the record's accessor method
-                        entityConfig.column = spawnPos.column();
-                        entityConfig.properties = spawnable.properties;
-                        
-                        entityFactory.createGameEntity(entityConfig);
+    /**
+     * Creates the planned entities in rule order, on this thread. Every entity is tagged with
+     * its rule and spawnable so the RespawnSystem can replace it later.
+     */
+    private void commit(List<List<SpawnBatch>> plans) {
+        int width = gameMap.getWidthInTiles();
+        for (int ruleIndex = 0; ruleIndex < plans.size(); ruleIndex++) {
+            List<SpawnBatch> plan = plans.get(ruleIndex);
+            if (plan == null) continue;
+            for (SpawnBatch batch : plan) {
+                for (int i = 0; i < batch.tiles().length; i++) {
+                    EntityConfig entityConfig = entityConfigFor(batch.spawnable(),
+                            batch.tiles()[i] / width, batch.tiles()[i] % width, batch.seeds()[i]);
+
+                    Entity entity = entityFactory.createGameEntity(entityConfig);
+                    if (entity != null) {
+                        world.addComponent(entity, new SpawnedByComponent(ruleIndex, batch.spawnableIndex()));
+                        spawnCounts.merge(batch.spawnable().type, 1, Integer::sum);
                     }
                 }
-            } catch (IllegalArgumentException e) {
-                System.err.println("[ERROR PopulationSystem] Biome '" + biomeRule.biome + "' defined in JSON does not match any TileType enum.");
             }
         }
-        System.out.println("[INFO PopulationSystem] World population complete.");
+    }
+
+    /**
+     * Draws the positions and seeds of one rule's entities. Touches only the rule's biome pool
+     * and random stream, so rules of different biomes can be planned concurrently.
+     * @param obstacles Plan only the static obstacle spawnables if true, only the others if false.
+     * @return One batch per planned spawnable, in order; empty if the biome has no tiles.
+     */
+    private List<SpawnBatch> planRule(BiomeRuleConfig biomeRule, TilePool spawnableLocations, SplittableRandom random, boolean obstacles) {
+        List<SpawnBatch> batches = new ArrayList<>();
+        if (spawnableLocations == null || spawnableLocations.isEmpty() || biomeRule.spawnables == null) {
+            return batches; // No tiles of this biome exist on the map.
+        }
+
+        for (int spawnableIndex = 0; spawnableIndex < biomeRule.spawnables.size(); spawnableIndex++) {
+            SpawnableConfig spawnable = biomeRule.spawnables.get(spawnableIndex);
+            if (isStaticObstacle(spawnable) != obstacles) {
+                continue;
+            }
+            // Calculate the total number of entities to create for this type.
+            int totalToSpawn = Math.max(0, (int) (spawnableLocations.size() * spawnable.density));
+
+            if (World.MODO_VERBOSE_WORLD) {
+                System.out.println("  > Rule for Biome '" + biomeRule.biome + "': Spawning " + totalToSpawn +
+                                   " of type '" + spawnable.type + "' in an area of " + spawnableLocations.size() + " tiles.");
+            }
+
+            if (totalToSpawn > spawnableLocations.size()) {
+                System.err.println("[WARN PopulationSystem] Ran out of valid spawn locations for biome " + biomeRule.biome);
+                totalToSpawn = spawnableLocations.size(); // No more available spots.
+            }
+
+            int[] tiles = spawnable.minSpacing > 0
+                    ? drawSpaced(spawnableLocations, totalToSpawn, spawnable.minSpacing, random)
+                    : drawUniform(spawnableLocations, totalToSpawn, random);
+            long[] seeds = new long[tiles.length];
+            for (int i = 0; i < seeds.length; i++) {
+                seeds[i] = random.nextLong();
+            }
+            batches.add(new SpawnBatch(spawnableIndex, spawnable, tiles, seeds));
+        }
+        return batches;
     }
     
+    private static int[] drawUniform(TilePool pool, int count, SplittableRandom random) {
+        int[] tiles = new int[count];
+        for (int i = 0; i < count; i++) {
+            // Draw a random remaining position; it is removed from the pool to prevent reuse.
+            tiles[i] = pool.draw(random);
+        }
+        return tiles;
+    }
+
+    /**
+     * Poisson-disc placement by dart throwing: pool tiles are drawn in random order and a tile is
+     * accepted only if no accepted tile is closer than minSpacing. A background grid with cells of
+     * minSpacing / sqrt(2) holds at most one accepted tile per cell (as in Bridson's algorithm), so
+     * each check looks at a fixed 5x5 block of cells. At most SPACED_ATTEMPTS_PER_SPAWN candidates
+     * are drawn per requested entity, so the draws are O(count) no matter how large the biome is;
+     * only the zeroed grid, about 2 * map tiles / minSpacing^2 ints, depends on the map size.
+     * Rejected tiles go back to the pool for the following spawnables.
+     * @return The accepted tiles; fewer than count if the biome cannot fit that many, or the
+     * attempts ran out first.
+     */
+    private int[] drawSpaced(TilePool pool, int count, double minSpacing, SplittableRandom random) {
+        int width = gameMap.getWidthInTiles();
+        double cellSize = Math.max(1.0, minSpacing / Math.sqrt(2));
+        int reach = (int) Math.ceil(minSpacing / cellSize); // Cells to look at on each side
+        int gridWidth = (int) Math.ceil(width / cellSize);
+        int gridHeight = (int) Math.ceil(gameMap.getHeightInTiles() / cellSize);
+        int[] grid = new int[gridWidth * gridHeight]; // Accepted tile + 1 per cell, 0 if empty
+        double minSquared = minSpacing * minSpacing;
+
+        int[] accepted = new int[count];
+        int acceptedCount = 0;
+        int[] rejected = new int[16];
+        int rejectedCount = 0;
+        long attemptsLeft = (long) count * SPACED_ATTEMPTS_PER_SPAWN;
+        while (acceptedCount < count && !pool.isEmpty() && attemptsLeft-- > 0) {
+            int tile = pool.draw(random);
+            int row = tile / width;
+            int column = tile % width;
+            int cellRow = (int) (row / cellSize);
+            int cellColumn = (int) (column / cellSize);
+
+            boolean free = true;
+            for (int gr = Math.max(0, cellRow - reach); free && gr <= Math.min(gridHeight - 1, cellRow + reach); gr++) {
+                for (int gc = Math.max(0, cellColumn - reach); gc <= Math.min(gridWidth - 1, cellColumn + reach); gc++) {
+                    int other = grid[gr * gridWidth + gc] - 1;
+                    if (other < 0) continue;
+                    int dr = other / width - row;
+                    int dc = other % width - column;
+                    if (dr * dr + dc * dc < minSquared) {
+                        free = false;
+                        break;
+                    }
+                }
+            }
+
+            if (free) {
+                grid[cellRow * gridWidth + cellColumn] = tile + 1;
+                accepted[acceptedCount++] = tile;
+            } else {
+                if (rejectedCount == rejected.length) {
+                    rejected = Arrays.copyOf(rejected, rejectedCount * 2);
+                }
+                rejected[rejectedCount++] = tile;
+            }
+        }
+        for (int i = 0; i < rejectedCount; i++) {
+            pool.release(rejected[i]);
+        }
+        return acceptedCount == count ? accepted : Arrays.copyOf(accepted, acceptedCount);
+    }
+
+    /**
+     * The EntityFactory config of one spawned entity.
+     */
+    static EntityConfig entityConfigFor(SpawnableConfig spawnable, int row, int column, long seed) {
+        EntityConfig entityConfig = new EntityConfig();
+        entityConfig.type = spawnable.type;
+        entityConfig.row = row;
+        entityConfig.column = column;
+        entityConfig.properties = spawnable.properties;
+        entityConfig.seed = seed;
+        return entityConfig;
+    }
+
+    /**
+     * @return How many entities of each spawnable type the last update() created: the static
+     * obstacles first, then the others, each in rule order.
+     */
+    public Map<String, Integer> getSpawnCounts() {
+        return Collections.unmodifiableMap(spawnCounts);
+    }
+
     /**
-     * Scans the entire map once and categorizes every tile by its biome type.
-     * @return A map where the key is the TileType and the value is a list of all
-     * (row, col) positions belonging to that biome.
+     * @return true if the spawnable's entities block their tile for good, so they are placed
+     * before everything else and cut the walkable regions.
      */
-    private Map<TileType, List<GridPosition>> mapAllBiomeLocations() {
-        Map<TileType, List<GridPosition>> mappedLocations = new EnumMap<>(TileType.class);
-        TileType[][] logicalGrid = gameMap.getLogicalGrid();
+    static boolean isStaticObstacle(SpawnableConfig spawnable) {
+        return EntityFactory.isStaticObstacle(spawnable.type, spawnable.properties);
+    }
 
+    /**
+     * Finds the walkable region the player stands in, so nothing is spawned where the player
+     * can never get to (islands cut off by non-walkable tiles).
+     * @param regions The terrain regions (GameMap.getRegions) or those of labelReachableRegions.
+     * @return The player's region id, or RegionLabels.NO_REGION to allow the whole map
+     * (no player yet, or the player is not on a walkable tile).
+     */
+    static int findPlayerRegion(World world, RegionLabels regions) {
+        PositionComponent position = findPlayerPosition(world);
+        if (position == null || regions == null) {
+            return RegionLabels.NO_REGION;
+        }
+        return regions.getRegion(position.row, position.column);
+    }
+
+    private static PositionComponent findPlayerPosition(World world) {
+        Set<Entity> players = world.getEntitiesWithComponent(PlayerControlledComponent.class);
+        return players.isEmpty() ? null : world.getComponent(players.iterator().next(), PositionComponent.class);
+    }
+
+    /**
+     * Labels the walkable regions with the static obstacles now in the world (entities with a
+     * collider that are neither NPCs nor the player) blocking their tiles. GameMap.getRegions
+     * only knows the terrain, and the .evomap cache keeps only those labels, since the
+     * obstacles depend on the population rules. Both PopulationSystem and RespawnSystem use
+     * this, so they agree on what the player can reach, also for a world loaded from a save.
+     * @return The terrain regions themselves if no obstacle stands on a walkable tile.
+     */
+    static RegionLabels labelReachableRegions(World world, GameMap gameMap) {
+        int[] blocked = new int[64];
+        int count = 0;
+        for (Entity entity : world.getEntitiesWithComponent(CollisionComponent.class)) {
+            if (world.hasComponent(entity, NpcComponent.class) || world.hasComponent(entity, PlayerControlledComponent.class)) {
+                continue; // Moves, so it does not cut the map
+            }
+            PositionComponent position = world.getComponent(entity, PositionComponent.class);
+            if (position == null || !gameMap.getLogicalTileType(position.row, position.column).isWalkable) {
+                continue; // Off the map, or on a tile the terrain already blocks
+            }
+            if (count == blocked.length) {
+                blocked = Arrays.copyOf(blocked, count * 2);
+            }
+            blocked[count++] = gameMap.indexOf(position.row, position.column);
+        }
+        return count == 0 ? gameMap.getRegions() : gameMap.labelRegions(Arrays.copyOf(blocked, count));
+    }
+
+    /**
+     * Scans the entire map once and categorizes every tile by its biome type. The player's own
+     * tile is left out, so nothing is spawned on top of the player.
+     * @param region Only tiles in this region are mapped; RegionLabels.NO_REGION maps every tile.
+     * @return The pool of (row * width + column) tile indices of each biome, indexed by
+     * TileType ordinal; null for biomes with no tiles.
+     */
+    private TilePool[] mapAllBiomeLocations(RegionLabels regions, int region) {
+        TilePool[] mappedLocations = new TilePool[TileType.VALUES.length];
+        int width = gameMap.getWidthInTiles();
+        int playerTile = playerTile(world, width);
         for (int r = 0; r < gameMap.getHeightInTiles(); r++) {
-            for (int c = 0; c < gameMap.getWidthInTiles(); c++) {
-                TileType currentType = logicalGrid[r][c];
-                // Add a new list for this biome type if it's the first time we see it.
-                mappedLocations.computeIfAbsent(currentType, k -> new ArrayList<>());
-                // Add the current coordinate to that biome's list.
-                mappedLocations.get(currentType).add(new GridPosition(r, c));
+            int index = gameMap.indexOf(r, 0);
+            for (int c = 0; c < width; c++) {
+                if (region != RegionLabels.NO_REGION && regions.getRegion(r, c) != region) {
+                    continue; // Unreachable from the player
+                }
+                if (r * width + c == playerTile) {
+                    continue;
+                }
+                int biome = gameMap.getTileAt(index + c).ordinal();
+                // Add a new pool for this biome type if it's the first time we see it.
+                if (mappedLocations[biome] == null) {
+                    mappedLocations[biome] = new TilePool();
+                }
+                mappedLocations[biome].add(r * width + c);
             }
         }
         return mappedLocations;
     }
+
+    /**
+     * @return The player's tile as row * width + column, or -1 without a player.
+     */
+    static int playerTile(World world, int width) {
+        PositionComponent position = findPlayerPosition(world);
+        return position == null ? -1 : position.row * width + position.column;
+    }
+
+    /**
+     * The not-yet-used tiles of one biome, as packed tile indices. Positions are drawn with a
+     * partial Fisher-Yates shuffle: each draw swaps a random remaining tile to the end of the
+     * remaining range and shrinks it, so only the drawn positions are touched and the result
+     * depends only on the random stream (i.e. on proceduralSeed).
+     */
+    private static final class TilePool {
+        private int[] tiles = new int[64];
+        private int remaining;
+
+        void add(int tile) {
+            if (remaining == tiles.length) {
+                tiles = Arrays.copyOf(tiles, tiles.length * 2);
+            }
+            tiles[remaining++] = tile;
+        }
+
+        int size() {
+            return remaining;
+        }
+
+        boolean isEmpty() {
+            return remaining == 0;
+        }
+
+        /**
+         * Returns a drawn tile to the pool. Slots past the remaining range only hold drawn
+         * tiles, so the released tile can simply take the first of them.
+         */
+        void release(int tile) {
+            tiles[remaining++] = tile;
+        }
+
+        /**
+         * Drops the remaining tiles that fail the test, keeping the others in order.
+         */
+        void retain(IntPredicate keep) {
+            int kept = 0;
+            for (int i = 0; i < remaining; i++) {
+                if (keep.test(tiles[i])) {
+                    tiles[kept++] = tiles[i];
+                }
+            }
+            remaining = kept;
+        }
+
+        int draw(SplittableRandom random) {
+            int last = --remaining;
+            int chosen = random.nextInt(last + 1);
+            int tile = tiles[chosen];
+            tiles[chosen] = tiles[last];
+            tiles[last] = tile;
+            return tile;
+        }
+    }
 }
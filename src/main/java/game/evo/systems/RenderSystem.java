@@ -8,6 +8,7 @@ import game.evo.config.LevelConfig;
 import game.evo.utils.AssetManager;
 import game.evo.utils.GameConstants;
 import game.evo.utils.SpriteGenerator;
+import game.evo.view.SpriteAtlas;
 
 import java.awt.AlphaComposite;
 import java.awt.Color;
@@ -17,8 +18,8 @@ import java.awt.Graphics2D;
 import java.awt.Image;
 import java.awt.RenderingHints;
 import java.awt.geom.AffineTransform;
-import java.awt.geom.RoundRectangle2D;
 import java.awt.image.BufferedImage;
+import java.awt.geom.RoundRectangle2D;
 import java.util.*;
 
 /**
@@ -28,15 +29,59 @@ import java.util.*;
  */
 public class RenderSystem extends GameSystem {
 
-    private final SpriteGenerator spriteGenerator;
+    private final SpriteAtlas spriteAtlas;
 
     // --- Variáveis de Estado para Renderização ---
     private Main.LoadingPhase currentPhase = Main.LoadingPhase.COMPLETE; // Inicia em um estado seguro
     private LevelConfig levelConfig;
+    private volatile String frameStats; // Set by the active renderer, shown in the debug overlay
+
+    // --- HUD e notificações em cache ---
+    // The HUD contents (portrait, bars, texts) are drawn into hudLayer and only redrawn when a
+    // value they show changes (hudShown), so a frame fills the panel and copies the layer. Each
+    // notification message is laid out once into an image.
+    private static final int HUD_HEIGHT = 95;
+    private static final java.awt.BasicStroke HUD_BORDER_STROKE = new java.awt.BasicStroke(2);
+    private static final int NOTIFICATION_CACHE_SIZE = 16;
+    private static final int FADE_STEPS = 32;
+    private static final AlphaComposite[] FADE_COMPOSITES = new AlphaComposite[FADE_STEPS + 1];
+    private static final Font HUD_INFO_FONT = new Font("Arial", Font.BOLD, 14);
+    private static final Font HUD_BAR_FONT = new Font("Arial", Font.BOLD, 12);
+    private static final Font NOTIFICATION_FONT = new Font("Arial", Font.BOLD, 16);
+    private static final Color HUD_BACKGROUND = new Color(15, 20, 30, 210);
+    private static final Color HUD_BORDER = new Color(80, 150, 255, 200);
+    private static final Color PORTRAIT_BACKGROUND = new Color(0, 0, 0, 100);
+    private static final Color PORTRAIT_BORDER = new Color(80, 150, 255, 150);
+    private static final Color BAR_BACKGROUND = new Color(50, 50, 50);
+    private static final Color HP_BAR_COLOR = Color.GREEN.darker();
+    private static final Color EVO_BAR_COLOR = Color.MAGENTA.darker();
+    private static final Color NOTIFICATION_BACKGROUND = new Color(0, 0, 0, 180);
+
+    static {
+        for (int step = 0; step <= FADE_STEPS; step++) {
+            FADE_COMPOSITES[step] = AlphaComposite.getInstance(AlphaComposite.SRC_OVER, step / (float) FADE_STEPS);
+        }
+    }
+
+    private record NotificationLayout(NotificationComponent.NotificationType type, BufferedImage image) {}
+
+    private final HudValues hudShown = new HudValues();
+    private BufferedImage hudLayer;
+    private boolean hudPortraitDrawn; // false while the portrait sprite is still being baked
+    private Entity hudPlayer;
+    private int hudPlayerVersion = -1;
+    private Entity notificationEntity;
+    private int notificationVersion = -1;
+    private final Map<String, NotificationLayout> notificationLayouts = new LinkedHashMap<>(NOTIFICATION_CACHE_SIZE, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, NotificationLayout> eldest) {
+            return size() > NOTIFICATION_CACHE_SIZE;
+        }
+    };
 
     public RenderSystem(World world) {
         super(world);
-        this.spriteGenerator = new SpriteGenerator();
+        this.spriteAtlas = SpriteAtlas.getInstance();
     }
 
     /**
@@ -63,6 +108,10 @@ public class RenderSystem extends GameSystem {
         return this.levelConfig;
     } // Getter para o Main usar
 
+    public void setFrameStats(String frameStats) {
+        this.frameStats = frameStats;
+    }
+
     /**
      * Ponto de entrada principal da renderização, chamado a cada frame pelo
      * GamePanel. Ele delega o trabalho para o método de desenho apropriado com
@@ -176,14 +225,13 @@ public class RenderSystem extends GameSystem {
 //            System.out.println("[DEBUG HUD] Iniciando drawHUD...");
 //        }
 
-        Set<Entity> playerEntities = world.getEntitiesWithComponent(PlayerControlledComponent.class);
-        if (playerEntities.isEmpty()) {
+        Entity player = findHudPlayer();
+        if (player == null) {
 //            if (GameConstants.DEBUG_MODE_ON) {
 //                System.out.println("[DEBUG HUD] ERRO: Nenhuma entidade de jogador encontrada. Saindo do drawHUD.");
 //            }
             return;
         }
-        Entity player = playerEntities.iterator().next();
 
         // Pega todos os componentes necessários do jogador e verifica um por um
         StatusComponent status = world.getComponent(player, StatusComponent.class);
@@ -236,48 +284,107 @@ public class RenderSystem extends GameSystem {
 //            System.out.println("[DEBUG HUD] Todos os componentes encontrados. Desenhando a HUD...");
 //        }
 
-        int hudHeight = 95;
         // CORRIGIDO: Usa a screenHeight recebida como parâmetro
-        int hudY = screenHeight - hudHeight; 
+        int hudY = screenHeight - HUD_HEIGHT;
 
-        // --- Desenha o Painel de Fundo ---
-        g.setColor(new Color(15, 20, 30, 210));
-        g.fillRect(0, hudY, screenWidth, hudHeight);
-        g.setColor(new Color(80, 150, 255, 200));
-        g.setStroke(new java.awt.BasicStroke(2));
+        // --- Desenha o Painel de Fundo --- (direto: preencher é mais barato que misturar uma cópia)
+        g.setColor(HUD_BACKGROUND);
+        g.fillRect(0, hudY, screenWidth, HUD_HEIGHT);
+        g.setColor(HUD_BORDER);
+        g.setStroke(HUD_BORDER_STROKE);
         g.drawLine(0, hudY, screenWidth, hudY);
 
+        int handle = getSpriteHandle(psc, world.hasComponent(player, DirectionComponent.class));
+        boolean valuesChanged = hudShown.update(status, ecology, size, psc, handle);
+        if (valuesChanged || hudLayer == null || !hudPortraitDrawn) {
+            redrawHudLayer(player, status, ecology, size, psc);
+        }
+        g.drawImage(hudLayer, 0, hudY, null);
+    }
+
+    /**
+     * The player entity, looked up again only when some entity gains or loses the
+     * PlayerControlledComponent (getEntitiesWithComponent copies a set on every call).
+     */
+    private Entity findHudPlayer() {
+        int version = world.getComponentVersion(PlayerControlledComponent.class);
+        if (version != hudPlayerVersion || (hudPlayer != null && !world.hasComponent(hudPlayer, PlayerControlledComponent.class))) {
+            Set<Entity> playerEntities = world.getEntitiesWithComponent(PlayerControlledComponent.class);
+            hudPlayer = playerEntities.isEmpty() ? null : playerEntities.iterator().next();
+            hudPlayerVersion = version;
+        }
+        return hudPlayer;
+    }
+
+    /**
+     * Desenha o conteúdo do HUD (retrato, barras e textos) no layer em cache, sobre fundo transparente.
+     */
+    private void redrawHudLayer(Entity player, StatusComponent status, EcologyComponent ecology, SizeComponent size,
+                                ProceduralSpriteComponent psc) {
+        int hudY = 0;
+
         // --- LADO ESQUERDO: Retrato da Criatura ---
         int portraitBoxSize = 80;
         int portraitX = 10;
-        int portraitY = hudY + (hudHeight - portraitBoxSize) / 2;
+        int portraitY = hudY + (HUD_HEIGHT - portraitBoxSize) / 2;
+
+        // --- LADO DIREITO: Status e Características ---
+        int statsX = portraitX + portraitBoxSize + 20;
+        int statsY = hudY + 15;
+        int barWidth = 200;
+        int infoX = statsX + barWidth + 30;
+        String[] infoLines = {
+            "Species: " + psc.bodyType.name(),
+            "Diet: " + ecology.diet.name(),
+            "Size: " + size.size, // Supondo que o campo seja sizeValue
+            "ATK / DEF: " + status.attack + " / " + status.defense
+        };
+
+        // The layer only grows, so it is reallocated at most a few times
+        int infoWidth = 0;
+        if (hudLayer != null) {
+            Graphics2D measure = hudLayer.createGraphics();
+            FontMetrics metrics = measure.getFontMetrics(HUD_INFO_FONT);
+            for (String line : infoLines) {
+                infoWidth = Math.max(infoWidth, metrics.stringWidth(line));
+            }
+            measure.dispose();
+        }
+        int layerWidth = infoX + Math.max(infoWidth, 300) + 10;
+        if (hudLayer == null || hudLayer.getWidth() < layerWidth) {
+            hudLayer = new BufferedImage(layerWidth, HUD_HEIGHT, BufferedImage.TYPE_INT_ARGB_PRE);
+        }
 
-        g.setColor(new Color(0, 0, 0, 100));
+        Graphics2D g = hudLayer.createGraphics();
+        g.setComposite(AlphaComposite.Clear);
+        g.fillRect(0, 0, hudLayer.getWidth(), hudLayer.getHeight());
+        g.setComposite(AlphaComposite.SrcOver);
+        g.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+        g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+
+        g.setColor(PORTRAIT_BACKGROUND);
         g.fill(new RoundRectangle2D.Double(portraitX, portraitY, portraitBoxSize, portraitBoxSize, 15, 15));
 
         Image sprite = getImageForEntity(player);
         if (sprite != null) {
             g.drawImage(sprite, portraitX + 5, portraitY + 5, portraitBoxSize - 10, portraitBoxSize - 10, null);
         }
+        // A procedural portrait may still be baking (drawn on a later frame); other images are final.
+        hudPortraitDrawn = sprite != null || world.getComponent(player, ProceduralSpriteComponent.class) == null;
 
-        g.setColor(new Color(80, 150, 255, 150));
+        g.setColor(PORTRAIT_BORDER);
+        g.setStroke(HUD_BORDER_STROKE);
         g.draw(new RoundRectangle2D.Double(portraitX, portraitY, portraitBoxSize, portraitBoxSize, 15, 15));
 
-        // --- LADO DIREITO: Status e Características ---
-        int statsX = portraitX + portraitBoxSize + 20;
-        int statsY = hudY + 15;
-
-        int barWidth = 200;
-        drawStatBar(g, statsX, statsY, barWidth, "HP", status.health, status.maxHealth, Color.GREEN.darker());
-        drawStatBar(g, statsX, statsY + 22, barWidth, "EVO", status.evolutionPoints, GameConstants.EVOLUTION_POINTS_FOR_PORTAL, Color.MAGENTA.darker());
+        drawStatBar(g, statsX, statsY, barWidth, "HP", status.health, status.maxHealth, HP_BAR_COLOR);
+        drawStatBar(g, statsX, statsY + 22, barWidth, "EVO", status.evolutionPoints, GameConstants.EVOLUTION_POINTS_FOR_PORTAL, EVO_BAR_COLOR);
 
-        int infoX = statsX + barWidth + 30;
-        g.setFont(new Font("Arial", Font.BOLD, 14));
+        g.setFont(HUD_INFO_FONT);
         g.setColor(Color.LIGHT_GRAY);
-        g.drawString("Species: " + psc.bodyType.name(), infoX, statsY + 5);
-        g.drawString("Diet: " + ecology.diet.name(), infoX, statsY + 25);
-        g.drawString("Size: " + size.size, infoX, statsY + 45); // Supondo que o campo seja sizeValue
-        g.drawString("ATK / DEF: " + status.attack + " / " + status.defense, infoX, statsY + 65);
+        for (int i = 0; i < infoLines.length; i++) {
+            g.drawString(infoLines[i], infoX, statsY + 5 + i * 20);
+        }
+        g.dispose();
     }
 
     /**
@@ -287,7 +394,7 @@ public class RenderSystem extends GameSystem {
         int height = 18;
 
         // Fundo da barra
-        g.setColor(new Color(50, 50, 50));
+        g.setColor(BAR_BACKGROUND);
         g.fill(new RoundRectangle2D.Double(x, y, width, height, 8, 8));
 
         // Preenchimento da barra
@@ -297,7 +404,7 @@ public class RenderSystem extends GameSystem {
         g.fill(new RoundRectangle2D.Double(x, y, width * percentage, height, 8, 8));
 
         // Texto (label e valor)
-        g.setFont(new Font("Arial", Font.BOLD, 12));
+        g.setFont(HUD_BAR_FONT);
         g.setColor(Color.WHITE);
         g.drawString(label, x + 5, y + 13);
         String valueText = currentValue + "/" + maxValue;
@@ -306,16 +413,50 @@ public class RenderSystem extends GameSystem {
     }
 
     /**
-     * Desenha notificações ativas com fundo, ícone e animação de fade.
+     * The values the cached HUD layer was drawn with.
+     */
+    private static final class HudValues {
+        private int health, maxHealth, evolutionPoints, attack, defense, size, spriteHandle;
+        private ProceduralSpriteComponent.BodyType bodyType;
+        private EcologyComponent.DietaryType diet;
+
+        /**
+         * Stores the current values.
+         * @return true if any of them differs from the stored ones.
+         */
+        boolean update(StatusComponent status, EcologyComponent ecology, SizeComponent sizeComponent,
+                       ProceduralSpriteComponent psc, int handle) {
+            boolean changed = health != status.health || maxHealth != status.maxHealth
+                    || evolutionPoints != status.evolutionPoints || attack != status.attack
+                    || defense != status.defense || size != sizeComponent.size || spriteHandle != handle
+                    || bodyType != psc.bodyType || diet != ecology.diet;
+            if (changed) {
+                health = status.health;
+                maxHealth = status.maxHealth;
+                evolutionPoints = status.evolutionPoints;
+                attack = status.attack;
+                defense = status.defense;
+                size = sizeComponent.size;
+                spriteHandle = handle;
+                bodyType = psc.bodyType;
+                diet = ecology.diet;
+            }
+            return changed;
+        }
+    }
+
+    /**
+     * Desenha notificações ativas com fundo, ícone e animação de fade. O painel de cada mensagem
+     * é montado uma vez (getNotificationLayout); a cada frame só muda a opacidade.
      */
     private void drawNotifications(Graphics2D g, int screenWidth, float deltaTime) {
-        Set<Entity> entities = world.getEntitiesWithComponent(NotificationComponent.class);
-        if (entities.isEmpty()) {
+        Entity entity = findNotificationEntity();
+        if (entity == null) {
             return;
         }
 
-        NotificationComponent notification = world.getComponent(entities.iterator().next(), NotificationComponent.class);
-        if (notification == null) {
+        NotificationComponent notification = world.getComponent(entity, NotificationComponent.class);
+        if (notification == null || notification.message == null) {
             return;
         }
 
@@ -331,32 +472,63 @@ public class RenderSystem extends GameSystem {
 
         alpha = Math.max(0, Math.min(1, alpha));
 
-        g.setComposite(AlphaComposite.getInstance(AlphaComposite.SRC_OVER, alpha));
+        BufferedImage panel = getNotificationLayout(g, notification).image();
+        g.setComposite(FADE_COMPOSITES[Math.round(alpha * FADE_STEPS)]);
+        g.drawImage(panel, (screenWidth - panel.getWidth()) / 2, 30, null);
+        g.setComposite(AlphaComposite.SrcOver);
+    }
+
+    /**
+     * The entity showing a notification, looked up again only when notifications are added or removed.
+     */
+    private Entity findNotificationEntity() {
+        int version = world.getComponentVersion(NotificationComponent.class);
+        if (version != notificationVersion) {
+            Set<Entity> entities = world.getEntitiesWithComponent(NotificationComponent.class);
+            notificationEntity = entities.isEmpty() ? null : entities.iterator().next();
+            notificationVersion = version;
+        }
+        return notificationEntity;
+    }
+
+    /**
+     * The panel of a notification (background, icon and text) at full opacity, laid out and drawn
+     * the first time its message is shown.
+     */
+    private NotificationLayout getNotificationLayout(Graphics2D target, NotificationComponent notification) {
+        NotificationLayout layout = notificationLayouts.get(notification.message);
+        if (layout != null && layout.type() == notification.type) {
+            return layout;
+        }
 
-        Font font = new Font("Arial", Font.BOLD, 16);
-        g.setFont(font);
-        FontMetrics metrics = g.getFontMetrics(font);
+        FontMetrics metrics = target.getFontMetrics(NOTIFICATION_FONT);
         Image icon = getIconForNotification(notification.type);
         int iconWidth = (icon != null) ? icon.getWidth(null) + 10 : 0;
 
         int messageWidth = metrics.stringWidth(notification.message);
         int panelWidth = messageWidth + iconWidth + 30;
         int panelHeight = 40;
-        int panelX = (screenWidth - panelWidth) / 2;
-        int panelY = 30;
 
-        g.setColor(new Color(0, 0, 0, 180));
-        g.fill(new RoundRectangle2D.Double(panelX, panelY, panelWidth, panelHeight, 20, 20));
+        BufferedImage image = new BufferedImage(panelWidth, panelHeight, BufferedImage.TYPE_INT_ARGB_PRE);
+        Graphics2D g = image.createGraphics();
+        g.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+        g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        g.setFont(NOTIFICATION_FONT);
+        g.setColor(NOTIFICATION_BACKGROUND);
+        g.fill(new RoundRectangle2D.Double(0, 0, panelWidth, panelHeight, 20, 20));
 
-        int textY = panelY + (panelHeight - metrics.getHeight()) / 2 + metrics.getAscent();
+        int textY = (panelHeight - metrics.getHeight()) / 2 + metrics.getAscent();
         if (icon != null) {
-            g.drawImage(icon, panelX + 15, panelY + (panelHeight - icon.getHeight(null)) / 2, null);
+            g.drawImage(icon, 15, (panelHeight - icon.getHeight(null)) / 2, null);
         }
 
         g.setColor(Color.WHITE);
-        g.drawString(notification.message, panelX + 15 + iconWidth, textY);
+        g.drawString(notification.message, 15 + iconWidth, textY);
+        g.dispose();
 
-        g.setComposite(AlphaComposite.getInstance(AlphaComposite.SRC_OVER, 1.0f));
+        layout = new NotificationLayout(notification.type, image);
+        notificationLayouts.put(notification.message, layout);
+        return layout;
     }
 
     private Image getIconForNotification(NotificationComponent.NotificationType type) {
@@ -393,6 +565,12 @@ public class RenderSystem extends GameSystem {
             return;
         }
 
+        ProceduralSpriteComponent psc = world.getComponent(entity, ProceduralSpriteComponent.class);
+        if (psc != null) {
+            drawProceduralSprite(g2d, entity, psc, position, cameraX, cameraY);
+            return;
+        }
+
         Image imageToDraw = getImageForEntity(entity);
         if (imageToDraw == null) {
             return;
@@ -408,6 +586,52 @@ public class RenderSystem extends GameSystem {
         }
     }
 
+    /**
+     * Sprites procedurais vêm do SpriteAtlas já rotacionados e com a fase de squash/stretch
+     * aplicada, então desenhar é só copiar um quadro, sem AffineTransform. Enquanto o sprite
+     * ainda está sendo gerado em segundo plano, o atlas desenha um marcador no lugar.
+     */
+    private void drawProceduralSprite(Graphics2D g2d, Entity entity, ProceduralSpriteComponent psc, PositionComponent position, int cameraX, int cameraY) {
+        DirectionComponent direction = world.getComponent(entity, DirectionComponent.class);
+        int handle = getSpriteHandle(psc, direction != null);
+        int frame = psc.isMoving ? SpriteAtlas.movingFrame(System.currentTimeMillis() - psc.createdAtTime) : 0;
+        psc.animationFrame = frame;
+
+        int x = position.column * GameConstants.CELL_SIZE + (GameConstants.CELL_SIZE - SpriteGenerator.getWidthFor(psc)) / 2 - cameraX;
+        int y = position.row * GameConstants.CELL_SIZE + (GameConstants.CELL_SIZE - SpriteGenerator.getHeightFor(psc)) / 2 - cameraY;
+        spriteAtlas.draw(g2d, psc, handle, x, y, SpriteAtlas.directionIndex(direction == null ? null : direction.facing), frame);
+    }
+
+    /**
+     * Coloca na fila de geração em segundo plano os sprites de todas as entidades do mundo, para
+     * que já estejam prontos quando o jogo começar. Não espera a geração terminar. Os sprites que
+     * estão no cache em disco do nível são carregados dele em vez de gerados.
+     * @return Quantos sprites ainda estão sendo gerados.
+     */
+    public int prewarmSprites(LevelConfig config) {
+        spriteAtlas.openLevelCache(config);
+        for (Entity entity : world.getEntitiesWithComponent(ProceduralSpriteComponent.class)) {
+            ProceduralSpriteComponent psc = world.getComponent(entity, ProceduralSpriteComponent.class);
+            spriteAtlas.prewarm(psc, getSpriteHandle(psc, world.hasComponent(entity, DirectionComponent.class)));
+        }
+        for (Entity entity : world.getEntitiesWithComponent(SceneryComponent.class)) {
+            ProceduralSpriteComponent sprite = world.getComponent(entity, SceneryComponent.class).sprite;
+            spriteAtlas.prewarm(sprite, getSpriteHandle(sprite, false));
+        }
+        spriteAtlas.finishPrewarm();
+        return spriteAtlas.getPendingCount();
+    }
+
+    /**
+     * @param animated Whether the sprite needs rotations and squash/stretch frames (entities that face a direction).
+     */
+    private int getSpriteHandle(ProceduralSpriteComponent psc, boolean animated) {
+        if (psc.spriteHandle == 0) {
+            psc.spriteHandle = spriteAtlas.handleFor(psc, animated);
+        }
+        return psc.spriteHandle;
+    }
+
     private AffineTransform createTransformForEntity(Entity entity, PositionComponent position, int cameraX, int cameraY) {
         int width = getEntityRenderWidth(entity);
         int height = getEntityRenderHeight(entity);
@@ -427,18 +651,6 @@ public class RenderSystem extends GameSystem {
             tx.rotate(rotationAngle, width / 2.0, height / 2.0);
         }
 
-        ProceduralSpriteComponent psc = world.getComponent(entity, ProceduralSpriteComponent.class);
-        if (psc != null && psc.isMoving) {
-            double time = (System.currentTimeMillis() - psc.createdAtTime) / 150.0;
-            double scaleFactor = 0.08 * Math.sin(time);
-            double scaleX = 1.0 + scaleFactor;
-            double scaleY = 1.0 - scaleFactor;
-
-            tx.translate(width / 2.0, height / 2.0);
-            tx.scale(scaleX, scaleY);
-            tx.translate(-width / 2.0, -height / 2.0);
-        }
-
         return tx;
     }
 
@@ -494,21 +706,21 @@ public class RenderSystem extends GameSystem {
                 g2d.drawRect(entityScreenX, entityScreenY, GameConstants.CELL_SIZE, GameConstants.CELL_SIZE);
             }
         }
+
+        // Contadores do cache de imagens (memória, acertos, falhas, remoções)
+        g2d.setFont(new Font("Monospaced", Font.PLAIN, 12));
+        g2d.setColor(Color.WHITE);
+        g2d.drawString("Assets: " + AssetManager.getInstance().getStats(), 10, 15);
+        String stats = frameStats;
+        if (stats != null) {
+            g2d.drawString("Render: " + stats, 10, 30);
+        }
     }
 
     private Image getImageForEntity(Entity entity) {
         ProceduralSpriteComponent psc = world.getComponent(entity, ProceduralSpriteComponent.class);
         if (psc != null) {
-            int frame = (int) ((System.currentTimeMillis() - psc.createdAtTime) / 200) % 2;
-            psc.animationFrame = frame;
-            String cacheKey = "proc_S" + psc.creatureSeed + "_F" + frame;
-            Image cachedImage = AssetManager.getInstance().getImage(cacheKey);
-            if (cachedImage == null) {
-                BufferedImage newSprite = spriteGenerator.generate(psc);
-                AssetManager.getInstance().cacheImage(cacheKey, newSprite);
-                return newSprite;
-            }
-            return cachedImage;
+            return spriteAtlas.getSprite(psc, getSpriteHandle(psc, world.hasComponent(entity, DirectionComponent.class)));
         }
         RenderableComponent rc = world.getComponent(entity, RenderableComponent.class);
         if (rc != null && rc.imagePath != null) {
@@ -0,0 +1,535 @@
+package game.evo.systems;
+
+import game.evo.components.AiComponent;
+import game.evo.components.PlayerControlledComponent;
+import game.evo.components.PositionComponent;
+import game.evo.components.ProceduralSpriteComponent;
+import game.evo.components.RenderableComponent;
+import game.evo.components.SceneryComponent;
+import game.evo.components.SpawnedByComponent;
+import game.evo.config.BiomeRuleConfig;
+import game.evo.config.LevelConfig;
+import game.evo.config.SpawnableConfig;
+import game.evo.ecs.Entity;
+import game.evo.ecs.World;
+import game.evo.utils.GameConstants;
+import game.evo.world.EntityFactory;
+import game.evo.world.GameMap;
+import game.evo.world.RegionLabels;
+import game.evo.world.TileType;
+
+import java.awt.Rectangle;
+import java.util.*;
+import java.util.function.Supplier;
+
+/**
+ * Tops the level's population back up while it is played: eaten food and killed NPCs are
+ * replaced, moving every spawnable back toward the density target PopulationSystem used.
+ *
+ * Free tiles (walkable, in the player's region, with nothing on them) are kept in one indexed
+ * set per biome, so adding, removing and drawing a random free tile are all O(1). The sets are
+ * filled by a single scan of the map on the first update and from then on follow the entities:
+ * spawns and removals are found by diffing the entities that have a sprite whenever their
+ * component versions change, and moves by checking the tile of each NPC and of the player every
+ * tick. Every RESPAWN_INTERVAL_TICKS a round visits each under-populated spawnable once, with a
+ * few random draws each and at most RESPAWN_MAX_PER_ROUND spawns; tiles the player can see are
+ * rejected, so nothing pops up on screen. What is on screen comes from the panel's camera and
+ * size (see setView), since the camera stops at the map edges and the window can be resized.
+ * After the first scan no step depends on the map size.
+ */
+public class RespawnSystem extends GameSystem {
+
+    private static final long SEED_SALT = 0x5EED_7E5BL; // Keeps the respawn stream apart from PopulationSystem's
+
+    private final GameMap gameMap;
+    private final EntityFactory entityFactory;
+    private final LevelConfig levelConfig;
+    private final int width;
+    private final int height;
+    private final SplittableRandom random;
+
+    private boolean initialized = false;
+    private RegionLabels regions; // With the static obstacles blocked (see PopulationSystem.labelReachableRegions)
+    private int region = RegionLabels.NO_REGION;
+    private int[] occupancy; // Tracked entities standing on each tile (row * width + column)
+    private int[] owner;     // Target id + 1 of a spawned entity standing on each tile, for minSpacing
+    private int[] slot;      // Position of each tile in its biome's free set, -1 if it is not in it
+    private FreeTiles[] freeByBiome; // Indexed by TileType ordinal; null for biomes without targets
+    private final List<Target> targets = new ArrayList<>();
+    private Target[][] targetByRule; // [ruleIndex][spawnableIndex]
+
+    private final Map<Entity, Occupant> occupants = new HashMap<>();
+    private final List<Occupant> movers = new ArrayList<>();
+    private PositionComponent playerPosition;
+    private Supplier<Rectangle> view; // World pixels on screen; null in a headless run
+    private int viewFirstRow;         // Tiles rejected by the current round (view plus margin), inclusive
+    private int viewLastRow = -1;
+    private int viewFirstColumn;
+    private int viewLastColumn = -1;
+    private int syncedSpriteVersion = -1;
+    private int syncedRenderableVersion = -1;
+    private int syncedSceneryVersion = -1;
+
+    private int tick = 0;
+    private int nextTarget = 0;
+    private int respawnCount = 0;
+
+    /**
+     * One spawnable of one rule and how many of its entities should be alive.
+     */
+    private static final class Target {
+        final int id;
+        final SpawnableConfig spawnable;
+        final int ruleIndex;
+        final int spawnableIndex;
+        final int biome;
+        int goal;
+        int live;
+
+        Target(int id, SpawnableConfig spawnable, int ruleIndex, int spawnableIndex, int biome) {
+            this.id = id;
+            this.spawnable = spawnable;
+            this.ruleIndex = ruleIndex;
+            this.spawnableIndex = spawnableIndex;
+            this.biome = biome;
+        }
+    }
+
+    /**
+     * An entity that takes up a tile, and the tile it was last seen on (-1 if off the map).
+     */
+    private static final class Occupant {
+        final Entity entity;
+        final PositionComponent position;
+        final Target target; // null if it was not spawned by a population rule
+        int tile;
+        boolean removed;
+
+        Occupant(Entity entity, PositionComponent position, Target target) {
+            this.entity = entity;
+            this.position = position;
+            this.target = target;
+        }
+    }
+
+    public RespawnSystem(World world, GameMap gameMap, EntityFactory entityFactory, LevelConfig levelConfig) {
+        super(world);
+        this.gameMap = gameMap;
+        this.entityFactory = entityFactory;
+        this.levelConfig = levelConfig;
+        this.width = gameMap.getWidthInTiles();
+        this.height = gameMap.getHeightInTiles();
+        this.random = new SplittableRandom(levelConfig.proceduralSeed ^ SEED_SALT);
+    }
+
+    /**
+     * Sets where the visible area of the map comes from: the camera position and size of the
+     * panel, in world pixels. Without it (or before the panel is laid out) the view is assumed
+     * to be SCREEN_WIDTH_TILES x SCREEN_HEIGHT_TILES, centered on the player and clamped to the
+     * map like the camera.
+     */
+    public void setView(Supplier<Rectangle> view) {
+        this.view = view;
+    }
+
+    @Override
+    public void update() {
+        if (!GameConstants.RESPAWN_ENABLED) {
+            return;
+        }
+        if (!initialized) {
+            initialize();
+        }
+        syncOccupants();
+        trackMovers();
+
+        if (++tick % GameConstants.RESPAWN_INTERVAL_TICKS == 0 && !targets.isEmpty()) {
+            respawnRound();
+        }
+    }
+
+    /**
+     * @return How many entities this system has created so far.
+     */
+    public int getRespawnCount() {
+        return respawnCount;
+    }
+
+    /**
+     * Builds the targets and fills the free sets with one scan of the map. Runs once.
+     */
+    private void initialize() {
+        initialized = true;
+        int tileCount = width * height;
+        occupancy = new int[tileCount];
+        owner = new int[tileCount];
+        slot = new int[tileCount];
+        Arrays.fill(slot, -1);
+        freeByBiome = new FreeTiles[TileType.VALUES.length];
+        regions = PopulationSystem.labelReachableRegions(world, gameMap);
+        region = PopulationSystem.findPlayerRegion(world, regions);
+
+        List<BiomeRuleConfig> rules = levelConfig.biomeRules == null ? List.of() : levelConfig.biomeRules;
+        targetByRule = new Target[rules.size()][];
+        for (int ruleIndex = 0; ruleIndex < rules.size(); ruleIndex++) {
+            BiomeRuleConfig rule = rules.get(ruleIndex);
+            List<SpawnableConfig> spawnables = rule.spawnables == null ? List.of() : rule.spawnables;
+            targetByRule[ruleIndex] = new Target[spawnables.size()];
+            TileType biome;
+            try {
+                biome = TileType.valueOf(rule.biome);
+            } catch (IllegalArgumentException | NullPointerException e) {
+                continue; // Already reported by PopulationSystem
+            }
+            if (freeByBiome[biome.ordinal()] == null) {
+                freeByBiome[biome.ordinal()] = new FreeTiles();
+            }
+            for (int i = 0; i < spawnables.size(); i++) {
+                Target target = new Target(targets.size(), spawnables.get(i), ruleIndex, i, biome.ordinal());
+                targets.add(target);
+                targetByRule[ruleIndex][i] = target;
+            }
+        }
+
+        // Nothing is tracked yet, so every spawn-area tile of a biome with targets starts free.
+        // The tiles PopulationSystem drew from are counted along the way, without the player's:
+        // for the static obstacles, those of the player's region of the bare terrain; for the
+        // rest, those the obstacles left reachable, i.e. the spawn area.
+        RegionLabels terrain = gameMap.getRegions();
+        int terrainRegion = PopulationSystem.findPlayerRegion(world, terrain);
+        int playerTile = PopulationSystem.playerTile(world, width);
+        int[] terrainSizes = new int[TileType.VALUES.length];
+        int[] reachableSizes = new int[TileType.VALUES.length];
+        for (int tile = 0; tile < tileCount; tile++) {
+            int biome = biomeOf(tile);
+            if (isSpawnArea(tile)) {
+                if (tile != playerTile) {
+                    reachableSizes[biome]++;
+                }
+                if (freeByBiome[biome] != null) {
+                    freeByBiome[biome].add(tile);
+                }
+            }
+            if (tile != playerTile && TileType.VALUES[biome].isWalkable
+                    && (terrainRegion == RegionLabels.NO_REGION || terrain.getRegion(tile / width, tile % width) == terrainRegion)) {
+                terrainSizes[biome]++;
+            }
+        }
+        // Same goals as PopulationSystem: obstacles first, then the rest, each in rule order;
+        // density times the biome's tiles that the previous spawnables of that biome left unused.
+        for (Target target : targets) {
+            if (PopulationSystem.isStaticObstacle(target.spawnable)) {
+                setGoal(target, terrainSizes);
+            }
+        }
+        for (Target target : targets) {
+            if (!PopulationSystem.isStaticObstacle(target.spawnable)) {
+                setGoal(target, reachableSizes);
+            }
+        }
+    }
+
+    private static void setGoal(Target target, int[] biomeSizes) {
+        int size = biomeSizes[target.biome];
+        target.goal = Math.min(size, Math.max(0, (int) (size * target.spawnable.density)));
+        biomeSizes[target.biome] -= target.goal;
+    }
+
+    /**
+     * Starts tracking new entities and releases the tiles of removed ones. Only entities with a
+     * sprite (or baked scenery) take up a tile (the map's obstacle entities have none), so this is
+     * proportional to the population, and it only runs when an entity gained or lost a sprite.
+     */
+    private void syncOccupants() {
+        int spriteVersion = world.getComponentVersion(ProceduralSpriteComponent.class);
+        int renderableVersion = world.getComponentVersion(RenderableComponent.class);
+        int sceneryVersion = world.getComponentVersion(SceneryComponent.class);
+        if (spriteVersion == syncedSpriteVersion && renderableVersion == syncedRenderableVersion
+                && sceneryVersion == syncedSceneryVersion) {
+            return;
+        }
+        syncedSpriteVersion = spriteVersion;
+        syncedRenderableVersion = renderableVersion;
+        syncedSceneryVersion = sceneryVersion;
+
+        Set<Entity> current = world.getEntitiesWithComponent(ProceduralSpriteComponent.class);
+        current.addAll(world.getEntitiesWithComponent(RenderableComponent.class));
+        current.addAll(world.getEntitiesWithComponent(SceneryComponent.class));
+        boolean[] anyRemoved = {false};
+        occupants.values().removeIf(occupant -> {
+            if (current.remove(occupant.entity) && world.hasComponent(occupant.entity, PositionComponent.class)) {
+                return false;
+            }
+            vacate(occupant);
+            occupant.removed = true;
+            if (occupant.target != null) {
+                occupant.target.live--;
+            }
+            anyRemoved[0] = true;
+            return true;
+        });
+        if (anyRemoved[0]) {
+            movers.removeIf(occupant -> occupant.removed);
+            if (playerPosition != null && movers.stream().noneMatch(occupant -> occupant.position == playerPosition)) {
+                playerPosition = null;
+            }
+        }
+
+        // Whatever is left in 'current' is new.
+        for (Entity entity : current) {
+            track(entity);
+        }
+    }
+
+    private void track(Entity entity) {
+        PositionComponent position = world.getComponent(entity, PositionComponent.class);
+        if (position == null) {
+            return;
+        }
+        SpawnedByComponent spawnedBy = world.getComponent(entity, SpawnedByComponent.class);
+        Occupant occupant = new Occupant(entity, position, targetFor(spawnedBy));
+        occupant.tile = tileOf(position);
+        occupy(occupant);
+        if (occupant.target != null) {
+            occupant.target.live++;
+        }
+        occupants.put(entity, occupant);
+
+        boolean isPlayer = world.hasComponent(entity, PlayerControlledComponent.class);
+        if (isPlayer || world.hasComponent(entity, AiComponent.class)) {
+            movers.add(occupant);
+        }
+        if (isPlayer) {
+            playerPosition = position;
+        }
+    }
+
+    /**
+     * Moves the occupancy of every NPC and of the player that changed tile since the last tick.
+     */
+    private void trackMovers() {
+        for (Occupant occupant : movers) {
+            int tile = tileOf(occupant.position);
+            if (tile != occupant.tile) {
+                vacate(occupant);
+                occupant.tile = tile;
+                occupy(occupant);
+            }
+        }
+    }
+
+    /**
+     * Visits every target once, starting where the last round stopped, and spawns at most one
+     * entity for each under-populated one.
+     */
+    private void respawnRound() {
+        updateViewBounds();
+        int spawned = 0;
+        for (int visited = 0; visited < targets.size() && spawned < GameConstants.RESPAWN_MAX_PER_ROUND; visited++) {
+            Target target = targets.get(nextTarget);
+            nextTarget = (nextTarget + 1) % targets.size();
+            FreeTiles free = freeByBiome[target.biome];
+            if (target.live >= target.goal) {
+                continue;
+            }
+            for (int attempt = 0; attempt < GameConstants.RESPAWN_ATTEMPTS_PER_SPAWN && !free.isEmpty(); attempt++) {
+                int tile = free.pick(random);
+                if (isInPlayerView(tile) || !isSpaced(tile, target)) {
+                    continue;
+                }
+                spawn(target, tile);
+                spawned++;
+                break;
+            }
+        }
+        // The new entities are already tracked; don't diff the whole population again because of them.
+        syncedSpriteVersion = world.getComponentVersion(ProceduralSpriteComponent.class);
+        syncedRenderableVersion = world.getComponentVersion(RenderableComponent.class);
+        syncedSceneryVersion = world.getComponentVersion(SceneryComponent.class);
+    }
+
+    private void spawn(Target target, int tile) {
+        Entity entity = entityFactory.createGameEntity(PopulationSystem.entityConfigFor(
+                target.spawnable, tile / width, tile % width, random.nextLong()));
+        if (entity == null) {
+            target.goal = target.live; // The factory rejects this spawnable; stop retrying it
+            return;
+        }
+        world.addComponent(entity, new SpawnedByComponent(target.ruleIndex, target.spawnableIndex));
+        track(entity);
+        respawnCount++;
+    }
+
+    private Target targetFor(SpawnedByComponent spawnedBy) {
+        if (spawnedBy == null || spawnedBy.ruleIndex < 0 || spawnedBy.ruleIndex >= targetByRule.length) {
+            return null;
+        }
+        Target[] ruleTargets = targetByRule[spawnedBy.ruleIndex];
+        return spawnedBy.spawnableIndex >= 0 && spawnedBy.spawnableIndex < ruleTargets.length
+                ? ruleTargets[spawnedBy.spawnableIndex] : null;
+    }
+
+    private void occupy(Occupant occupant) {
+        int tile = occupant.tile;
+        if (tile < 0) {
+            return;
+        }
+        if (occupancy[tile]++ == 0) {
+            FreeTiles free = freeByBiome[biomeOf(tile)];
+            if (free != null) {
+                free.remove(tile);
+            }
+        }
+        if (occupant.target != null) {
+            owner[tile] = occupant.target.id + 1;
+        }
+    }
+
+    private void vacate(Occupant occupant) {
+        int tile = occupant.tile;
+        if (tile < 0) {
+            return;
+        }
+        if (occupant.target != null && owner[tile] == occupant.target.id + 1) {
+            owner[tile] = 0;
+        }
+        if (--occupancy[tile] == 0 && isSpawnArea(tile)) {
+            FreeTiles free = freeByBiome[biomeOf(tile)];
+            if (free != null) {
+                free.add(tile);
+            }
+        }
+    }
+
+    /**
+     * @return true if the tile is far enough from every entity of the target's spawnable.
+     * Looks only at the tiles within minSpacing, so the cost depends on the spacing, not the map.
+     */
+    private boolean isSpaced(int tile, Target target) {
+        double minSpacing = target.spawnable.minSpacing;
+        if (minSpacing <= 0) {
+            return true;
+        }
+        int row = tile / width;
+        int column = tile % width;
+        int reach = (int) Math.ceil(minSpacing);
+        double minSquared = minSpacing * minSpacing;
+        for (int r = Math.max(0, row - reach); r <= Math.min(height - 1, row + reach); r++) {
+            for (int c = Math.max(0, column - reach); c <= Math.min(width - 1, column + reach); c++) {
+                int dr = r - row;
+                int dc = c - column;
+                if (owner[r * width + c] == target.id + 1 && dr * dr + dc * dc < minSquared) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Computes the tiles the player can see, plus a margin, once per round.
+     */
+    private void updateViewBounds() {
+        Rectangle visible = view != null ? view.get() : null;
+        if (visible == null || visible.isEmpty()) {
+            visible = fallbackView();
+        }
+        if (visible == null) {
+            viewLastRow = viewLastColumn = -1; // No player, nothing to hide from
+            return;
+        }
+        int cell = GameConstants.CELL_SIZE;
+        int margin = GameConstants.RESPAWN_VIEW_MARGIN_TILES;
+        viewFirstRow = Math.floorDiv(visible.y, cell) - margin;
+        viewLastRow = Math.floorDiv(visible.y + visible.height - 1, cell) + margin;
+        viewFirstColumn = Math.floorDiv(visible.x, cell) - margin;
+        viewLastColumn = Math.floorDiv(visible.x + visible.width - 1, cell) + margin;
+    }
+
+    /**
+     * The view of a default-sized screen whose camera follows the player the way Main's does:
+     * centered on the player's tile, but never past the edges of the map.
+     */
+    private Rectangle fallbackView() {
+        if (playerPosition == null) {
+            return null;
+        }
+        int cell = GameConstants.CELL_SIZE;
+        int viewWidth = GameConstants.SCREEN_WIDTH_TILES * cell;
+        int viewHeight = GameConstants.SCREEN_HEIGHT_TILES * cell;
+        int x = playerPosition.column * cell + cell / 2 - viewWidth / 2;
+        int y = playerPosition.row * cell + cell / 2 - viewHeight / 2;
+        x = Math.max(0, Math.min(x, width * cell - viewWidth));
+        y = Math.max(0, Math.min(y, height * cell - viewHeight));
+        return new Rectangle(x, y, viewWidth, viewHeight);
+    }
+
+    private boolean isInPlayerView(int tile) {
+        int row = tile / width;
+        int column = tile % width;
+        return row >= viewFirstRow && row <= viewLastRow && column >= viewFirstColumn && column <= viewLastColumn;
+    }
+
+    /**
+     * Same area PopulationSystem spawns food and NPCs in: walkable tiles the player can reach
+     * around the static obstacles.
+     */
+    private boolean isSpawnArea(int tile) {
+        int row = tile / width;
+        int column = tile % width;
+        if (!gameMap.getTileAt(gameMap.indexOf(row, column)).isWalkable) {
+            return false;
+        }
+        return region == RegionLabels.NO_REGION || regions.getRegion(row, column) == region;
+    }
+
+    private int biomeOf(int tile) {
+        return gameMap.getTileAt(gameMap.indexOf(tile / width, tile % width)).ordinal();
+    }
+
+    private int tileOf(PositionComponent position) {
+        if (position.row < 0 || position.row >= height || position.column < 0 || position.column >= width) {
+            return -1;
+        }
+        return position.row * width + position.column;
+    }
+
+    /**
+     * The free tiles of one biome. Each tile's position in the array is kept in 'slot', so a tile
+     * is removed by moving the last one into its place.
+     */
+    private final class FreeTiles {
+        private int[] tiles = new int[64];
+        private int size;
+
+        void add(int tile) {
+            if (slot[tile] >= 0) {
+                return;
+            }
+            if (size == tiles.length) {
+                tiles = Arrays.copyOf(tiles, size * 2);
+            }
+            slot[tile] = size;
+            tiles[size++] = tile;
+        }
+
+        void remove(int tile) {
+            int index = slot[tile];
+            if (index < 0) {
+                return;
+            }
+            int last = tiles[--size];
+            tiles[index] = last;
+            slot[last] = index;
+            slot[tile] = -1;
+        }
+
+        boolean isEmpty() {
+            return size == 0;
+        }
+
+        int pick(SplittableRandom random) {
+            return tiles[random.nextInt(size)];
+        }
+    }
+}
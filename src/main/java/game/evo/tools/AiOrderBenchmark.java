@@ -0,0 +1,142 @@
+package game.evo.tools;
+
+import game.evo.components.AiComponent;
+import game.evo.components.NpcComponent;
+import game.evo.config.EntityConfig;
+import game.evo.config.LevelConfig;
+import game.evo.config.TerrainRuleConfig;
+import game.evo.ecs.Entity;
+import game.evo.ecs.World;
+import game.evo.systems.AISystem;
+import game.evo.utils.GameConstants;
+import game.evo.world.EntityFactory;
+import game.evo.world.GameMap;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Ferramenta offline que mede o custo de um tick do AISystem com e sem a
+ * ordenação espacial (ordem Z / Morton) de NPCs e colisões.
+ *
+ * Uso: java game.evo.tools.AiOrderBenchmark [ticks] [npcs...]
+ * Ex.: java game.evo.tools.AiOrderBenchmark 200 500 2000 5000
+ *
+ * A ferramenta mede só tempo por tick, não cache misses. O ganho do modo em ordem Z
+ * vem da ordem de visita dos NPCs e da busca de colisões indexada (busca binária na
+ * ordem Z em vez de varrer todas as entidades sólidas a cada passo); o armazenamento
+ * de componentes do World não é reorganizado. O Java não expõe contadores
+ * de cache; para medir cache misses rode a mesma ferramenta sob
+ * "perf stat -e cache-misses,cache-references", uma vez para cada modo.
+ */
+public class AiOrderBenchmark {
+
+    private static final int MAP_SIZE_TILES = 256;
+    private static final int WARMUP_TICKS = 50;
+
+    public static void main(String[] args) {
+        System.setProperty("java.awt.headless", "true");
+        int ticks = args.length > 0 ? Integer.parseInt(args[0]) : 200;
+        int[] npcCounts = {500, 2000, 5000};
+        if (args.length > 1) {
+            npcCounts = new int[args.length - 1];
+            for (int i = 1; i < args.length; i++) {
+                npcCounts[i - 1] = Integer.parseInt(args[i]);
+            }
+        }
+
+        PrintStream out = System.out;
+        out.println("AISystem tick time, " + MAP_SIZE_TILES + "x" + MAP_SIZE_TILES + " map, " + ticks + " ticks per run");
+        out.printf("%8s %16s %16s %10s%n", "NPCs", "hash order ms", "z-order ms", "speedup");
+
+        boolean previousSetting = GameConstants.AI_SPATIAL_ORDERING_ENABLED;
+        try {
+            for (int npcs : npcCounts) {
+                double hashMs = measure(npcs, ticks, false);
+                double zOrderMs = measure(npcs, ticks, true);
+                out.printf("%8d %16.3f %16.3f %9.2fx%n", npcs, hashMs, zOrderMs, hashMs / zOrderMs);
+            }
+        } finally {
+            GameConstants.AI_SPATIAL_ORDERING_ENABLED = previousSetting;
+        }
+        out.println("The speedup includes the indexed collision lookup of the z-order mode; it is not a cache-miss measurement.");
+    }
+
+    /**
+     * Builds a fresh world with the given number of NPCs and returns the mean milliseconds per AI tick.
+     */
+    private static double measure(int npcCount, int ticks, boolean spatialOrdering) {
+        GameConstants.AI_SPATIAL_ORDERING_ENABLED = spatialOrdering;
+
+        PrintStream originalOut = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream())); // Silencia os logs de criação
+        World world = new World();
+        GameMap gameMap;
+        try {
+            gameMap = new GameMap(world, createFlatLevel(), false);
+            populate(world, new EntityFactory(world), npcCount);
+        } finally {
+            System.setOut(originalOut);
+        }
+
+        // Every NPC acts on every tick, so the benchmark does not depend on wall-clock timers.
+        for (Entity npc : world.getEntitiesWithComponent(NpcComponent.class)) {
+            world.getComponent(npc, AiComponent.class).moveDelay = 0;
+        }
+
+        AISystem aiSystem = new AISystem(world, gameMap);
+        for (int i = 0; i < WARMUP_TICKS; i++) {
+            aiSystem.update();
+        }
+
+        long start = System.nanoTime();
+        for (int i = 0; i < ticks; i++) {
+            aiSystem.update();
+        }
+        return (System.nanoTime() - start) / 1_000_000.0 / ticks;
+    }
+
+    private static LevelConfig createFlatLevel() {
+        TerrainRuleConfig grass = new TerrainRuleConfig();
+        grass.biome = "GRASSLAND";
+        grass.maxElevation = 2.0;
+
+        LevelConfig config = new LevelConfig();
+        config.levelName = "AI benchmark";
+        config.proceduralSeed = 4242L;
+        config.mapWidth = MAP_SIZE_TILES;
+        config.mapHeight = MAP_SIZE_TILES;
+        config.noiseScale = 500.0;
+        config.terrainRules = List.of(grass);
+        return config;
+    }
+
+    private static void populate(World world, EntityFactory factory, int npcCount) {
+        Random random = new Random(npcCount);
+        String[] types = {"NeutralNPC", "SkittishNPC", "AggressiveNPC"};
+        Set<Integer> used = new HashSet<>();
+        for (int i = 0; i < npcCount; i++) {
+            int tile;
+            do {
+                tile = random.nextInt(MAP_SIZE_TILES * MAP_SIZE_TILES);
+            } while (!used.add(tile));
+
+            Map<String, Object> properties = new HashMap<>();
+            properties.put("size", 1 + random.nextInt(3));
+            properties.put("seed", random.nextLong());
+
+            EntityConfig config = new EntityConfig();
+            config.type = types[i % types.length];
+            config.row = tile / MAP_SIZE_TILES;
+            config.column = tile % MAP_SIZE_TILES;
+            config.properties = properties;
+            factory.createGameEntity(config);
+        }
+    }
+}
@@ -0,0 +1,406 @@
+package game.evo.tools;
+
+import game.evo.components.CollisionComponent;
+import game.evo.components.FoodComponent;
+import game.evo.components.GoToNextLevelComponent;
+import game.evo.components.LoadGameRequestComponent;
+import game.evo.components.NpcComponent;
+import game.evo.components.PlayerControlledComponent;
+import game.evo.components.PortalComponent;
+import game.evo.components.SaveGameRequestComponent;
+import game.evo.config.LevelConfig;
+import game.evo.config.LevelLoader;
+import game.evo.ecs.Entity;
+import game.evo.ecs.World;
+import game.evo.input.InputManager;
+import game.evo.systems.AISystem;
+import game.evo.systems.CombatSystem;
+import game.evo.systems.GameLogicSystem;
+import game.evo.systems.GameSystem;
+import game.evo.systems.InfluenceMapSystem;
+import game.evo.systems.InteractionSystem;
+import game.evo.systems.NotificationSystem;
+import game.evo.systems.PlayerInputSystem;
+import game.evo.systems.PopulationSystem;
+import game.evo.systems.PortalSystem;
+import game.evo.systems.RespawnSystem;
+import game.evo.utils.GameConstants;
+import game.evo.utils.SimulationClock;
+import game.evo.world.EntityFactory;
+import game.evo.world.GameMap;
+import game.evo.world.InfluenceMap;
+
+import java.awt.event.KeyEvent;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+/**
+ * Runs a level without Swing: no window, no Timer, no rendering.
+ * The level is built the same way Main does it (LevelLoader, GameMap without its image,
+ * player, PopulationSystem) and the logic systems are ticked back to back as fast as
+ * possible. Each tick still advances a SimulationClock by GAME_LOOP_DELAY_MS, so timed
+ * rules (NPC move delays, notifications, portal activation) behave as in the game.
+ * The player is driven through an InputManager fed by an InputSource (none, random or a script).
+ * The AI's random stream is seeded from proceduralSeed and NPC move timers run on the
+ * SimulationClock, so the same level, seed and input replay the same run tick for tick.
+ *
+ * Uso: java game.evo.tools.HeadlessSimulation [--level N] [--seed S] [--ticks N] [--seconds T]
+ *                                             [--input none|random|arquivo] [--quiet]
+ *
+ * Formato do script de input: uma linha "tick TECLA[+TECLA...]" por mudança, onde TECLA é o
+ * nome de uma constante KeyEvent.VK_* sem o prefixo (UP, LEFT, SPACE...) ou NONE para soltar tudo.
+ * As teclas ficam pressionadas até a próxima linha. Linhas iniciadas com '#' são ignoradas.
+ */
+public class HeadlessSimulation {
+
+    private static final long AI_SEED_SALT = 0xA15EEDL; // Keeps the AI stream apart from the population's
+
+    /**
+     * Why a run ended.
+     */
+    public enum StopReason {
+        TICK_LIMIT,
+        TIME_LIMIT,
+        LEVEL_COMPLETE, // The player went through the portal
+        PLAYER_DIED
+    }
+
+    /**
+     * Decides which keys are held during a tick.
+     */
+    public interface InputSource {
+        void apply(long tick, InputManager input);
+    }
+
+    private final LevelConfig config;
+    private final World world;
+    private final GameMap gameMap;
+    private final Entity player;
+    private final InputManager inputManager = new InputManager();
+    private final SimulationClock clock = new SimulationClock(System.currentTimeMillis());
+    private final List<GameSystem> systems = new ArrayList<>();
+    private final List<String> systemNames = new ArrayList<>();
+    private final long[] systemNanos;
+    private final long setupNanos;
+    private final long mapNanos;
+    private final long populationNanos;
+    private final Map<String, Integer> spawnCounts;
+
+    private InputSource inputSource = (tick, input) -> input.releaseAll();
+    private long ticks = 0;
+    private long portalTick = -1;
+    private final int initialPortalVersion;
+
+    /**
+     * Builds the level. Nothing is ticked yet.
+     */
+    public HeadlessSimulation(LevelConfig config) {
+        long start = System.nanoTime();
+        this.config = config;
+        this.world = new World();
+        EntityFactory entityFactory = new EntityFactory(world);
+        entityFactory.setClock(clock); // NPC move timers start on the simulated clock, not the wall clock
+
+        this.gameMap = new GameMap(world, config, false);
+        this.mapNanos = System.nanoTime() - start;
+        this.player = entityFactory.createPlayerCharacter(config.player);
+        long populationStart = System.nanoTime();
+        PopulationSystem populationSystem = new PopulationSystem(world, gameMap, entityFactory, config);
+        populationSystem.update();
+        this.populationNanos = System.nanoTime() - populationStart;
+        this.spawnCounts = populationSystem.getSpawnCounts();
+
+        // Same systems and order as the game loop: input first, then the logic systems.
+        InfluenceMapSystem influenceMapSystem = new InfluenceMapSystem(world, new InfluenceMap(gameMap, GameConstants.INFLUENCE_DECAY_PER_TICK));
+        AISystem aiSystem = new AISystem(world, gameMap, influenceMapSystem);
+        aiSystem.setClock(clock);
+        aiSystem.setRandom(new Random(config.proceduralSeed ^ AI_SEED_SALT)); // Same seed, same run
+        addSystem(new PlayerInputSystem(world, inputManager, gameMap));
+        addSystem(influenceMapSystem);
+        addSystem(aiSystem);
+        addSystem(new PortalSystem(world));
+        addSystem(new CombatSystem(world, entityFactory));
+        addSystem(new InteractionSystem(world));
+        addSystem(new GameLogicSystem(world, entityFactory));
+        addSystem(new RespawnSystem(world, gameMap, entityFactory, config));
+        addSystem(new NotificationSystem(world));
+        this.systemNanos = new long[systems.size()];
+
+        this.initialPortalVersion = world.getComponentVersion(PortalComponent.class);
+        this.setupNanos = System.nanoTime() - start;
+    }
+
+    /**
+     * Loads assets/levels/level-N.json through LevelLoader.
+     * @return The config, or null if the level could not be loaded.
+     */
+    public static LevelConfig loadLevel(int levelNumber) {
+        return new LevelLoader().loadLevelFromResource("assets/levels/level-" + levelNumber + ".json");
+    }
+
+    private void addSystem(GameSystem system) {
+        systems.add(system);
+        systemNames.add(system.getClass().getSimpleName());
+    }
+
+    public void setInputSource(InputSource inputSource) {
+        this.inputSource = inputSource;
+    }
+
+    /**
+     * Runs one game tick.
+     * @return null to keep going, or the reason the simulation cannot continue.
+     */
+    public StopReason tick() {
+        inputSource.apply(ticks, inputManager);
+        for (int i = 0; i < systems.size(); i++) {
+            long start = System.nanoTime();
+            systems.get(i).update();
+            systemNanos[i] += System.nanoTime() - start;
+        }
+        ticks++;
+        clock.advance(GameConstants.GAME_LOOP_DELAY_MS);
+
+        if (portalTick < 0 && world.getComponentVersion(PortalComponent.class) != initialPortalVersion) {
+            portalTick = ticks;
+        }
+        if (!world.hasComponent(player, PlayerControlledComponent.class)) {
+            return StopReason.PLAYER_DIED;
+        }
+        // There is no save slot or next level here: drop the requests.
+        world.removeComponent(player, SaveGameRequestComponent.class);
+        world.removeComponent(player, LoadGameRequestComponent.class);
+        if (world.hasComponent(player, GoToNextLevelComponent.class)) {
+            return StopReason.LEVEL_COMPLETE;
+        }
+        return null;
+    }
+
+    /**
+     * Ticks until a limit is reached or the level ends.
+     * @param maxTicks Tick limit, or 0 for none.
+     * @param maxSeconds Wall-clock limit in seconds, or 0 for none.
+     */
+    public StopReason run(long maxTicks, double maxSeconds) {
+        long deadline = maxSeconds > 0 ? System.nanoTime() + (long) (maxSeconds * 1e9) : Long.MAX_VALUE;
+        while (true) {
+            StopReason reason = tick();
+            if (reason != null) {
+                return reason;
+            }
+            if (maxTicks > 0 && ticks >= maxTicks) {
+                return StopReason.TICK_LIMIT;
+            }
+            // Checking the clock every tick is cheap compared to a tick.
+            if (System.nanoTime() >= deadline) {
+                return StopReason.TIME_LIMIT;
+            }
+        }
+    }
+
+    public World getWorld() {
+        return world;
+    }
+
+    public GameMap getGameMap() {
+        return gameMap;
+    }
+
+    public Entity getPlayer() {
+        return player;
+    }
+
+    public long getTicks() {
+        return ticks;
+    }
+
+    /**
+     * @return The tick at which the exit portal appeared, or -1 if it did not.
+     */
+    public long getPortalTick() {
+        return portalTick;
+    }
+
+    public long getSetupNanos() {
+        return setupNanos;
+    }
+
+    /**
+     * @return Time spent building the GameMap (terrain generation), in nanoseconds.
+     */
+    public long getMapNanos() {
+        return mapNanos;
+    }
+
+    public long getPopulationNanos() {
+        return populationNanos;
+    }
+
+    /**
+     * @return Entities created by PopulationSystem per spawnable type.
+     */
+    public Map<String, Integer> getSpawnCounts() {
+        return spawnCounts;
+    }
+
+    /**
+     * Prints throughput, per-system time and entity counts.
+     */
+    public void printReport(PrintStream out, StopReason reason, long runNanos) {
+        double runSeconds = runNanos / 1e9;
+        out.println("Level: " + config.levelName + " (seed " + config.proceduralSeed + ", "
+                + gameMap.getWidthInTiles() + "x" + gameMap.getHeightInTiles() + " tiles)");
+        out.printf("Setup: %.1f ms (map %.1f ms, population %.1f ms)%n", setupNanos / 1e6, mapNanos / 1e6, populationNanos / 1e6);
+        out.printf("Ticks: %d in %.3f s -> %.1f ticks/s (%.1f s of game time)%n",
+                ticks, runSeconds, ticks / Math.max(runSeconds, 1e-9), ticks * GameConstants.GAME_LOOP_DELAY_MS / 1000.0);
+        out.println("Stop: " + reason + (portalTick >= 0 ? ", portal at tick " + portalTick : ", no portal"));
+
+        long totalSystemNanos = 0;
+        for (long nanos : systemNanos) {
+            totalSystemNanos += nanos;
+        }
+        out.printf("%-22s %12s %12s %7s%n", "System", "total ms", "us/tick", "share");
+        for (int i = 0; i < systems.size(); i++) {
+            out.printf("%-22s %12.1f %12.2f %6.1f%%%n", systemNames.get(i), systemNanos[i] / 1e6,
+                    systemNanos[i] / 1e3 / Math.max(1, ticks), 100.0 * systemNanos[i] / Math.max(1, totalSystemNanos));
+        }
+
+        out.println("Entities: " + world.getEntityCount()
+                + " (NPCs " + world.getEntitiesWithComponent(NpcComponent.class).size()
+                + ", food " + world.getEntitiesWithComponent(FoodComponent.class).size()
+                + ", solid " + world.getEntitiesWithComponent(CollisionComponent.class).size() + ")");
+    }
+
+    // --- Input sources ---
+
+    /**
+     * Holds one random direction for a few ticks at a time and attacks now and then.
+     */
+    public static InputSource randomInput(long seed) {
+        int[] directions = {KeyEvent.VK_UP, KeyEvent.VK_DOWN, KeyEvent.VK_LEFT, KeyEvent.VK_RIGHT};
+        Random random = new Random(seed);
+        return (tick, input) -> {
+            if (tick % 5 == 0) {
+                input.releaseAll();
+                int choice = random.nextInt(directions.length + 1); // Last choice: stand still
+                if (choice < directions.length) {
+                    input.press(directions[choice]);
+                }
+            }
+            if (random.nextInt(5) == 0) {
+                input.press(KeyEvent.VK_SPACE);
+            } else {
+                input.release(KeyEvent.VK_SPACE);
+            }
+        };
+    }
+
+    /**
+     * Reads a script of "tick KEY[+KEY...]" lines (see the class comment).
+     */
+    public static InputSource scriptedInput(Path scriptFile) throws IOException {
+        TreeMap<Long, int[]> changes = new TreeMap<>();
+        int lineNumber = 0;
+        for (String line : Files.readAllLines(scriptFile)) {
+            lineNumber++;
+            line = line.trim();
+            if (line.isEmpty() || line.startsWith("#")) continue;
+            String[] parts = line.split("\\s+");
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Line " + lineNumber + ": expected 'tick KEYS', got '" + line + "'");
+            }
+            changes.put(Long.parseLong(parts[0]), parseKeys(parts[1], lineNumber));
+        }
+        return (tick, input) -> {
+            int[] keys = changes.get(tick);
+            if (keys == null) return;
+            input.releaseAll();
+            for (int key : keys) {
+                input.press(key);
+            }
+        };
+    }
+
+    private static int[] parseKeys(String spec, int lineNumber) {
+        if (spec.equalsIgnoreCase("NONE")) {
+            return new int[0];
+        }
+        String[] names = spec.split("\\+");
+        int[] keys = new int[names.length];
+        for (int i = 0; i < names.length; i++) {
+            try {
+                keys[i] = KeyEvent.class.getField("VK_" + names[i].toUpperCase()).getInt(null);
+            } catch (ReflectiveOperationException e) {
+                throw new IllegalArgumentException("Line " + lineNumber + ": unknown key '" + names[i] + "'");
+            }
+        }
+        return keys;
+    }
+
+    public static void main(String[] args) throws IOException {
+        System.setProperty("java.awt.headless", "true");
+        int level = 1;
+        Long seed = null;
+        long maxTicks = 0;
+        double maxSeconds = 0;
+        String input = "random";
+        boolean quiet = false;
+
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--level":   level = Integer.parseInt(args[++i]); break;
+                case "--seed":    seed = Long.parseLong(args[++i]); break;
+                case "--ticks":   maxTicks = Long.parseLong(args[++i]); break;
+                case "--seconds": maxSeconds = Double.parseDouble(args[++i]); break;
+                case "--input":   input = args[++i]; break;
+                case "--quiet":   quiet = true; break;
+                default:
+                    System.err.println("Unknown argument: " + args[i]);
+                    System.err.println("Usage: HeadlessSimulation [--level N] [--seed S] [--ticks N] [--seconds T] [--input none|random|file] [--quiet]");
+                    System.exit(2);
+                    return;
+            }
+        }
+        if (maxTicks == 0 && maxSeconds == 0) {
+            maxTicks = 1000;
+        }
+
+        PrintStream out = System.out;
+        if (quiet) {
+            System.setOut(new PrintStream(OutputStream.nullOutputStream())); // Silencia os logs do jogo
+        }
+        try {
+            LevelConfig config = loadLevel(level);
+            if (config == null) {
+                System.err.println("[CRITICAL] Failed to load level " + level);
+                System.exit(1);
+                return;
+            }
+            if (seed != null) {
+                config.proceduralSeed = seed;
+            }
+
+            HeadlessSimulation simulation = new HeadlessSimulation(config);
+            switch (input) {
+                case "none":   break;
+                case "random": simulation.setInputSource(randomInput(config.proceduralSeed)); break;
+                default:       simulation.setInputSource(scriptedInput(Path.of(input))); break;
+            }
+
+            long start = System.nanoTime();
+            StopReason reason = simulation.run(maxTicks, maxSeconds);
+            long runNanos = System.nanoTime() - start;
+            simulation.printReport(out, reason, runNanos);
+        } finally {
+            System.setOut(out);
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package game.evo.tools;
+
+import game.evo.config.LevelConfig;
+import game.evo.config.LevelLoader;
+import game.evo.utils.GameConstants;
+import game.evo.world.MapCacheFile;
+import game.evo.world.MapGenerator;
+import game.evo.world.RegionLabels;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Ferramenta offline que gera antecipadamente os mapas de todos os níveis embutidos
+ * (assets/levels/level-1.json, level-2.json, ... até o primeiro número que não existir)
+ * e os grava no formato de cache .evomap. Com a saída em src/main/resources/assets/mapcache
+ * os caches vão junto com o jogo e o GameMap os lê do classpath, então o primeiro carregamento
+ * de cada nível custa o mesmo que os seguintes.
+ *
+ * Each level is an independent task on a ForkJoinPool. By default only the logical grid is
+ * stored: it is all tile atlas rendering needs, and drawing the map image from the grid is
+ * faster than decoding it from a PNG. --images also stores the image, generated with the
+ * current MAP_BLENDING_ENABLED setting (or without blending with --no-blending).
+ *
+ * Uso: java game.evo.tools.MapBaker [diretório de saída] [--threads K] [--images] [--no-blending]
+ */
+public class MapBaker {
+
+    private static final String DEFAULT_OUTPUT = "src/main/resources/" + MapCacheFile.CLASSPATH_DIR;
+
+    public static void main(String[] args) throws Exception {
+        System.setProperty("java.awt.headless", "true");
+        Path output = Path.of(DEFAULT_OUTPUT);
+        int threads = Runtime.getRuntime().availableProcessors();
+        boolean withImages = false;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--threads":     threads = Integer.parseInt(args[++i]); break;
+                case "--images":      withImages = true; break;
+                case "--no-blending": GameConstants.MAP_BLENDING_ENABLED = false; break;
+                default:
+                    if (args[i].startsWith("--")) {
+                        System.err.println("Unknown argument: " + args[i]);
+                        System.exit(2);
+                        return;
+                    }
+                    output = Path.of(args[i]);
+            }
+        }
+        Files.createDirectories(output);
+
+        List<String> levels = findLevels();
+        if (levels.isEmpty()) {
+            System.err.println("No levels found under assets/levels.");
+            System.exit(1);
+            return;
+        }
+
+        // The generators log every step; with several levels in parallel that is only noise.
+        PrintStream originalOut = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+
+        LevelLoader levelLoader = new LevelLoader();
+        List<String> reports = new ArrayList<>();
+        boolean failed = false;
+        long start = System.nanoTime();
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            List<ForkJoinTask<String>> tasks = new ArrayList<>();
+            for (String json : levels) {
+                final Path taskOutput = output;
+                final boolean taskWithImages = withImages;
+                tasks.add(pool.submit(() -> bakeLevel(levelLoader, json, taskOutput, taskWithImages)));
+            }
+            for (ForkJoinTask<String> task : tasks) {
+                try {
+                    reports.add(task.join()); // Joined in level order
+                } catch (RuntimeException e) {
+                    reports.add("FAILED: " + e);
+                    failed = true;
+                }
+            }
+        } finally {
+            pool.shutdown();
+            System.setOut(originalOut);
+        }
+
+        reports.forEach(System.out::println);
+        System.out.printf(Locale.ROOT, "%d levels baked on %d threads in %.2f s -> %s%n",
+                levels.size(), threads, (System.nanoTime() - start) / 1e9, output);
+        if (failed) {
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Reads assets/levels/level-N.json from the classpath for N = 1, 2, ... until one is missing.
+     */
+    private static List<String> findLevels() throws IOException {
+        List<String> levels = new ArrayList<>();
+        for (int n = 1; ; n++) {
+            try (InputStream in = MapBaker.class.getClassLoader().getResourceAsStream("assets/levels/level-" + n + ".json")) {
+                if (in == null) {
+                    return levels;
+                }
+                levels.add(new String(in.readAllBytes(), StandardCharsets.UTF_8));
+            }
+        }
+    }
+
+    private static String bakeLevel(LevelLoader levelLoader, String json, Path output, boolean withImages) {
+        LevelConfig config = levelLoader.loadLevelFromJson(json, "level");
+        if (config == null) {
+            throw new IllegalStateException("Invalid level JSON.");
+        }
+        long start = System.nanoTime();
+        MapGenerator generator = new MapGenerator(config);
+        int width = config.mapWidth;
+        int height = config.mapHeight;
+        byte[] tiles = generator.generateLogicalGridOnly(width, height, config.noiseScale);
+        MapCacheFile cache = new MapCacheFile(tiles, width, height, RegionLabels.label(tiles, width, height),
+                withImages ? generator.generateImage(tiles, width, height) : null, GameConstants.MAP_BLENDING_ENABLED);
+
+        Path file = output.resolve(MapCacheFile.fileNameFor(config));
+        try (OutputStream out = Files.newOutputStream(file)) {
+            cache.write(out, config);
+            return String.format(Locale.ROOT, "level %d (%s): %dx%d in %.0f ms, %d KB -> %s",
+                    config.levelNumber, config.levelName, config.mapWidth, config.mapHeight,
+                    (System.nanoTime() - start) / 1e6, Files.size(file) / 1024, file.getFileName());
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not write " + file + ": " + e.getMessage(), e);
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package game.evo.tools;
+
+import game.evo.utils.GameConstants;
+import game.evo.utils.OpenSimplexNoise;
+
+/**
+ * Ferramenta offline que compara a avaliação de ruído fractal ponto a ponto (como o
+ * MapGenerator fazia) com a API em lote OpenSimplexNoise.fractalRow, no caminho escalar e,
+ * quando disponível, no caminho com a Vector API, conferindo que os resultados são idênticos
+ * bit a bit e reportando pontos por segundo de cada caminho.
+ *
+ * Uso: java game.evo.tools.NoiseBenchmark [largura] [altura] [repetições]
+ * O caminho vetorial precisa do build com o perfil Maven "vector" e da JVM com
+ * --add-modules jdk.incubator.vector; sem eles só os dois caminhos escalares são medidos.
+ */
+public class NoiseBenchmark {
+
+    private static final int OCTAVES = 5;
+    private static final double LACUNARITY = 2.0;
+    private static final double PERSISTENCE = 0.5;
+    private static final double SCALE = 0.3; // noiseScale / CELL_SIZE of a typical level
+
+    public static void main(String[] args) {
+        int width = args.length > 0 ? Integer.parseInt(args[0]) : 512;
+        int height = args.length > 1 ? Integer.parseInt(args[1]) : 512;
+        int repetitions = args.length > 2 ? Integer.parseInt(args[2]) : 5;
+
+        OpenSimplexNoise noise = new OpenSimplexNoise(12345L);
+        double[] scalar = new double[width * height];
+        double[] batch = new double[width * height];
+        double[] vector = new double[width * height];
+        boolean vectorAvailable = OpenSimplexNoise.isVectorized();
+        boolean previousSetting = GameConstants.VECTOR_NOISE_ENABLED;
+
+        long scalarNanos = Long.MAX_VALUE;
+        long batchNanos = Long.MAX_VALUE;
+        long vectorNanos = Long.MAX_VALUE;
+        try {
+            // The first round warms all paths up so the JIT has compiled them; it is not timed.
+            for (int i = -1; i < repetitions; i++) {
+                long start = System.nanoTime();
+                runScalar(noise, scalar, width, height);
+                long elapsed = System.nanoTime() - start;
+                scalarNanos = i < 0 ? scalarNanos : Math.min(scalarNanos, elapsed);
+
+                GameConstants.VECTOR_NOISE_ENABLED = false;
+                start = System.nanoTime();
+                noise.fractalBlock(batch, 0, 0, width, height, OCTAVES, LACUNARITY, PERSISTENCE, SCALE);
+                elapsed = System.nanoTime() - start;
+                batchNanos = i < 0 ? batchNanos : Math.min(batchNanos, elapsed);
+
+                if (vectorAvailable) {
+                    GameConstants.VECTOR_NOISE_ENABLED = true;
+                    start = System.nanoTime();
+                    noise.fractalBlock(vector, 0, 0, width, height, OCTAVES, LACUNARITY, PERSISTENCE, SCALE);
+                    elapsed = System.nanoTime() - start;
+                    vectorNanos = i < 0 ? vectorNanos : Math.min(vectorNanos, elapsed);
+                }
+            }
+        } finally {
+            GameConstants.VECTOR_NOISE_ENABLED = previousSetting;
+        }
+
+        int mismatches = countMismatches(scalar, batch);
+        if (vectorAvailable) {
+            mismatches += countMismatches(scalar, vector);
+        }
+
+        long points = (long) width * height;
+        System.out.printf("%dx%d points, %d octaves, best of %d%n", width, height, OCTAVES, repetitions);
+        System.out.printf("%-18s %14s%n", "path", "points/s");
+        System.out.printf("%-18s %14.0f%n", "per-point", points / (scalarNanos / 1e9));
+        System.out.printf("%-18s %14.0f%n", "fractalRow scalar", points / (batchNanos / 1e9));
+        if (vectorAvailable) {
+            System.out.printf("%-18s %14.0f%n", "fractalRow vector", points / (vectorNanos / 1e9));
+        } else {
+            System.out.printf("%-18s %14s%n", "fractalRow vector", "n/a (built without the \"vector\" profile or run without --add-modules jdk.incubator.vector)");
+        }
+        System.out.println(mismatches == 0 ? "Results identical." : "MISMATCHES: " + mismatches);
+        if (mismatches != 0) {
+            System.exit(1);
+        }
+    }
+
+    private static int countMismatches(double[] expected, double[] actual) {
+        int mismatches = 0;
+        for (int i = 0; i < expected.length; i++) {
+            if (Double.doubleToRawLongBits(expected[i]) != Double.doubleToRawLongBits(actual[i])) {
+                mismatches++;
+            }
+        }
+        return mismatches;
+    }
+
+    // The per-point evaluation MapGenerator used before the batch API.
+    private static void runScalar(OpenSimplexNoise noise, double[] out, int width, int height) {
+        for (int r = 0; r < height; r++) {
+            for (int c = 0; c < width; c++) {
+                out[r * width + c] = fractalNoise(c, r, noise, OCTAVES, LACUNARITY, PERSISTENCE, SCALE);
+            }
+        }
+    }
+
+    private static double fractalNoise(double x, double y, OpenSimplexNoise noise, int octaves, double lacunarity, double persistence, double scale) {
+        double total = 0, frequency = 1, amplitude = 1, maxValue = 0;
+        for (int i = 0; i < octaves; i++) {
+            total += noise.eval(x * frequency / scale, y * frequency / scale) * amplitude;
+            maxValue += amplitude;
+            amplitude *= persistence;
+            frequency *= lacunarity;
+        }
+        return total / maxValue;
+    }
+}
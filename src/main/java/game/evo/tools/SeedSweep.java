@@ -0,0 +1,237 @@
+package game.evo.tools;
+
+import game.evo.config.BiomeRuleConfig;
+import game.evo.config.LevelConfig;
+import game.evo.config.LevelLoader;
+import game.evo.config.SpawnableConfig;
+import game.evo.utils.GameConstants;
+import game.evo.world.GameMap;
+import game.evo.world.TileType;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Ferramenta de linha de comando para balancear níveis: gera e simula um arquivo de nível
+ * para uma faixa de valores de proceduralSeed e grava as estatísticas de cada seed em CSV.
+ *
+ * Each seed is an independent task on a work-stealing ForkJoinPool. A task parses its own
+ * LevelConfig from the JSON text and builds its own World through HeadlessSimulation, so
+ * tasks share no mutable state. The swept seed also seeds the AI and the random input of
+ * its run, so every row is a property of the seed: rerunning the sweep, with any --threads,
+ * writes the same values (only the *_ms columns change).
+ *
+ * Uso: java game.evo.tools.SeedSweep <nível.json | número do nível> <primeira seed> <última seed>
+ *                                    [--ticks N] [--threads K] [--out arquivo.csv]
+ *
+ * Columns: seed, map/population/simulation times (ms), the coverage (%) of every biome,
+ * the number of entities spawned per spawnable type, and the ticks (and game seconds) until
+ * the player reached EVOLUTION_POINTS_FOR_PORTAL with random input (-1 if not within N ticks).
+ */
+public class SeedSweep {
+
+    private static final long DEFAULT_TICK_LIMIT = 6000; // 10 minutes of game time
+
+    /**
+     * Statistics of one simulated seed.
+     */
+    private static final class SeedResult {
+        long seed;
+        double mapMillis;
+        double populationMillis;
+        double simulationMillis;
+        int[] biomeTiles = new int[TileType.values().length];
+        int totalTiles;
+        Map<String, Integer> spawnCounts;
+        long ticksToPortal = -1;
+        String error;
+    }
+
+    public static void main(String[] args) throws Exception {
+        System.setProperty("java.awt.headless", "true");
+        if (args.length < 3) {
+            System.err.println("Usage: SeedSweep <level.json | level number> <firstSeed> <lastSeed> [--ticks N] [--threads K] [--out file.csv]");
+            System.exit(2);
+            return;
+        }
+        String level = args[0];
+        long firstSeed = Long.parseLong(args[1]);
+        long lastSeed = Long.parseLong(args[2]);
+        long tickLimit = DEFAULT_TICK_LIMIT;
+        int threads = Runtime.getRuntime().availableProcessors();
+        Path output = Path.of("seed-sweep.csv");
+        for (int i = 3; i < args.length; i++) {
+            switch (args[i]) {
+                case "--ticks":   tickLimit = Long.parseLong(args[++i]); break;
+                case "--threads": threads = Integer.parseInt(args[++i]); break;
+                case "--out":     output = Path.of(args[++i]); break;
+                default:
+                    System.err.println("Unknown argument: " + args[i]);
+                    System.exit(2);
+                    return;
+            }
+        }
+        if (lastSeed < firstSeed) {
+            System.err.println("lastSeed must not be smaller than firstSeed.");
+            System.exit(2);
+            return;
+        }
+
+        String json = readLevelJson(level);
+        LevelLoader levelLoader = new LevelLoader(); // Gson is thread-safe, one loader serves every task
+        LevelConfig template = levelLoader.loadLevelFromJson(json, level);
+        if (template == null) {
+            System.exit(1);
+            return;
+        }
+        List<String> spawnTypes = collectSpawnTypes(template);
+
+        // The game logs every created entity; with many worlds in parallel that is only noise.
+        PrintStream originalOut = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+
+        List<SeedResult> results;
+        long start = System.nanoTime();
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            List<ForkJoinTask<SeedResult>> tasks = new ArrayList<>();
+            for (long seed = firstSeed; seed <= lastSeed; seed++) {
+                final long taskSeed = seed;
+                final long taskTickLimit = tickLimit;
+                tasks.add(pool.submit(() -> simulateSeed(levelLoader, json, level, taskSeed, taskTickLimit)));
+            }
+            results = new ArrayList<>(tasks.size());
+            for (ForkJoinTask<SeedResult> task : tasks) {
+                results.add(task.join()); // Joined in seed order, so the CSV is sorted
+            }
+        } finally {
+            pool.shutdown();
+            System.setOut(originalOut);
+        }
+        double elapsedSeconds = (System.nanoTime() - start) / 1e9;
+
+        writeCsv(output, results, spawnTypes);
+        System.out.printf(Locale.ROOT, "%d seeds on %d threads in %.2f s (%.2f seeds/s) -> %s%n",
+                results.size(), threads, elapsedSeconds, results.size() / elapsedSeconds, output);
+    }
+
+    /**
+     * Reads the level JSON from a file path, or from assets/levels/level-N.json when given a number.
+     */
+    private static String readLevelJson(String level) throws IOException {
+        if (level.matches("\\d+")) {
+            String resource = "assets/levels/level-" + level + ".json";
+            try (InputStream in = SeedSweep.class.getClassLoader().getResourceAsStream(resource)) {
+                if (in == null) {
+                    throw new IOException("Resource not found: " + resource);
+                }
+                return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+            }
+        }
+        return Files.readString(Path.of(level), StandardCharsets.UTF_8);
+    }
+
+    private static List<String> collectSpawnTypes(LevelConfig config) {
+        Set<String> types = new LinkedHashSet<>();
+        if (config.biomeRules != null) {
+            for (BiomeRuleConfig rule : config.biomeRules) {
+                if (rule.spawnables == null) continue;
+                for (SpawnableConfig spawnable : rule.spawnables) {
+                    types.add(spawnable.type);
+                }
+            }
+        }
+        return new ArrayList<>(types);
+    }
+
+    /**
+     * Generates, populates and simulates one seed in its own World.
+     */
+    private static SeedResult simulateSeed(LevelLoader levelLoader, String json, String sourceName, long seed, long tickLimit) {
+        SeedResult result = new SeedResult();
+        result.seed = seed;
+        try {
+            LevelConfig config = levelLoader.loadLevelFromJson(json, sourceName);
+            config.proceduralSeed = seed;
+
+            HeadlessSimulation simulation = new HeadlessSimulation(config); // Seeds its AISystem from config.proceduralSeed
+            simulation.setInputSource(HeadlessSimulation.randomInput(seed));
+            result.mapMillis = simulation.getMapNanos() / 1e6;
+            result.populationMillis = simulation.getPopulationNanos() / 1e6;
+            result.spawnCounts = simulation.getSpawnCounts();
+
+            GameMap map = simulation.getGameMap();
+            for (int r = 0; r < map.getHeightInTiles(); r++) {
+                int index = map.indexOf(r, 0);
+                for (int c = 0; c < map.getWidthInTiles(); c++) {
+                    result.biomeTiles[map.getTileAt(index + c).ordinal()]++;
+                }
+            }
+            result.totalTiles = map.getHeightInTiles() * map.getWidthInTiles();
+
+            // The portal appears the moment the player reaches EVOLUTION_POINTS_FOR_PORTAL.
+            long simulationStart = System.nanoTime();
+            while (simulation.getPortalTick() < 0 && simulation.getTicks() < tickLimit) {
+                if (simulation.tick() != null) {
+                    break;
+                }
+            }
+            result.simulationMillis = (System.nanoTime() - simulationStart) / 1e6;
+            result.ticksToPortal = simulation.getPortalTick();
+        } catch (RuntimeException e) {
+            result.error = e.toString();
+        }
+        return result;
+    }
+
+    private static void writeCsv(Path output, List<SeedResult> results, List<String> spawnTypes) throws IOException {
+        TileType[] biomes = TileType.values();
+        try (PrintWriter out = new PrintWriter(Files.newBufferedWriter(output, StandardCharsets.UTF_8))) {
+            StringBuilder header = new StringBuilder("seed,map_ms,population_ms,simulation_ms");
+            for (TileType biome : biomes) {
+                header.append(",pct_").append(biome.name());
+            }
+            for (String type : spawnTypes) {
+                header.append(",spawned_").append(type);
+            }
+            header.append(",ticks_to_portal,seconds_to_portal,error");
+            out.println(header);
+
+            for (SeedResult r : results) {
+                StringBuilder line = new StringBuilder();
+                line.append(r.seed)
+                        .append(',').append(format(r.mapMillis))
+                        .append(',').append(format(r.populationMillis))
+                        .append(',').append(format(r.simulationMillis));
+                for (int i = 0; i < biomes.length; i++) {
+                    line.append(',').append(format(r.totalTiles == 0 ? 0 : 100.0 * r.biomeTiles[i] / r.totalTiles));
+                }
+                for (String type : spawnTypes) {
+                    line.append(',').append(r.spawnCounts == null ? 0 : r.spawnCounts.getOrDefault(type, 0));
+                }
+                line.append(',').append(r.ticksToPortal)
+                        .append(',').append(r.ticksToPortal < 0 ? "-1" : format(r.ticksToPortal * GameConstants.GAME_LOOP_DELAY_MS / 1000.0))
+                        .append(',').append(r.error == null ? "" : '"' + r.error.replace("\"", "'") + '"');
+                out.println(line);
+            }
+        }
+    }
+
+    private static String format(double value) {
+        return String.format(Locale.ROOT, "%.2f", value);
+    }
+}
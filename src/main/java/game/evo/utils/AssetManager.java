@@ -2,23 +2,54 @@ package game.evo.utils;
 
 import javax.swing.ImageIcon;
 import java.awt.Image;
-import java.util.HashMap;
+import java.awt.image.BufferedImage;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.Set;
 
 /**
  * Manages game assets, primarily images.
  * Uses the Singleton pattern and caches assets to improve performance.
+ *
+ * The cache is bounded: every entry is charged its pixel memory (width * height * bytes per
+ * pixel) and, once the total passes the budget (GameConstants.ASSET_CACHE_BUDGET_BYTES), the
+ * least recently used entries are evicted. Images loaded from resources are keyed by path;
+ * generated images use any key with value semantics, e.g. a SpriteKey, which covers every gene
+ * of a procedural sprite. All methods are thread-safe.
  */
 public class AssetManager {
 
     private static AssetManager instance;
-    private final Map<String, Image> imageCache;
+
+    private record Entry(Image image, long bytes) {}
+
+    /**
+     * A snapshot of the cache counters.
+     */
+    public record CacheStats(long hits, long misses, long evictions, int entries, long usedBytes, long budgetBytes) {
+        @Override
+        public String toString() {
+            return String.format("%d entries, %.1f / %.1f MB, %d hits, %d misses, %d evictions",
+                    entries, usedBytes / 1048576.0, budgetBytes / 1048576.0, hits, misses, evictions);
+        }
+    }
+
+    private final Object lock = new Object();
+    private final LinkedHashMap<Object, Entry> imageCache = new LinkedHashMap<>(64, 0.75f, true); // Access order = LRU
+    private final Set<String> missingResources = new HashSet<>(); // Paths that failed to load, not retried
+    private long budgetBytes;
+    private long usedBytes;
+    private long hits;
+    private long misses;
+    private long evictions;
 
     private AssetManager() {
-        imageCache = new HashMap<>();
+        budgetBytes = GameConstants.ASSET_CACHE_BUDGET_BYTES;
     }
 
-    public static AssetManager getInstance() {
+    public static synchronized AssetManager getInstance() {
         if (instance == null) {
             instance = new AssetManager();
         }
@@ -27,12 +58,49 @@ public class AssetManager {
 
     /**
      * Adds a pre-generated image (like a procedural sprite) directly to the cache.
-     * @param key The unique key for this image in the cache.
+     * @param key The unique key for this image in the cache (a String or a value object such as SpriteKey).
      * @param image The Image instance to store.
      */
-    public void cacheImage(String key, Image image) {
-        if (key != null && !key.isEmpty() && image != null) {
-            imageCache.put(key, image);
+    public void cacheImage(Object key, Image image) {
+        if (key == null || (key instanceof String s && s.isEmpty()) || image == null) {
+            return;
+        }
+        long bytes = estimateBytes(image);
+        synchronized (lock) {
+            Entry previous = imageCache.put(key, new Entry(image, bytes));
+            if (previous != null) {
+                usedBytes -= previous.bytes();
+            }
+            usedBytes += bytes;
+            evictToBudget();
+        }
+    }
+
+    /**
+     * @return A cached image, or null if it was never cached or has been evicted. Counts a hit or a miss.
+     */
+    public Image getCachedImage(Object key) {
+        if (key == null) {
+            return null;
+        }
+        synchronized (lock) {
+            Entry entry = imageCache.get(key);
+            if (entry != null) {
+                hits++;
+                return entry.image();
+            }
+            misses++;
+            return null;
+        }
+    }
+
+    /**
+     * @return true if an image is cached under the key. Unlike getCachedImage, neither marks it as
+     * recently used nor counts a hit or a miss.
+     */
+    public boolean isCached(Object key) {
+        synchronized (lock) {
+            return key != null && imageCache.containsKey(key);
         }
     }
 
@@ -46,17 +114,18 @@ public class AssetManager {
             return null;
         }
 
-        // 1. Check the cache first.
-        if (imageCache.containsKey(pathOrKey)) {
-            return imageCache.get(pathOrKey);
+        // 1. Check the cache first (and the resources known to be missing).
+        Image cached = getCachedImage(pathOrKey);
+        if (cached != null) {
+            return cached;
         }
-
-        // 2. Handle procedural keys.
-        if (pathOrKey.startsWith("proc_")) {
-            return null;
+        synchronized (lock) {
+            if (missingResources.contains(pathOrKey)) {
+                return null;
+            }
         }
 
-        // 3. Load from resources using the pathOrKey directly.
+        // 2. Load from resources using the pathOrKey directly.
         try {
             // REMOVIDA A CONCATENAÇÃO com GameConstants.ASSETS_PATH
             // Usa-se pathOrKey diretamente, pois ele já contém o caminho completo.
@@ -64,28 +133,74 @@ public class AssetManager {
 
             if (imageUrl == null) {
                 System.err.println("[ERROR AssetManager] Recurso não encontrado: " + pathOrKey);
-                imageCache.put(pathOrKey, null); // Cache the failure
+                markMissing(pathOrKey); // Cache the failure
                 return null;
             }
 
             ImageIcon icon = new ImageIcon(imageUrl);
-            
+
             // A verificação de status de carregamento continua sendo uma boa prática
             if (icon.getImageLoadStatus() != java.awt.MediaTracker.COMPLETE || icon.getIconWidth() <= 0) {
                  System.err.println("[ERROR AssetManager] Falha ao carregar a imagem do recurso: " + pathOrKey);
-                 imageCache.put(pathOrKey, null);
+                 markMissing(pathOrKey);
                  return null;
             }
 
             Image image = icon.getImage();
-            imageCache.put(pathOrKey, image); // Add to cache
+            cacheImage(pathOrKey, image); // Add to cache
             System.out.println("[INFO AssetManager] Imagem carregada e cacheada: " + pathOrKey);
             return image;
 
         } catch (Exception e) {
             System.err.println("[ERROR AssetManager] Exceção ao carregar o arquivo " + pathOrKey + ": " + e.getMessage());
-            imageCache.put(pathOrKey, null);
+            markMissing(pathOrKey);
             return null;
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Changes the memory budget, evicting right away if the cache is now over it.
+     */
+    public void setBudgetBytes(long budgetBytes) {
+        synchronized (lock) {
+            this.budgetBytes = Math.max(0, budgetBytes);
+            evictToBudget();
+        }
+    }
+
+    public CacheStats getStats() {
+        synchronized (lock) {
+            return new CacheStats(hits, misses, evictions, imageCache.size(), usedBytes, budgetBytes);
+        }
+    }
+
+    private void markMissing(String path) {
+        synchronized (lock) {
+            missingResources.add(path);
+        }
+    }
+
+    /**
+     * Drops least recently used entries until the cache fits the budget. Caller holds the lock.
+     */
+    private void evictToBudget() {
+        Iterator<Entry> eldest = imageCache.values().iterator();
+        while (usedBytes > budgetBytes && eldest.hasNext()) {
+            usedBytes -= eldest.next().bytes();
+            eldest.remove();
+            evictions++;
+        }
+    }
+
+    /**
+     * Memory held by an image's pixels. Images that are not BufferedImages (loaded through
+     * ImageIcon) are counted as 4 bytes per pixel.
+     */
+    static long estimateBytes(Image image) {
+        if (image instanceof BufferedImage buffered) {
+            int bitsPerPixel = buffered.getColorModel().getPixelSize();
+            return (long) buffered.getWidth() * buffered.getHeight() * ((bitsPerPixel + 7) / 8);
+        }
+        return (long) Math.max(0, image.getWidth(null)) * Math.max(0, image.getHeight(null)) * 4;
+    }
+}
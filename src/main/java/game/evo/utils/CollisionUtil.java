@@ -27,11 +27,7 @@ public final class CollisionUtil {
      */
     public static boolean isPositionOpen(World world, GameMap gameMap, int targetRow, int targetCol, Entity movingEntity) {
         // 1. Check terrain walkability
-        TileType targetTileType = gameMap.getLogicalTileType(targetRow, targetCol);
-        if (targetTileType == null || !targetTileType.isWalkable) {
-            if (World.MODO_VERBOSE_WORLD) {
-                System.out.println("[DEBUG Collision] Move to (" + targetRow + "," + targetCol + ") blocked by terrain: " + targetTileType);
-            }
+        if (!isTerrainWalkable(gameMap, targetRow, targetCol)) {
             return false;
         }
 
@@ -55,4 +51,36 @@ public final class CollisionUtil {
         // If all checks pass, the position is open
         return true;
     }
-}
\ No newline at end of file
+
+    /**
+     * Same check as {@link #isPositionOpen(World, GameMap, int, int, Entity)}, but looks solid
+     * entities up in a Z-ordered index (binary search) instead of scanning all of them.
+     * The index must be kept current by the caller (see {@link ZOrderIndex#moved(Entity)}).
+     * @param colliders A ZOrderIndex over the entities with a CollisionComponent.
+     */
+    public static boolean isPositionOpen(GameMap gameMap, ZOrderIndex colliders, int targetRow, int targetCol, Entity movingEntity) {
+        if (!isTerrainWalkable(gameMap, targetRow, targetCol)) {
+            return false;
+        }
+
+        Entity blocker = colliders.findAt(targetRow, targetCol, movingEntity);
+        if (blocker != null) {
+            if (World.MODO_VERBOSE_WORLD) {
+                System.out.println("[DEBUG Collision] Move to (" + targetRow + "," + targetCol + ") blocked by entity: " + blocker);
+            }
+            return false;
+        }
+        return true;
+    }
+
+    private static boolean isTerrainWalkable(GameMap gameMap, int targetRow, int targetCol) {
+        TileType targetTileType = gameMap.getLogicalTileType(targetRow, targetCol);
+        if (targetTileType == null || !targetTileType.isWalkable) {
+            if (World.MODO_VERBOSE_WORLD) {
+                System.out.println("[DEBUG Collision] Move to (" + targetRow + "," + targetCol + ") blocked by terrain: " + targetTileType);
+            }
+            return false;
+        }
+        return true;
+    }
+}
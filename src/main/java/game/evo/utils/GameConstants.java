@@ -28,10 +28,17 @@ public final class GameConstants {
 
     // Game Loop
     public static final int GAME_LOOP_DELAY_MS = 100;
+    // Renderização ativa: um Canvas com BufferStrategy desenhado por uma thread própria (false = GamePanel.repaint() a cada tick)
+    public static boolean ACTIVE_RENDERING_ENABLED = true;
+    public static int ACTIVE_RENDER_TARGET_FPS = 60; // Frames por segundo da renderização ativa
 
     // Caminho para os Assets (recursos como imagens, sons)
     // O caminho começa a partir da raiz do classpath (que em projetos Maven é tipicamente 'src/main/resources')
     public static final String ASSETS_PATH = "assets/imgs/";
+    // Memória máxima (em bytes de pixels) das imagens no cache do AssetManager; as menos usadas saem primeiro
+    public static long ASSET_CACHE_BUDGET_BYTES = 64L * 1024 * 1024;
+    // Guarda em cache/ as folhas de sprites de cada nível já geradas, para que o próximo início não gere nenhuma
+    public static boolean SPRITE_DISK_CACHE_ENABLED = true;
 
     public static boolean DEBUG_MODE_ON = false; // Por padrão, desligado
     
@@ -39,5 +46,24 @@ public final class GameConstants {
     public static final int EVOLUTION_POINTS_FOR_PORTAL = 30; // Pontos necessários para o portal aparecer
     public static final int MAX_LEVELS = 5;
     
-    public static boolean MAP_BLENDING_ENABLED = false;
+    // Ruído do mapa com a Vector API (OpenSimplexNoise.isVectorized), quando compilado com o perfil "vector" e rodando com --add-modules jdk.incubator.vector
+    public static boolean VECTOR_NOISE_ENABLED = true;
+    public static boolean MAP_BLENDING_ENABLED = true; // Suaviza as bordas entre biomas na imagem pré-renderizada do mapa
+    // Desenha o terreno tile a tile a partir de um atlas (TerrainRenderer) em vez de uma imagem pré-renderizada do mapa
+    public static boolean TILE_ATLAS_RENDERING_ENABLED = true;
+    // Cenário estático (árvores, rochas, corais...) composto uma vez em blocos do terreno (TerrainChunks) em vez de desenhado como entidade
+    public static boolean STATIC_SCENERY_BAKING_ENABLED = true;
+    public static final int TERRAIN_CHUNK_CACHE_SIZE = 48; // Blocos de terreno (4x4 tiles) mantidos desenhados na memória; os menos usados saem
+
+    // --- AI ---
+    public static boolean AI_SPATIAL_ORDERING_ENABLED = true; // Itera NPCs e colisões em ordem Z (Morton)
+    public static final int AI_BATCH_REBUILD_INTERVAL_TICKS = 50; // Reagrupa os lotes de IA na ordem Z atual (~5 s)
+    public static final float INFLUENCE_DECAY_PER_TICK = 0.9f; // Fração de um rastro de influência mantida a cada tick
+
+    // --- Respawn ---
+    public static boolean RESPAWN_ENABLED = true; // Repõe comida e NPCs consumidos até a densidade do nível
+    public static final int RESPAWN_INTERVAL_TICKS = 20; // Ticks entre duas rodadas de reposição (~2 s)
+    public static final int RESPAWN_MAX_PER_ROUND = 3; // Entidades criadas no máximo por rodada
+    public static final int RESPAWN_ATTEMPTS_PER_SPAWN = 8; // Tiles livres sorteados por tipo antes de desistir na rodada
+    public static final int RESPAWN_VIEW_MARGIN_TILES = 2; // Folga em volta da tela onde nada é criado
 }
@@ -1,5 +1,8 @@
 package game.evo.utils;
 
+import java.lang.reflect.Constructor;
+import java.util.Arrays;
+
 /**
  * OpenSimplex Noise in Java.
  * by Kurt Spencer
@@ -22,8 +25,24 @@ public class OpenSimplexNoise {
 
 	private static final long DEFAULT_SEED = 0;
 
+	// VectorNoiseKernel, compiled only by the "vector" Maven profile; null when it or the
+	// jdk.incubator.vector module is missing at runtime, or the CPU's vectors are too narrow.
+	private static final Constructor<?> VECTOR_KERNEL = findVectorKernel();
+
 	private short[] perm;
 	private short[] permGradIndex3D;
+	private OctaveKernel octaveKernel; // Created on first use, if VECTOR_KERNEL exists
+
+	/**
+	 * One octave of fractalRow over a run of points: adds eval(x * frequency / scale, yy) * amplitude
+	 * to out[offset + i] for x = startX + i, bit-for-bit like the scalar loop.
+	 */
+	interface OctaveKernel {
+		/**
+		 * @return How many points, from the start of the run, were done; fractalRow does the rest.
+		 */
+		int addOctave(double[] out, int offset, int startX, int count, double yy, double frequency, double scale, double amplitude);
+	}
 
 	public OpenSimplexNoise() {
 		this(DEFAULT_SEED);
@@ -177,6 +196,87 @@ public class OpenSimplexNoise {
 		return value / NORM_CONSTANT_2D;
 	}
 
+	/**
+	 * Fills out[offset .. offset+count) with fractal (multi-octave) noise for the integer
+	 * points (startX + i, y). Per point the result is bit-for-bit the same as summing
+	 * eval(x * frequency / scale, y * frequency / scale) * amplitude over the octaves and
+	 * dividing by the sum of the amplitudes: the octave factors and the y coordinate are
+	 * computed once per row instead of once per point, and octaves run in the outer loop
+	 * so each pass keeps a single octave's coordinates in registers.
+	 *
+	 * When isVectorized(), each octave runs several points at a time on the Vector API
+	 * (VectorNoiseKernel), with the same results; the scalar loop does the remainder.
+	 */
+	public void fractalRow(double[] out, int offset, int startX, int y, int count,
+			int octaves, double lacunarity, double persistence, double scale) {
+		Arrays.fill(out, offset, offset + count, 0.0);
+		OctaveKernel kernel = isVectorized() ? octaveKernel() : null;
+		double frequency = 1, amplitude = 1, maxValue = 0;
+		for (int o = 0; o < octaves; o++) {
+			double yy = y * frequency / scale;
+			int done = kernel != null ? kernel.addOctave(out, offset, startX, count, yy, frequency, scale, amplitude) : 0;
+			for (int i = done; i < count; i++) {
+				double x = startX + i;
+				out[offset + i] += eval(x * frequency / scale, yy) * amplitude;
+			}
+			maxValue += amplitude;
+			amplitude *= persistence;
+			frequency *= lacunarity;
+		}
+		for (int i = 0; i < count; i++) {
+			out[offset + i] /= maxValue;
+		}
+	}
+
+	/**
+	 * Fills out (row-major, width x height) with fractal noise for the block of integer
+	 * points starting at (startX, startY). See fractalRow.
+	 */
+	public void fractalBlock(double[] out, int startX, int startY, int width, int height,
+			int octaves, double lacunarity, double persistence, double scale) {
+		for (int r = 0; r < height; r++) {
+			fractalRow(out, r * width, startX, startY + r, width, octaves, lacunarity, persistence, scale);
+		}
+	}
+
+	/**
+	 * @return true if fractalRow uses the Vector API kernel: the build included it (Maven profile
+	 * "vector"), the JVM runs with --add-modules jdk.incubator.vector and
+	 * GameConstants.VECTOR_NOISE_ENABLED is set.
+	 */
+	public static boolean isVectorized() {
+		return VECTOR_KERNEL != null && GameConstants.VECTOR_NOISE_ENABLED;
+	}
+
+	// Races only create the same immutable kernel twice.
+	private OctaveKernel octaveKernel() {
+		OctaveKernel kernel = octaveKernel;
+		if (kernel == null) {
+			try {
+				kernel = (OctaveKernel) VECTOR_KERNEL.newInstance(perm, gradients2D);
+			} catch (ReflectiveOperationException e) {
+				throw new IllegalStateException("Could not create the vector noise kernel", e);
+			}
+			octaveKernel = kernel;
+		}
+		return kernel;
+	}
+
+	private static Constructor<?> findVectorKernel() {
+		if (ModuleLayer.boot().findModule("jdk.incubator.vector").isEmpty()) {
+			return null;
+		}
+		try {
+			Class<?> kernel = Class.forName("game.evo.utils.VectorNoiseKernel");
+			if (!(Boolean) kernel.getDeclaredMethod("isSupported").invoke(null)) {
+				return null;
+			}
+			return kernel.getDeclaredConstructor(short[].class, byte[].class);
+		} catch (ReflectiveOperationException | LinkageError e) {
+			return null; // Built without the "vector" profile
+		}
+	}
+
 	private double extrapolate(int xsb, int ysb, double dx, double dy) {
 		int index = perm[(perm[xsb & 0xFF] + ysb) & 0xFF] & 0x0E;
 		return gradients2D[index] * dx
@@ -1,6 +1,10 @@
 package game.evo.utils;
 
 
+import game.evo.components.AiComponent;
+import game.evo.components.EcologyComponent;
+import game.evo.ecs.Entity;
+import game.evo.ecs.World;
 import game.evo.state.GameState;
 import java.io.*;
 import java.nio.file.Files;
@@ -74,6 +78,9 @@ public class SaveManager {
 
         try (ObjectInputStream ois = new ObjectInputStream(new FileInputStream(filePath.toFile()))) {
             GameState loadedState = (GameState) ois.readObject();
+            if (loadedState.version < 1) {
+                upgradeBehaviors(loadedState.world);
+            }
             System.out.println("[INFO SaveManager] Game state loaded successfully from: " + filename);
             return loadedState;
         } catch (IOException | ClassNotFoundException e) {
@@ -83,6 +90,20 @@ public class SaveManager {
         }
     }
 
+    /**
+     * Saves from before GameState.version gave every NPC WANDER_RANDOM and let the AI pick the
+     * behavior from the temperament. Stores that behavior explicitly, as EntityFactory does now.
+     */
+    private void upgradeBehaviors(World world) {
+        for (Entity npc : world.getEntitiesWithComponent(AiComponent.class)) {
+            AiComponent ai = world.getComponent(npc, AiComponent.class);
+            EcologyComponent ecology = world.getComponent(npc, EcologyComponent.class);
+            if (ai.behavior == AiComponent.BehaviorType.WANDER_RANDOM && ecology != null) {
+                ai.behavior = AiComponent.BehaviorType.forTemperament(ecology.temperament);
+            }
+        }
+    }
+
     /**
      * Scans the save directory and returns a list of all available save file names.
      * @return A list of strings containing the names of the save files.
@@ -0,0 +1,31 @@
+package game.evo.utils;
+
+import java.util.function.LongSupplier;
+
+/**
+ * A manually advanced millisecond clock.
+ * Systems that time actions with System.currentTimeMillis() can use it instead, so a
+ * simulation can run many ticks per real second while each tick still "lasts"
+ * GAME_LOOP_DELAY_MS for the game rules.
+ */
+public class SimulationClock implements LongSupplier {
+
+    private long nowMillis;
+
+    /**
+     * @param startMillis The initial reading, usually System.currentTimeMillis() so that
+     *                    timestamps already stored in components stay consistent.
+     */
+    public SimulationClock(long startMillis) {
+        this.nowMillis = startMillis;
+    }
+
+    public void advance(long millis) {
+        nowMillis += millis;
+    }
+
+    @Override
+    public long getAsLong() {
+        return nowMillis;
+    }
+}
@@ -11,8 +11,27 @@ import java.util.Random;
 /**
  * A utility class to procedurally generate sprites based on a configuration. It
  * is now also the authority for calculating sprite dimensions.
+ *
+ * Creatures (FINNED_AQUATIC, BIPED_TERRESTRIAL) are painted with only three colors: the primary
+ * color, its shade (primaryColor.darker(), for outlines, tails and fins) and the secondary color.
+ * Their shape depends on the seed and size alone, so it is rasterized once as a tint mask, where
+ * the red, green and blue channels hold how much of each of the three colors covers the pixel
+ * (premultiplied by its alpha), and every color variant of that shape is obtained with tint(),
+ * a per-pixel weighted sum. Anything drawn from the mask with linear operations (the rotated and
+ * stretched frames of the SpriteAtlas) can be tinted afterwards just the same.
  */
 public class SpriteGenerator {
+
+    /**
+     * Increment whenever a change makes generate() draw different pixels for the same genes, so
+     * sprite sheets cached on disk (SpriteCacheFile) are rebuilt.
+     */
+    public static final int VERSION = 3;
+
+    // Colors the tint masks are painted with: one channel per color region.
+    private static final Color MASK_PRIMARY = new Color(255, 0, 0);
+    private static final Color MASK_SHADE = new Color(0, 255, 0);
+    private static final Color MASK_SECONDARY = new Color(0, 0, 255);
     
     private static final int PROPORTION = GameConstants.CELL_SIZE - 50;
 
@@ -80,6 +99,14 @@ public class SpriteGenerator {
         }
     }
 
+    /**
+     * @return true if sprites of this body type can be generated from a tint mask (see generateMask).
+     */
+    public static boolean isTintable(ProceduralSpriteComponent.BodyType bodyType) {
+        return bodyType == ProceduralSpriteComponent.BodyType.FINNED_AQUATIC
+                || bodyType == ProceduralSpriteComponent.BodyType.BIPED_TERRESTRIAL;
+    }
+
     /**
      * Generates a sprite image.
      *
@@ -89,6 +116,8 @@ public class SpriteGenerator {
     /**
      * Método principal que gera a imagem do sprite. Agora ele prepara o
      * ambiente de desenho (Graphics2D) e chama o método de desenho específico.
+     * Criaturas são pintadas direto com as cores do componente; a SpriteAtlas só usa a
+     * máscara (generateMask + tint) quando uma forma aparece com mais de uma cor.
      */
     public BufferedImage generate(ProceduralSpriteComponent config) {
         int width = getWidthFor(config) + 4;  // Adiciona um pequeno preenchimento para evitar cortes
@@ -104,10 +133,10 @@ public class SpriteGenerator {
         // O "Dispatcher" que escolhe o que desenhar com base no BodyType
         switch (config.bodyType) {
             case FINNED_AQUATIC:
-                drawFinned(g2d, config);
+                drawFinned(g2d, config, config.primaryColor, config.primaryColor.darker(), config.secondaryColor);
                 break;
             case BIPED_TERRESTRIAL:
-                drawBiped(g2d, config);
+                drawBiped(g2d, config, config.primaryColor, config.primaryColor.darker(), config.secondaryColor);
                 break;
             case MEAT_CHUNK: // << ADICIONAR ESTE CASO
                 return generateMeatChunk(config);
@@ -143,6 +172,66 @@ public class SpriteGenerator {
         return image;
     }
 
+    /**
+     * Rasterizes the shape of a creature (see isTintable) as a tint mask: same size and drawing as
+     * generate(), but the primary color, its shade and the secondary color are painted as pure
+     * red, green and blue into a premultiplied image. Only the seed, size and body type matter.
+     */
+    public BufferedImage generateMask(ProceduralSpriteComponent shape) {
+        int width = getWidthFor(shape) + 4;
+        int height = getHeightFor(shape) + 4;
+        BufferedImage mask = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB_PRE);
+        Graphics2D g2d = mask.createGraphics();
+        g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        if (shape.bodyType == ProceduralSpriteComponent.BodyType.FINNED_AQUATIC) {
+            drawFinned(g2d, shape, MASK_PRIMARY, MASK_SHADE, MASK_SECONDARY);
+        } else {
+            drawBiped(g2d, shape, MASK_PRIMARY, MASK_SHADE, MASK_SECONDARY);
+        }
+        g2d.dispose();
+        return mask;
+    }
+
+    /**
+     * Paints a tint mask (or any image drawn from one) with a creature's colors.
+     * @return A premultiplied image, the same size as the mask.
+     */
+    public static BufferedImage tint(BufferedImage mask, Color primary, Color secondary) {
+        int width = mask.getWidth();
+        int height = mask.getHeight();
+        // getDataElements copies the pixels without making the mask unmanaged (unlike getData()).
+        int[] pixels = (int[]) mask.getRaster().getDataElements(0, 0, width, height, null);
+        int[] primaryPre = premultiplied(primary);
+        int[] shadePre = premultiplied(primary.darker());
+        int[] secondaryPre = premultiplied(secondary);
+        int[] channels = new int[4]; // Alpha, red, green, blue of the tinted pixel
+        for (int i = 0; i < pixels.length; i++) {
+            int m = pixels[i];
+            if (m == 0) {
+                continue;
+            }
+            int wPrimary = (m >>> 16) & 0xFF;
+            int wShade = (m >>> 8) & 0xFF;
+            int wSecondary = m & 0xFF;
+            for (int c = 0; c < 4; c++) {
+                channels[c] = (wPrimary * primaryPre[c] + wShade * shadePre[c] + wSecondary * secondaryPre[c] + 127) / 255;
+            }
+            int a = channels[0];
+            pixels[i] = (a << 24) | (Math.min(a, channels[1]) << 16) | (Math.min(a, channels[2]) << 8) | Math.min(a, channels[3]);
+        }
+        BufferedImage tinted = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB_PRE);
+        tinted.getRaster().setDataElements(0, 0, width, height, pixels);
+        return tinted;
+    }
+
+    /**
+     * @return {alpha, red, green, blue}, the color channels multiplied by alpha.
+     */
+    private static int[] premultiplied(Color color) {
+        int a = color.getAlpha();
+        return new int[]{a, (color.getRed() * a + 127) / 255, (color.getGreen() * a + 127) / 255, (color.getBlue() * a + 127) / 255};
+    }
+
     /**
      * Desenha um cacto com um corpo principal e braços.
      */
@@ -337,7 +426,7 @@ public class SpriteGenerator {
     /**
      * Desenha uma criatura bípede (top-down) com corpo, cabeça, pernas e olhos.
      */
-    private void drawBiped(Graphics2D g, ProceduralSpriteComponent psc) {
+    private void drawBiped(Graphics2D g, ProceduralSpriteComponent psc, Color primary, Color shade, Color secondary) {
         Random rand = new Random(psc.creatureSeed);
         int width = getWidthFor(psc);
         int height = getHeightFor(psc);
@@ -350,30 +439,30 @@ public class SpriteGenerator {
         int headSize = Math.max(4, (int) (bodyWidth * 0.8));
 
         // 1. Desenhar as Pernas (desenhadas primeiro para ficarem "atrás" do corpo)
-        drawLegs(g, psc.secondaryColor, centerX, centerY, bodyWidth, psc.size, rand);
+        drawLegs(g, secondary, centerX, centerY, bodyWidth, psc.size, rand);
 
         // 2. Desenhar o Corpo (um oval)
-        g.setColor(psc.primaryColor);
+        g.setColor(primary);
         g.fill(new Ellipse2D.Double(centerX - bodyWidth / 2.0, centerY - bodyHeight / 2.0, bodyWidth, bodyHeight));
         // Adiciona uma borda sutil ao corpo
-        g.setColor(psc.primaryColor.darker());
+        g.setColor(shade);
         g.draw(new Ellipse2D.Double(centerX - bodyWidth / 2.0, centerY - bodyHeight / 2.0, bodyWidth, bodyHeight));
 
         // 3. Desenhar a Cabeça (um círculo sobre o corpo)
-        g.setColor(psc.primaryColor);
+        g.setColor(primary);
         g.fill(new Ellipse2D.Double(centerX - headSize / 2.0, centerY - bodyHeight / 2.5 - headSize / 2.0, headSize, headSize));
-        g.setColor(psc.primaryColor.darker());
+        g.setColor(shade);
         g.draw(new Ellipse2D.Double(centerX - headSize / 2.0, centerY - bodyHeight / 2.5 - headSize / 2.0, headSize, headSize));
 
         // 4. Desenhar os Olhos
-        drawEyes(g, psc.secondaryColor, centerX, (int) (centerY - bodyHeight / 2.2), headSize, psc.size, rand);
+        drawEyes(g, secondary, centerX, (int) (centerY - bodyHeight / 2.2), headSize, psc.size, rand);
     }
 
     /**
      * Desenha uma criatura aquática (top-down) com corpo, cauda, barbatanas e
      * olhos.
      */
-    private void drawFinned(Graphics2D g, ProceduralSpriteComponent psc) {
+    private void drawFinned(Graphics2D g, ProceduralSpriteComponent psc, Color primary, Color shade, Color secondary) {
         Random rand = new Random(psc.creatureSeed);
         int width = getWidthFor(psc);
         int height = getHeightFor(psc);
@@ -385,19 +474,19 @@ public class SpriteGenerator {
         int bodyHeight = height;
 
         // 1. Desenhar a Cauda
-        drawTail(g, psc.primaryColor.darker(), centerX + bodyWidth / 2, centerY, bodyHeight, psc.size, rand);
+        drawTail(g, shade, centerX + bodyWidth / 2, centerY, bodyHeight, psc.size, rand);
 
         // 2. Desenhar as Barbatanas Laterais
-        drawFins(g, psc.primaryColor.darker(), centerX, centerY, bodyWidth, bodyHeight, psc.size, rand);
+        drawFins(g, shade, centerX, centerY, bodyWidth, bodyHeight, psc.size, rand);
 
         // 3. Desenhar o Corpo principal
-        g.setColor(psc.primaryColor);
+        g.setColor(primary);
         g.fill(new Ellipse2D.Double(centerX - bodyWidth / 2.0, centerY - bodyHeight / 2.0, bodyWidth, bodyHeight));
-        g.setColor(psc.primaryColor.darker());
+        g.setColor(shade);
         g.draw(new Ellipse2D.Double(centerX - bodyWidth / 2.0, centerY - bodyHeight / 2.0, bodyWidth, bodyHeight));
 
         // 4. Desenhar os Olhos
-        drawEyes(g, psc.secondaryColor, (int) (centerX - bodyWidth * 0.3), centerY, bodyWidth, psc.size, rand);
+        drawEyes(g, secondary, (int) (centerX - bodyWidth * 0.3), centerY, bodyWidth, psc.size, rand);
     }
 
     // --- NOVOS MÉTODOS AUXILIARES PARA DESENHAR PARTES ---
@@ -0,0 +1,57 @@
+package game.evo.utils;
+
+import game.evo.components.ProceduralSpriteComponent;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Everything that determines how a procedural sprite looks: two components with the same key
+ * produce the same image, so they can share one baked entry in the SpriteAtlas.
+ *
+ * @param animated Whether the sprite is baked with its 4 facing rotations and squash/stretch
+ *                 phases (creatures) or as a single still frame (scenery, food, portals).
+ */
+public record SpriteKey(long seed, int size, ProceduralSpriteComponent.BodyType bodyType,
+                        int primaryRgb, int secondaryRgb, boolean animated) {
+
+    public static SpriteKey of(ProceduralSpriteComponent psc, boolean animated) {
+        return new SpriteKey(psc.creatureSeed, psc.size, psc.bodyType,
+                psc.primaryColor == null ? 0 : psc.primaryColor.getRGB(),
+                psc.secondaryColor == null ? 0 : psc.secondaryColor.getRGB(),
+                animated);
+    }
+
+    /**
+     * The part of a key that determines the shape alone, for sprites generated from a tint mask
+     * (SpriteGenerator.isTintable): every color variant of a shape shares its mask.
+     */
+    public record Shape(long seed, int size, ProceduralSpriteComponent.BodyType bodyType, boolean animated) {}
+
+    public Shape shape() {
+        return new Shape(seed, size, bodyType, animated);
+    }
+
+    /**
+     * Hash (FNV-1a, 64 bits) of every gene, the same on every run and JVM (unlike hashCode, the
+     * body type is hashed by name), so it can identify a sprite in a file on disk.
+     */
+    public long stableHash() {
+        long hash = 0xcbf29ce484222325L;
+        hash = mix(hash, seed);
+        hash = mix(hash, size);
+        for (byte b : (bodyType == null ? "" : bodyType.name()).getBytes(StandardCharsets.UTF_8)) {
+            hash = (hash ^ (b & 0xFF)) * 0x100000001b3L;
+        }
+        hash = mix(hash, primaryRgb);
+        hash = mix(hash, secondaryRgb);
+        return mix(hash, animated ? 1 : 0);
+    }
+
+    private static long mix(long hash, long value) {
+        for (int i = 0; i < 8; i++) {
+            hash ^= (value >>> (i * 8)) & 0xFF;
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+}
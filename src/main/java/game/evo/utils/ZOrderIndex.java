@@ -0,0 +1,231 @@
+package game.evo.utils;
+
+import game.evo.components.PositionComponent;
+import game.evo.ecs.Component;
+import game.evo.ecs.Entity;
+import game.evo.ecs.World;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Keeps a group of entities sorted by the Morton (Z-order) code of their PositionComponent.
+ * Iterating in this order visits entities that are close on the map one after the other,
+ * and the sorted keys turn "who is at (row, col)?" into a binary search.
+ * Because entities move at most one tile per tick, the order is maintained incrementally:
+ * refresh() re-sorts an almost sorted array with insertion sort, and moved() re-positions
+ * a single entity right after it changes tile.
+ */
+public class ZOrderIndex {
+
+    private static final int INITIAL_CAPACITY = 64;
+
+    private final Class<? extends Component> membershipType;
+    private Entity[] entities = new Entity[INITIAL_CAPACITY];
+    private PositionComponent[] positions = new PositionComponent[INITIAL_CAPACITY];
+    private int[] keys = new int[INITIAL_CAPACITY];
+    private int size = 0;
+
+    private final Map<Entity, Integer> slotOf = new HashMap<>();
+    private int syncedMembershipVersion = -1;
+    private int syncedPositionVersion = -1;
+
+    /**
+     * @param membershipType Entities holding this component (and a PositionComponent) are members of the index.
+     */
+    public ZOrderIndex(Class<? extends Component> membershipType) {
+        this.membershipType = membershipType;
+    }
+
+    /**
+     * Interleaves the bits of row and column (16 bits each) into a Morton code.
+     * Coordinates outside 0..65535 are clamped.
+     */
+    public static int mortonKey(int row, int column) {
+        return (spreadBits(clamp(row)) << 1) | spreadBits(clamp(column));
+    }
+
+    private static int clamp(int value) {
+        return Math.max(0, Math.min(0xFFFF, value));
+    }
+
+    private static int spreadBits(int v) {
+        v = (v | (v << 8)) & 0x00FF00FF;
+        v = (v | (v << 4)) & 0x0F0F0F0F;
+        v = (v | (v << 2)) & 0x33333333;
+        v = (v | (v << 1)) & 0x55555555;
+        return v;
+    }
+
+    /**
+     * Adds new members and drops removed ones. Does nothing if the membership
+     * components did not change since the last call.
+     */
+    public void sync(World world) {
+        int membershipVersion = world.getComponentVersion(membershipType);
+        int positionVersion = world.getComponentVersion(PositionComponent.class);
+        if (membershipVersion == syncedMembershipVersion && positionVersion == syncedPositionVersion) {
+            return;
+        }
+        syncedMembershipVersion = membershipVersion;
+        syncedPositionVersion = positionVersion;
+
+        Set<Entity> members = world.getEntitiesWithComponent(membershipType);
+        members.retainAll(world.getEntitiesWithComponent(PositionComponent.class));
+
+        // Compact the surviving members in place, keeping their relative order.
+        int kept = 0;
+        for (int i = 0; i < size; i++) {
+            Entity entity = entities[i];
+            if (members.remove(entity)) {
+                entities[kept] = entity;
+                positions[kept] = world.getComponent(entity, PositionComponent.class);
+                keys[kept] = keys[i];
+                kept++;
+            }
+        }
+        Arrays.fill(entities, kept, size, null);
+        Arrays.fill(positions, kept, size, null);
+        size = kept;
+
+        // Whatever is left in 'members' is new.
+        for (Entity entity : members) {
+            ensureCapacity(size + 1);
+            PositionComponent pos = world.getComponent(entity, PositionComponent.class);
+            entities[size] = entity;
+            positions[size] = pos;
+            keys[size] = mortonKey(pos.row, pos.column);
+            size++;
+        }
+
+        rebuildSlots();
+        refresh();
+    }
+
+    /**
+     * Recomputes every key from the live positions and restores the order.
+     * Insertion sort is linear on nearly sorted input, which is the common case from tick to tick.
+     */
+    public void refresh() {
+        for (int i = 0; i < size; i++) {
+            keys[i] = mortonKey(positions[i].row, positions[i].column);
+        }
+        for (int i = 1; i < size; i++) {
+            if (keys[i - 1] > keys[i]) {
+                siftDown(i);
+            }
+        }
+    }
+
+    /**
+     * Re-positions one entity after it changed tile.
+     */
+    public void moved(Entity entity) {
+        Integer slot = slotOf.get(entity);
+        if (slot == null) {
+            return;
+        }
+        int i = slot;
+        keys[i] = mortonKey(positions[i].row, positions[i].column);
+        if (i > 0 && keys[i - 1] > keys[i]) {
+            siftDown(i);
+        } else if (i + 1 < size && keys[i + 1] < keys[i]) {
+            siftUp(i);
+        }
+    }
+
+    /**
+     * Finds a member standing on the given tile.
+     * @param exclude An entity to ignore (usually the one asking), may be null.
+     * @return The first member found at (row, column), or null.
+     */
+    public Entity findAt(int row, int column, Entity exclude) {
+        int key = mortonKey(row, column);
+        int lo = 0;
+        int hi = size;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (keys[mid] < key) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        for (int i = lo; i < size && keys[i] == key; i++) {
+            PositionComponent pos = positions[i];
+            if (pos.row == row && pos.column == column && !entities[i].equals(exclude)) {
+                return entities[i];
+            }
+        }
+        return null;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public Entity entityAt(int index) {
+        return entities[index];
+    }
+
+    public PositionComponent positionAt(int index) {
+        return positions[index];
+    }
+
+    // Moves the element at i towards the front until it is in order.
+    private void siftDown(int i) {
+        Entity entity = entities[i];
+        PositionComponent pos = positions[i];
+        int key = keys[i];
+        int j = i - 1;
+        while (j >= 0 && keys[j] > key) {
+            entities[j + 1] = entities[j];
+            positions[j + 1] = positions[j];
+            keys[j + 1] = keys[j];
+            slotOf.put(entities[j + 1], j + 1);
+            j--;
+        }
+        entities[j + 1] = entity;
+        positions[j + 1] = pos;
+        keys[j + 1] = key;
+        slotOf.put(entity, j + 1);
+    }
+
+    // Moves the element at i towards the back until it is in order.
+    private void siftUp(int i) {
+        Entity entity = entities[i];
+        PositionComponent pos = positions[i];
+        int key = keys[i];
+        int j = i + 1;
+        while (j < size && keys[j] < key) {
+            entities[j - 1] = entities[j];
+            positions[j - 1] = positions[j];
+            keys[j - 1] = keys[j];
+            slotOf.put(entities[j - 1], j - 1);
+            j++;
+        }
+        entities[j - 1] = entity;
+        positions[j - 1] = pos;
+        keys[j - 1] = key;
+        slotOf.put(entity, j - 1);
+    }
+
+    private void rebuildSlots() {
+        slotOf.clear();
+        for (int i = 0; i < size; i++) {
+            slotOf.put(entities[i], i);
+        }
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity <= entities.length) {
+            return;
+        }
+        int newCapacity = Math.max(capacity, entities.length * 2);
+        entities = Arrays.copyOf(entities, newCapacity);
+        positions = Arrays.copyOf(positions, newCapacity);
+        keys = Arrays.copyOf(keys, newCapacity);
+    }
+}
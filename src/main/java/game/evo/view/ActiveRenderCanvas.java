@@ -0,0 +1,233 @@
+package game.evo.view;
+
+import game.evo.utils.GameConstants;
+import game.evo.world.GameMap;
+
+import java.awt.Canvas;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.GraphicsConfiguration;
+import java.awt.Toolkit;
+import java.awt.Transparency;
+import java.awt.image.BufferStrategy;
+import java.awt.image.VolatileImage;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Superfície de renderização ativa do GamePanel (GameConstants.ACTIVE_RENDERING_ENABLED).
+ *
+ * Instead of waiting for Swing to paint after repaint(), a dedicated thread draws frames into a
+ * BufferStrategy (page flipping or accelerated blits) at GameConstants.ACTIVE_RENDER_TARGET_FPS.
+ * The visible part of the map (terrain and static scenery) is kept in a VolatileImage and only
+ * redrawn when the camera moves, the scenery changes or the surface is lost, so a frame copies it
+ * in video memory and draws the entities on top.
+ *
+ * The game logic still runs on the Swing timer: each tick and each frame hold
+ * GamePanel.getFrameLock(), so a frame never sees the world halfway through a tick. Everything
+ * that may take the AWT tree lock (creating surfaces, showing the frame) is done outside the
+ * frame lock, because the event thread takes the two in the opposite order when a level swaps
+ * panels.
+ *
+ * Frame statistics (frames per second, time to draw a frame) are shown in the debug overlay
+ * every few seconds, and also logged when GameConstants.DEBUG_MODE_ON is set.
+ */
+final class ActiveRenderCanvas extends Canvas implements Runnable {
+
+    private static final long serialVersionUID = 1L;
+    private static final int BUFFERS = 2;
+    private static final long STATS_INTERVAL_NS = 5_000_000_000L;
+
+    private final GamePanel panel;
+    private volatile boolean running;
+
+    // Used only by the render thread.
+    private transient VolatileImage mapLayer;
+    private transient GameMap layerMap;
+    private int layerCameraX;
+    private int layerCameraY;
+    private int layerMapVersion;
+    private boolean layerDirty = true;
+    private final transient FrameStats stats = new FrameStats();
+
+    ActiveRenderCanvas(GamePanel panel) {
+        this.panel = panel;
+        setIgnoreRepaint(true); // Swing never paints this component; the render thread does
+        setBackground(Color.BLACK);
+        setFocusable(true);
+    }
+
+    @Override
+    public void addNotify() {
+        super.addNotify();
+        running = true;
+        Thread renderThread = new Thread(this, "render-loop");
+        renderThread.setDaemon(true);
+        renderThread.start();
+        System.out.println("[INFO ActiveRenderCanvas] Active rendering started (" + GameConstants.ACTIVE_RENDER_TARGET_FPS + " fps target).");
+    }
+
+    @Override
+    public void removeNotify() {
+        // Under the frame lock, so the render thread is not halfway through a frame when the
+        // peer (and with it the BufferStrategy) goes away.
+        synchronized (GamePanel.getFrameLock()) {
+            running = false;
+        }
+        super.removeNotify();
+    }
+
+    @Override
+    public void run() {
+        long frameNs = 1_000_000_000L / Math.max(1, GameConstants.ACTIVE_RENDER_TARGET_FPS);
+        long nextFrame = System.nanoTime();
+        while (running) {
+            try {
+                renderFrame();
+            } catch (IllegalStateException e) {
+                if (!running) {
+                    break; // The peer was removed while the frame was shown
+                }
+                System.err.println("[WARN ActiveRenderCanvas] Frame skipped: " + e.getMessage());
+            } catch (RuntimeException e) {
+                System.err.println("[ERROR ActiveRenderCanvas] Exception during rendering:");
+                e.printStackTrace();
+            }
+
+            nextFrame += frameNs;
+            long sleep = nextFrame - System.nanoTime();
+            if (sleep > 0) {
+                LockSupport.parkNanos(sleep);
+            } else {
+                nextFrame = System.nanoTime(); // Atrasado: não tenta recuperar os frames perdidos
+            }
+        }
+    }
+
+    private void renderFrame() {
+        int width = getWidth();
+        int height = getHeight();
+        if (!isDisplayable() || width <= 0 || height <= 0) {
+            return;
+        }
+        BufferStrategy strategy = getBufferStrategy();
+        if (strategy == null) {
+            createBufferStrategy(BUFFERS);
+            return;
+        }
+
+        long start = System.nanoTime();
+        do {
+            do {
+                prepareMapLayer(width, height);
+                Graphics2D g = (Graphics2D) strategy.getDrawGraphics();
+                try {
+                    synchronized (GamePanel.getFrameLock()) {
+                        if (!running) {
+                            return;
+                        }
+                        drawMapLayer(g, width, height);
+                        panel.drawScene(g, width, height);
+                    }
+                } finally {
+                    g.dispose();
+                }
+            } while (strategy.contentsRestored());
+            strategy.show();
+        } while (strategy.contentsLost());
+        Toolkit.getDefaultToolkit().sync(); // Envia o frame já (sem isso o X11 pode acumular comandos)
+
+        if (mapLayer != null && mapLayer.contentsLost()) {
+            layerDirty = true;
+        }
+        stats.record(start, System.nanoTime());
+    }
+
+    /**
+     * Creates or validates the map layer surface. Outside the frame lock.
+     */
+    private void prepareMapLayer(int width, int height) {
+        GraphicsConfiguration gc = getGraphicsConfiguration();
+        if (gc == null) {
+            mapLayer = null;
+            return;
+        }
+        int status = mapLayer == null ? VolatileImage.IMAGE_INCOMPATIBLE : mapLayer.validate(gc);
+        if (status == VolatileImage.IMAGE_INCOMPATIBLE || mapLayer.getWidth() != width || mapLayer.getHeight() != height) {
+            if (mapLayer != null) {
+                mapLayer.flush();
+            }
+            mapLayer = gc.createCompatibleVolatileImage(width, height, Transparency.OPAQUE);
+            layerDirty = true;
+        } else if (status == VolatileImage.IMAGE_RESTORED) {
+            layerDirty = true;
+        }
+    }
+
+    /**
+     * Draws the visible map from the layer, redrawing the layer first if the camera, the map or
+     * its scenery changed. Inside the frame lock.
+     */
+    private void drawMapLayer(Graphics2D g, int width, int height) {
+        GameMap map = panel.getGameMap();
+        if (map == null || mapLayer == null) {
+            panel.drawMap(g, width, height);
+            return;
+        }
+        int cameraX = panel.getCameraX();
+        int cameraY = panel.getCameraY();
+        int mapVersion = panel.getMapVersion();
+        if (layerDirty || map != layerMap || cameraX != layerCameraX || cameraY != layerCameraY
+                || mapVersion != layerMapVersion) {
+            Graphics2D layer = mapLayer.createGraphics();
+            try {
+                panel.drawMap(layer, width, height);
+            } finally {
+                layer.dispose();
+            }
+            layerMap = map;
+            layerCameraX = cameraX;
+            layerCameraY = cameraY;
+            layerMapVersion = mapVersion;
+            layerDirty = false;
+        }
+        g.drawImage(mapLayer, 0, 0, null);
+    }
+
+    /**
+     * Frame rate and frame time over the last interval, handed to the debug overlay (and logged in debug mode).
+     */
+    private final class FrameStats {
+        private long intervalStart = System.nanoTime();
+        private int frames;
+        private long totalNs;
+        private long maxNs;
+        private long lastFrameEnd;
+        private long maxGapNs;
+
+        void record(long frameStart, long frameEnd) {
+            long ns = frameEnd - frameStart;
+            frames++;
+            totalNs += ns;
+            maxNs = Math.max(maxNs, ns);
+            if (lastFrameEnd != 0) {
+                maxGapNs = Math.max(maxGapNs, frameEnd - lastFrameEnd);
+            }
+            lastFrameEnd = frameEnd;
+
+            long elapsed = frameEnd - intervalStart;
+            if (elapsed >= STATS_INTERVAL_NS) {
+                String summary = String.format("%.1f fps, frame %.2f ms avg / %.2f ms max, longest gap %.1f ms",
+                        frames * 1e9 / elapsed, totalNs / 1e6 / frames, maxNs / 1e6, maxGapNs / 1e6);
+                if (GameConstants.DEBUG_MODE_ON) {
+                    System.out.println("[INFO ActiveRenderCanvas] " + summary);
+                }
+                panel.getRenderSystem().setFrameStats(summary);
+                intervalStart = frameEnd;
+                frames = 0;
+                totalNs = 0;
+                maxNs = 0;
+                maxGapNs = 0;
+            }
+        }
+    }
+}
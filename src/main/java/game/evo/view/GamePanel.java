@@ -11,11 +11,13 @@ import game.evo.world.EntityFactory;
 import game.evo.world.GameMap;
 
 import javax.swing.JPanel;
+import java.awt.BorderLayout;
 import java.awt.Color;
 import java.awt.Dimension;
 import java.awt.Graphics;
 import java.awt.Graphics2D;
 import java.awt.Point;
+import java.awt.Rectangle;
 import java.awt.datatransfer.DataFlavor;
 import java.awt.datatransfer.Transferable;
 import java.awt.dnd.*;
@@ -31,19 +33,28 @@ import java.util.zip.ZipInputStream;
 /**
  * GamePanel is the custom JPanel where the game is rendered. REFATORADO: Agora
  * lida com carregamento de mapa assíncrono e inclui Drag-and-Drop.
+ *
+ * With GameConstants.ACTIVE_RENDERING_ENABLED the panel only hosts an ActiveRenderCanvas, drawn by
+ * its own render thread; otherwise it is painted by Swing after each repaint() of the game loop.
  */
 public class GamePanel extends JPanel {
 
     private static final long serialVersionUID = 1L;
 
+    // Held by each tick of the game loop and by each frame, see getFrameLock.
+    private static final Object FRAME_LOCK = new Object();
+
     private final World world;
     private final RenderSystem renderSystem;
     private GameMap gameMap; // Removido 'final' para permitir setar depois
+    private TerrainRenderer terrainRenderer; // Criado sob demanda para mapas sem imagem
+    private TerrainChunks terrainChunks; // Terreno com o cenário estático, com STATIC_SCENERY_BAKING_ENABLED
     private final EntityFactory entityFactory;
     private final InputManager inputManager;
+    private final ActiveRenderCanvas activeCanvas; // null when Swing paints the panel
 
-    private int cameraX = 0;
-    private int cameraY = 0;
+    private volatile int cameraX = 0;
+    private volatile int cameraY = 0;
 
     public GamePanel(World world, GameMap gameMap, RenderSystem renderSystem, InputManager inputManager, EntityFactory entityFactory) {
         // A verificação de nulidade do gameMap foi removida daqui
@@ -64,8 +75,18 @@ public class GamePanel extends JPanel {
         this.setFocusable(true);
         this.addKeyListener(inputManager);
 
+        if (GameConstants.ACTIVE_RENDERING_ENABLED) {
+            // O canvas cobre o painel inteiro, então é ele que recebe o foco e as teclas
+            this.setLayout(new BorderLayout());
+            this.activeCanvas = new ActiveRenderCanvas(this);
+            this.activeCanvas.addKeyListener(inputManager);
+            this.add(activeCanvas, BorderLayout.CENTER);
+        } else {
+            this.activeCanvas = null;
+        }
+
         // Lógica de Drag-and-Drop
-        new DropTarget(this, new DropTargetListener() {
+        DropTargetListener dropListener = new DropTargetListener() {
             public void dragEnter(DropTargetDragEvent dtde) {
             }
 
@@ -94,7 +115,27 @@ public class GamePanel extends JPanel {
                     e.printStackTrace();
                 }
             }
-        });
+        };
+        new DropTarget(this, dropListener);
+        if (activeCanvas != null) {
+            new DropTarget(activeCanvas, dropListener);
+        }
+    }
+
+    /**
+     * The lock that keeps rendering and game logic apart: the game loop holds it during each tick
+     * and the active render thread during each frame, so a frame never draws a half-updated world.
+     * It is static because a tick may replace the panel (next level, loading a save).
+     */
+    public static Object getFrameLock() {
+        return FRAME_LOCK;
+    }
+
+    /**
+     * @return true if frames are drawn by a render thread and repaint() is not needed.
+     */
+    public boolean isActiveRendering() {
+        return activeCanvas != null;
     }
 
     /**
@@ -132,15 +173,19 @@ public class GamePanel extends JPanel {
                 int gridCol = (cameraX + dropPoint.x) / GameConstants.CELL_SIZE;
                 int gridRow = (cameraY + dropPoint.y) / GameConstants.CELL_SIZE;
 
-                // Atualiza a posição no config e usa a factory para criar a entidade no mundo
+                // Atualiza a posição no config e usa a factory para criar a entidade no mundo.
+                // O drop chega fora de um tick: a thread de renderização pode estar desenhando o
+                // mundo, então as mudanças são feitas com o lock dos frames, como no game loop.
                 customConfig.row = gridRow;
                 customConfig.column = gridCol;
-                entityFactory.createGameEntity(customConfig);
+                synchronized (getFrameLock()) {
+                    entityFactory.createGameEntity(customConfig);
 
-                entityFactory.createGameEntity(customConfig);
-                world.getEntitiesWithComponent(PlayerControlledComponent.class).stream().findFirst().ifPresent(player -> {
-                    world.addComponent(player, new NotificationComponent("Custom creature added!", NotificationComponent.NotificationType.SUCCESS, 3.0f));
-                });
+                    entityFactory.createGameEntity(customConfig);
+                    world.getEntitiesWithComponent(PlayerControlledComponent.class).stream().findFirst().ifPresent(player -> {
+                        world.addComponent(player, new NotificationComponent("Custom creature added!", NotificationComponent.NotificationType.SUCCESS, 3.0f));
+                    });
+                }
 
                 System.out.println("[DragNDrop] Criatura customizada '" + customConfig.type + "' adicionada ao mundo na posição (" + gridRow + ", " + gridCol + ")");
             }
@@ -153,21 +198,13 @@ public class GamePanel extends JPanel {
     @Override
     protected void paintComponent(Graphics g) {
         super.paintComponent(g);
+        if (activeCanvas != null) {
+            return; // Desenhado pela thread de renderização do canvas
+        }
         Graphics2D g2d = (Graphics2D) g.create();
         try {
-            // Se o mapa ainda não foi carregado, apenas pinta um fundo preto e sai.
-            if (gameMap == null) {
-                g2d.setColor(Color.BLACK);
-                g2d.fillRect(0, 0, getWidth(), getHeight());
-                return; // Encerra o desenho aqui para esta frame
-            }
-
-            BufferedImage mapImage = gameMap.getMapImage();
-            if (mapImage != null) {
-                g2d.drawImage(mapImage, 0, 0, getWidth(), getHeight(), cameraX, cameraY, cameraX + getWidth(), cameraY + getHeight(), null);
-            }
-            this.renderSystem.update(g2d, cameraX, cameraY, this.getWidth(), this.getHeight());
-
+            drawMap(g2d, getWidth(), getHeight());
+            drawScene(g2d, getWidth(), getHeight());
         } catch (Exception e) {
             System.err.println("[CRITICAL ERROR in GamePanel.paintComponent] Exception during rendering:");
             e.printStackTrace();
@@ -176,6 +213,65 @@ public class GamePanel extends JPanel {
         }
     }
 
+    /**
+     * Draws the visible part of the map with its static scenery, or black if the map is not loaded yet.
+     */
+    void drawMap(Graphics2D g2d, int width, int height) {
+        if (gameMap == null) {
+            g2d.setColor(Color.BLACK);
+            g2d.fillRect(0, 0, width, height);
+            return;
+        }
+        if (GameConstants.STATIC_SCENERY_BAKING_ENABLED) {
+            if (terrainChunks == null) {
+                terrainChunks = new TerrainChunks(world, SpriteAtlas.getInstance(), this::drawTerrain);
+            }
+            terrainChunks.render(g2d, cameraX, cameraY, width, height);
+        } else {
+            drawTerrain(g2d, cameraX, cameraY, width, height);
+        }
+    }
+
+    /**
+     * Draws the terrain alone, with world pixel (x, y) at the origin of g2d.
+     */
+    private void drawTerrain(Graphics2D g2d, int x, int y, int width, int height) {
+        BufferedImage mapImage = gameMap.getMapImage();
+        if (mapImage != null) {
+            g2d.drawImage(mapImage, 0, 0, width, height, x, y, x + width, y + height, null);
+        } else {
+            // Sem imagem pré-renderizada: desenha só os tiles visíveis a partir do atlas
+            if (terrainRenderer == null) {
+                terrainRenderer = new TerrainRenderer(gameMap);
+            }
+            terrainRenderer.render(g2d, x, y, width, height);
+        }
+    }
+
+    /**
+     * @return A value that changes whenever drawMap would draw something different for the same
+     * camera (scenery added, removed or finished baking), so a cached copy of the map can tell
+     * when to redraw.
+     */
+    int getMapVersion() {
+        return terrainChunks != null ? terrainChunks.update() : 0;
+    }
+
+    /**
+     * Draws everything on top of the map (entities, HUD, loading screens) with the RenderSystem.
+     */
+    void drawScene(Graphics2D g2d, int width, int height) {
+        if (gameMap == null) {
+            return; // Até o mapa ser carregado só o fundo preto é desenhado
+        }
+        renderSystem.update(g2d, cameraX, cameraY, width, height);
+    }
+
+    @Override
+    public boolean requestFocusInWindow() {
+        return activeCanvas != null ? activeCanvas.requestFocusInWindow() : super.requestFocusInWindow();
+    }
+
     public void setCameraPosition(int newCamX, int newCamY) {
         // Adiciona uma verificação para evitar NullPointerException antes do mapa ser carregado
         if (gameMap == null) {
@@ -192,15 +288,37 @@ public class GamePanel extends JPanel {
         this.cameraY = Math.max(0, Math.min(newCamY, maxCamY));
     }
 
+    /**
+     * A área do mundo visível na tela, em pixels: a câmera (já limitada às bordas do mapa) e o
+     * tamanho atual do painel.
+     */
+    public Rectangle getViewBounds() {
+        return new Rectangle(cameraX, cameraY, getWidth(), getHeight());
+    }
+
     // --- NOVOS MÉTODOS GETTER E SETTER ---
     public void setGameMap(GameMap gameMap) {
         this.gameMap = gameMap;
+        this.terrainRenderer = null;
+        this.terrainChunks = null;
     }
 
     public GameMap getGameMap() {
         return this.gameMap;
     }
 
+    public RenderSystem getRenderSystem() {
+        return this.renderSystem;
+    }
+
+    int getCameraX() {
+        return cameraX;
+    }
+
+    int getCameraY() {
+        return cameraY;
+    }
+
     public InputManager getInputManager() {
         return this.inputManager;
     }
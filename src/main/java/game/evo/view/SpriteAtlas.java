@@ -0,0 +1,568 @@
+package game.evo.view;
+
+import game.evo.components.DirectionComponent;
+import game.evo.components.ProceduralSpriteComponent;
+import game.evo.config.LevelConfig;
+import game.evo.utils.AssetManager;
+import game.evo.utils.GameConstants;
+import game.evo.utils.SpriteGenerator;
+import game.evo.utils.SpriteKey;
+
+import java.awt.AlphaComposite;
+import java.awt.Color;
+import java.awt.Composite;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Procedural sprites baked once, with every transform RenderSystem used to apply per frame.
+ *
+ * An animated sprite gets one sheet with a row per facing direction (the rotation) and a column
+ * per animation frame: a still frame followed by SQUASH_PHASES samples of the sinusoidal
+ * squash/stretch played while the entity moves. Still sprites get a single frame. Each frame is
+ * a square cell centered on the sprite, large enough for any rotation and the largest stretch,
+ * so drawing is a plain sub-image blit at an integer position. One more cell, after the frames,
+ * holds the untransformed sprite for the HUD.
+ *
+ * Creatures differing only in color can share the work: once a second color variant of a shape
+ * has a handle, the shape is baked into a sheet of tint masks (SpriteGenerator.generateMask),
+ * cached under SpriteKey.Shape, and the new variants are filled in by tinting that sheet, without
+ * generating or transforming anything again. A shape with a single variant (the usual case, the
+ * colors of an NPC come from its seed) is baked directly, so no mask sheet takes up the cache.
+ *
+ * Sprites are identified by an int handle (starting at 1, so 0 can mean "not baked yet"), which
+ * RenderSystem keeps in ProceduralSpriteComponent.spriteHandle. The sheets themselves live in the
+ * AssetManager's bounded cache under their SpriteKey, so sprites nobody draws any more are
+ * evicted; a handle whose sheet was evicted stays valid and is simply baked again on next use.
+ * Each component given a handle is tracked through a weak reference: once no live component
+ * holds a handle and its sheet has been evicted, the handle is recycled, so the index stays as
+ * small as the sprites in use even when every respawn brings a new seed.
+ *
+ * Baking runs on a pool of background threads, never on the thread that draws: a sprite whose
+ * sheet is not ready is drawn as a placeholder (a translucent oval in its primary color) and the
+ * finished sheets are picked up by the drawing thread on the next frame. prewarm() queues the
+ * sprites of a freshly populated level during the loading sequence. Apart from the pool's queues,
+ * the atlas is only used from the thread that draws (the Swing event thread, or the render thread
+ * of ActiveRenderCanvas, which the game loop's calls such as prewarm() are serialized with by
+ * GamePanel.getFrameLock()).
+ *
+ * The sheets of each level are also kept on disk (SpriteCacheFile): openLevelCache() maps the
+ * level's file, and a sheet found there is copied from it instead of being baked, so a warm start
+ * generates nothing. When a level needed sheets the file did not have, the file is rewritten once
+ * all of the level's prewarmed sheets are baked.
+ */
+public final class SpriteAtlas {
+
+    public static final int SQUASH_PHASES = 8;          // Samples of one squash/stretch cycle
+    private static final double SQUASH_AMPLITUDE = 0.08; // Max relative stretch
+    private static final double SQUASH_PERIOD_MS = 150.0 * 2 * Math.PI; // sin(t / 150 ms)
+    private static final int FRAMES_PER_DIRECTION = 1 + SQUASH_PHASES;
+    private static final int PLACEHOLDER_ALPHA = 110;
+
+    /**
+     * Increment whenever bake() lays out or draws the sheets differently, so sheets cached on disk
+     * are rebuilt (SpriteGenerator.VERSION covers the sprites themselves).
+     */
+    public static final int LAYOUT_VERSION = 2;
+
+    private static SpriteAtlas instance;
+
+    /**
+     * A sheet baked by a worker, with its layout. Handed to the drawing thread through 'completed'.
+     * sheet is null if generation failed.
+     */
+    private record Baked(int handle, BufferedImage sheet, int halfCell, int spriteWidth, int spriteHeight) {}
+
+    private final SpriteGenerator spriteGenerator = new SpriteGenerator(); // Stateless, shared by the workers
+    private final AssetManager assetManager = AssetManager.getInstance();
+    private final ExecutorService bakers;
+    private final Queue<Baked> completed = new ConcurrentLinkedQueue<>();
+    private final Map<SpriteKey, Integer> handles = new HashMap<>();
+    private final ReferenceQueue<ProceduralSpriteComponent> released = new ReferenceQueue<>();
+    private final Set<HandleUser> handleUsers = new HashSet<>(); // Keeps the references themselves reachable
+    private final Set<Integer> unused = new LinkedHashSet<>(); // Handles no live component holds
+    private final Map<SpriteKey.Shape, Integer> shapeVariants = new HashMap<>(); // Handles per tintable shape
+    private int[] freeHandles = new int[16];
+    private int freeCount = 0;
+
+    // Indexed by handle.
+    private SpriteKey[] keys = new SpriteKey[64];
+    private int[] halfCells = new int[64];  // Half the side of a frame cell
+    private int[] spriteWidths = new int[64];  // Size of the generated image (may exceed the box)
+    private int[] spriteHeights = new int[64];
+    private int[] widths = new int[64];     // Sprite box (SpriteGenerator.getWidthFor / getHeightFor)
+    private int[] heights = new int[64];
+    private boolean[] animated = new boolean[64];
+    private byte[] states = new byte[64];   // IDLE, PENDING or FAILED
+    private int[] users = new int[64];      // Live components holding the handle
+    private int count = 1; // Handle 0 is never used
+    private int pendingCount = 0;
+
+    // Disk cache of the current level.
+    private LevelConfig cacheLevel;       // null when the disk cache is off
+    private SpriteCacheFile diskCache;     // null if the level has no valid file yet
+    private final Set<Integer> levelHandles = new LinkedHashSet<>(); // Sheets prewarmed for the level
+    private boolean diskCacheStale;        // Some prewarmed sheet is not in the file
+    private boolean savePending;           // Rewrite the file once nothing is pending
+
+    private static final byte IDLE = 0, PENDING = 1, FAILED = 2;
+
+    /**
+     * A component that was given a handle, cleared by the GC once the component is gone.
+     */
+    private static final class HandleUser extends WeakReference<ProceduralSpriteComponent> {
+        final int handle;
+
+        HandleUser(ProceduralSpriteComponent psc, int handle, ReferenceQueue<ProceduralSpriteComponent> queue) {
+            super(psc, queue);
+            this.handle = handle;
+        }
+    }
+
+    private SpriteAtlas() {
+        int threads = Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+        AtomicInteger threadCount = new AtomicInteger();
+        this.bakers = Executors.newFixedThreadPool(threads, task -> {
+            Thread thread = new Thread(task, "sprite-baker-" + threadCount.incrementAndGet());
+            thread.setDaemon(true); // Never keeps the game from exiting
+            thread.setPriority(Thread.NORM_PRIORITY - 1);
+            return thread;
+        });
+    }
+
+    public static synchronized SpriteAtlas getInstance() {
+        if (instance == null) {
+            instance = new SpriteAtlas();
+        }
+        return instance;
+    }
+
+    /**
+     * @return The handle of the component's sprite. Its sheet is baked the first time it is drawn.
+     */
+    public int handleFor(ProceduralSpriteComponent psc, boolean animatedSprite) {
+        recycleUnusedHandles();
+        SpriteKey key = SpriteKey.of(psc, animatedSprite);
+        Integer handle = handles.get(key);
+        if (handle == null) {
+            handle = newHandle(key, psc);
+            handles.put(key, handle);
+        }
+        users[handle]++;
+        unused.remove(handle);
+        handleUsers.add(new HandleUser(psc, handle, released));
+        return handle;
+    }
+
+    /**
+     * @return How many handles are in use (for diagnostics).
+     */
+    public int getHandleCount() {
+        return count - 1 - freeCount;
+    }
+
+    /**
+     * Counts the components the GC collected, and frees the handles nobody holds any more whose
+     * sheet is no longer cached. A handle whose sheet is still cached is kept, so a component with
+     * the same genes finds it baked; it is freed once the AssetManager evicts the sheet. Handles
+     * being baked or saved to the level's disk cache are kept too.
+     */
+    private void recycleUnusedHandles() {
+        Reference<? extends ProceduralSpriteComponent> reference;
+        while ((reference = released.poll()) != null) {
+            HandleUser user = (HandleUser) reference;
+            handleUsers.remove(user);
+            if (--users[user.handle] == 0) {
+                unused.add(user.handle);
+            }
+        }
+        Iterator<Integer> iterator = unused.iterator();
+        while (iterator.hasNext()) {
+            int handle = iterator.next();
+            if (states[handle] == PENDING || levelHandles.contains(handle) || assetManager.isCached(keys[handle])) {
+                continue;
+            }
+            iterator.remove();
+            handles.remove(keys[handle]);
+            if (SpriteGenerator.isTintable(keys[handle].bodyType())) {
+                shapeVariants.computeIfPresent(keys[handle].shape(), (shape, variants) -> variants > 1 ? variants - 1 : null);
+            }
+            keys[handle] = null;
+            states[handle] = IDLE;
+            if (freeCount == freeHandles.length) {
+                freeHandles = Arrays.copyOf(freeHandles, freeCount * 2);
+            }
+            freeHandles[freeCount++] = handle;
+        }
+    }
+
+    /**
+     * Maps the disk cache of a level that is starting. Call before its prewarm() calls.
+     */
+    public void openLevelCache(LevelConfig config) {
+        levelHandles.clear();
+        savePending = false;
+        diskCacheStale = false;
+        if (!GameConstants.SPRITE_DISK_CACHE_ENABLED || config == null) {
+            cacheLevel = null;
+            diskCache = null;
+            return;
+        }
+        cacheLevel = config;
+        diskCache = SpriteCacheFile.open(config);
+    }
+
+    /**
+     * Queues the sheet of a handle for baking if it is neither cached nor in the level's disk
+     * cache, without waiting for it.
+     */
+    public void prewarm(ProceduralSpriteComponent psc, int handle) {
+        sheetFor(psc, handle);
+        if (cacheLevel != null && levelHandles.add(handle)
+                && (diskCache == null || !diskCache.contains(keys[handle].stableHash()))) {
+            diskCacheStale = true;
+        }
+    }
+
+    /**
+     * Ends the level's prewarm() calls: if the disk cache is missing some of its sheets, it is
+     * rewritten in the background as soon as they are all baked.
+     */
+    public void finishPrewarm() {
+        savePending = cacheLevel != null && diskCacheStale;
+        collectCompleted();
+    }
+
+    /**
+     * @return How many sheets are queued or being baked.
+     */
+    public int getPendingCount() {
+        collectCompleted();
+        return pendingCount;
+    }
+
+    /**
+     * The generated sprite without rotation or animation (e.g. for the HUD portrait).
+     * @param psc The component the handle was obtained for, to bake the sheet again if it was evicted.
+     * @return The sprite, or null while it is still being baked.
+     */
+    public BufferedImage getSprite(ProceduralSpriteComponent psc, int handle) {
+        BufferedImage sheet = sheetFor(psc, handle);
+        if (sheet == null) {
+            return null;
+        }
+        int spriteX = (animated[handle] ? FRAMES_PER_DIRECTION : 1) * halfCells[handle] * 2;
+        return sheet.getSubimage(spriteX, 0, spriteWidths[handle], spriteHeights[handle]);
+    }
+
+    /**
+     * Draws one frame, or a placeholder if the sheet is not baked yet. Never waits.
+     * @param x Left of the sprite box on screen, as if drawn without transforms.
+     * @param y Top of the sprite box on screen.
+     * @param direction Row of the sheet, see directionIndex (ignored for still sprites).
+     * @param frame 0 for the still frame, 1..SQUASH_PHASES while moving (ignored for still sprites).
+     */
+    public void draw(Graphics2D g, ProceduralSpriteComponent psc, int handle, int x, int y, int direction, int frame) {
+        BufferedImage sheet = sheetFor(psc, handle);
+        if (sheet == null) {
+            drawPlaceholder(g, psc, x, y, widths[handle], heights[handle]);
+            return;
+        }
+        drawFrame(g, sheet, handle, x, y, direction, frame);
+    }
+
+    /**
+     * The area a still sprite covers when drawn at (x, y), for images that keep what is drawn
+     * into them (TerrainChunks). Never waits.
+     * @return The frame cell, the placeholder's box if the sprite failed to bake, or null while
+     * the sheet is not baked yet (baking is queued).
+     */
+    public Rectangle getStillBounds(ProceduralSpriteComponent psc, int handle, int x, int y) {
+        BufferedImage sheet = sheetFor(psc, handle);
+        if (sheet == null) {
+            return states[handle] == FAILED ? new Rectangle(x, y, widths[handle], heights[handle]) : null;
+        }
+        int cell = halfCells[handle] * 2;
+        return new Rectangle(x + widths[handle] / 2 - halfCells[handle], y + heights[handle] / 2 - halfCells[handle], cell, cell);
+    }
+
+    /**
+     * Draws the still frame like draw(), but draws nothing while the sheet is not baked yet
+     * (first use or evicted), so no placeholder ends up in an image that keeps it.
+     * @return false if nothing was drawn.
+     */
+    public boolean drawStillIfBaked(Graphics2D g, ProceduralSpriteComponent psc, int handle, int x, int y) {
+        BufferedImage sheet = sheetFor(psc, handle);
+        if (sheet == null) {
+            if (states[handle] != FAILED) {
+                return false;
+            }
+            drawPlaceholder(g, psc, x, y, widths[handle], heights[handle]);
+            return true;
+        }
+        drawFrame(g, sheet, handle, x, y, 0, 0);
+        return true;
+    }
+
+    private void drawFrame(Graphics2D g, BufferedImage sheet, int handle, int x, int y, int direction, int frame) {
+        int cell = halfCells[handle] * 2;
+        int sx = 0;
+        int sy = 0;
+        if (animated[handle]) {
+            sx = frame * cell;
+            sy = direction * cell;
+        }
+        int dx = x + widths[handle] / 2 - halfCells[handle];
+        int dy = y + heights[handle] / 2 - halfCells[handle];
+        g.drawImage(sheet, dx, dy, dx + cell, dy + cell, sx, sy, sx + cell, sy + cell, null);
+    }
+
+    /**
+     * Sheet row of a facing direction; null (no DirectionComponent) faces up, i.e. unrotated.
+     */
+    public static int directionIndex(DirectionComponent.Direction direction) {
+        return direction == null ? 0 : direction.ordinal();
+    }
+
+    /**
+     * @param elapsedMs Time since the sprite was created.
+     * @return The squash/stretch frame (1..SQUASH_PHASES) of a moving sprite at that time.
+     */
+    public static int movingFrame(long elapsedMs) {
+        double cycles = elapsedMs / SQUASH_PERIOD_MS;
+        return 1 + (int) ((cycles - Math.floor(cycles)) * SQUASH_PHASES) % SQUASH_PHASES;
+    }
+
+    private int newHandle(SpriteKey key, ProceduralSpriteComponent psc) {
+        if (freeCount > 0) {
+            return initHandle(freeHandles[--freeCount], key, psc);
+        }
+        if (count == keys.length) {
+            int capacity = count * 2;
+            keys = Arrays.copyOf(keys, capacity);
+            halfCells = Arrays.copyOf(halfCells, capacity);
+            spriteWidths = Arrays.copyOf(spriteWidths, capacity);
+            spriteHeights = Arrays.copyOf(spriteHeights, capacity);
+            widths = Arrays.copyOf(widths, capacity);
+            heights = Arrays.copyOf(heights, capacity);
+            animated = Arrays.copyOf(animated, capacity);
+            states = Arrays.copyOf(states, capacity);
+            users = Arrays.copyOf(users, capacity);
+        }
+        return initHandle(count++, key, psc);
+    }
+
+    private int initHandle(int handle, SpriteKey key, ProceduralSpriteComponent psc) {
+        if (SpriteGenerator.isTintable(key.bodyType())) {
+            shapeVariants.merge(key.shape(), 1, Integer::sum);
+        }
+        keys[handle] = key;
+        animated[handle] = key.animated();
+        widths[handle] = SpriteGenerator.getWidthFor(psc);
+        heights[handle] = SpriteGenerator.getHeightFor(psc);
+        return handle;
+    }
+
+    /**
+     * @return The handle's sheet from the cache, or null if it is not baked yet (first use or
+     * evicted), in which case baking is queued.
+     */
+    private BufferedImage sheetFor(ProceduralSpriteComponent psc, int handle) {
+        collectCompleted();
+        BufferedImage sheet = (BufferedImage) assetManager.getCachedImage(keys[handle]);
+        if (sheet == null && states[handle] == IDLE && diskCache != null) {
+            sheet = loadFromDisk(handle);
+        }
+        if (sheet == null && states[handle] == IDLE) {
+            states[handle] = PENDING;
+            pendingCount++;
+            // The worker gets its own copy of the genes; the component belongs to the game thread.
+            ProceduralSpriteComponent genes = new ProceduralSpriteComponent(psc.creatureSeed, psc.size,
+                    psc.primaryColor, psc.secondaryColor, psc.bodyType);
+            boolean animatedSprite = animated[handle];
+            boolean fromMask = SpriteGenerator.isTintable(psc.bodyType) && shapeVariants.getOrDefault(keys[handle].shape(), 0) > 1;
+            bakers.execute(() -> completed.add(bakeSafely(handle, genes, animatedSprite, fromMask)));
+        }
+        return sheet;
+    }
+
+    /**
+     * Moves the sheets finished by the workers into the cache. Runs on the drawing thread.
+     */
+    private void collectCompleted() {
+        Baked baked;
+        while ((baked = completed.poll()) != null) {
+            int handle = baked.handle();
+            pendingCount--;
+            if (baked.sheet() == null) {
+                states[handle] = FAILED; // Keeps the placeholder instead of retrying every frame
+                continue;
+            }
+            halfCells[handle] = baked.halfCell();
+            spriteWidths[handle] = baked.spriteWidth();
+            spriteHeights[handle] = baked.spriteHeight();
+            states[handle] = IDLE;
+            assetManager.cacheImage(keys[handle], baked.sheet());
+        }
+        if (savePending && pendingCount == 0) {
+            saveLevelCache();
+        }
+    }
+
+    /**
+     * Copies a sheet out of the mapped disk cache into the memory cache.
+     * @return The sheet, or null if the file does not have it.
+     */
+    private BufferedImage loadFromDisk(int handle) {
+        SpriteCacheFile.Sheet cached = diskCache.read(keys[handle].stableHash());
+        if (cached == null) {
+            return null;
+        }
+        halfCells[handle] = cached.halfCell();
+        spriteWidths[handle] = cached.spriteWidth();
+        spriteHeights[handle] = cached.spriteHeight();
+        assetManager.cacheImage(keys[handle], cached.image());
+        return cached.image();
+    }
+
+    /**
+     * Writes the level's sheets to its disk cache on a worker thread. Sheets evicted from memory
+     * in the meantime, or that failed, are left out and baked again next time.
+     */
+    private void saveLevelCache() {
+        savePending = false;
+        List<SpriteCacheFile.Sheet> sheets = new ArrayList<>(levelHandles.size());
+        for (int handle : levelHandles) {
+            BufferedImage sheet = (BufferedImage) assetManager.getCachedImage(keys[handle]);
+            if (sheet != null) {
+                sheets.add(new SpriteCacheFile.Sheet(keys[handle].stableHash(), sheet,
+                        halfCells[handle], spriteWidths[handle], spriteHeights[handle]));
+            }
+        }
+        LevelConfig config = cacheLevel;
+        bakers.execute(() -> SpriteCacheFile.save(config, sheets));
+    }
+
+    private static void drawPlaceholder(Graphics2D g, ProceduralSpriteComponent psc, int x, int y, int width, int height) {
+        Color color = psc.primaryColor != null ? psc.primaryColor : Color.GRAY;
+        Composite previous = g.getComposite();
+        g.setComposite(AlphaComposite.SrcOver);
+        g.setColor(new Color(color.getRed(), color.getGreen(), color.getBlue(), PLACEHOLDER_ALPHA));
+        g.fillOval(x, y, width, height);
+        g.setComposite(previous);
+    }
+
+    private Baked bakeSafely(int handle, ProceduralSpriteComponent psc, boolean animatedSprite, boolean fromMask) {
+        try {
+            return bake(handle, psc, animatedSprite, fromMask);
+        } catch (RuntimeException e) {
+            System.err.println("[ERROR SpriteAtlas] Failed to generate sprite " + psc.bodyType + " (seed " + psc.creatureSeed + "): " + e);
+            return new Baked(handle, null, 0, 0, 0);
+        }
+    }
+
+    /**
+     * Generates the sprite and renders all of its frames or, for a shape with several color
+     * variants, tints the frames of its shape's mask sheet (baked first if it is not cached).
+     * Runs on a worker thread.
+     */
+    private Baked bake(int handle, ProceduralSpriteComponent psc, boolean animatedSprite, boolean fromMask) {
+        int width = SpriteGenerator.getWidthFor(psc);
+        int height = SpriteGenerator.getHeightFor(psc);
+        if (!fromMask) {
+            BufferedImage sprite = spriteGenerator.generate(psc);
+            int halfCell = halfCellFor(width, height, sprite.getWidth(), sprite.getHeight());
+            BufferedImage sheet = renderSheet(sprite, width, height, halfCell, animatedSprite);
+            return new Baked(handle, sheet, halfCell, sprite.getWidth(), sprite.getHeight());
+        }
+
+        // Shared by every color variant; two workers may bake the same mask sheet once, harmlessly.
+        SpriteKey.Shape shape = SpriteKey.of(psc, animatedSprite).shape();
+        BufferedImage mask = (BufferedImage) assetManager.getCachedImage(shape);
+        BufferedImage maskSprite = mask == null ? spriteGenerator.generateMask(psc) : null;
+        // The mask has the size generate() would give the sprite.
+        int spriteWidth = width + 4;
+        int spriteHeight = height + 4;
+        int halfCell = halfCellFor(width, height, spriteWidth, spriteHeight);
+        if (mask == null) {
+            mask = renderSheet(maskSprite, width, height, halfCell, animatedSprite);
+            assetManager.cacheImage(shape, mask);
+        }
+        BufferedImage sheet = SpriteGenerator.tint(mask, psc.primaryColor, psc.secondaryColor);
+        return new Baked(handle, sheet, halfCell, spriteWidth, spriteHeight);
+    }
+
+    /**
+     * Half the side of the square cell that holds every frame of a sprite. The sprite is drawn with
+     * its box centered in the cell; the image may be larger than the box (padding), so the cell
+     * must hold the farthest image edge from the center, stretched.
+     */
+    private static int halfCellFor(int width, int height, int spriteWidth, int spriteHeight) {
+        double reach = Math.max(Math.max(width / 2.0, spriteWidth - width / 2.0),
+                Math.max(height / 2.0, spriteHeight - height / 2.0));
+        return (int) Math.ceil(reach * (1 + SQUASH_AMPLITUDE)) + 1;
+    }
+
+    /**
+     * Draws every frame of a sprite (or of a tint mask) into a new premultiplied sheet.
+     */
+    private static BufferedImage renderSheet(BufferedImage sprite, int width, int height, int halfCell, boolean animatedSprite) {
+        int cell = halfCell * 2;
+        int columns = animatedSprite ? FRAMES_PER_DIRECTION : 1;
+        int rows = animatedSprite ? DirectionComponent.Direction.values().length : 1;
+        BufferedImage sheet = new BufferedImage((columns + 1) * cell, rows * cell, BufferedImage.TYPE_INT_ARGB_PRE);
+        Graphics2D g = sheet.createGraphics();
+        g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        for (int row = 0; row < rows; row++) {
+            double angle = rotationFor(DirectionComponent.Direction.values()[row]);
+            for (int column = 0; column < columns; column++) {
+                double stretch = column == 0 ? 0 : SQUASH_AMPLITUDE * Math.sin(2 * Math.PI * (column - 0.5) / SQUASH_PHASES);
+                Graphics2D frame = (Graphics2D) g.create();
+                // Same transform RenderSystem applied per frame: rotate around the box center,
+                // then scale around it. Odd box sizes put the center half a pixel off the grid.
+                frame.translate(column * cell + halfCell + (width % 2) / 2.0, row * cell + halfCell + (height % 2) / 2.0);
+                frame.rotate(angle);
+                frame.scale(1.0 + stretch, 1.0 - stretch);
+                frame.translate(-width / 2.0, -height / 2.0);
+                frame.drawImage(sprite, 0, 0, null);
+                frame.dispose();
+            }
+        }
+        g.drawImage(sprite, columns * cell, 0, null); // The untransformed sprite, for getSprite
+        g.dispose();
+        return sheet;
+    }
+
+    private static double rotationFor(DirectionComponent.Direction direction) {
+        switch (direction) {
+            case RIGHT:
+                return Math.toRadians(90);
+            case DOWN:
+                return Math.toRadians(180);
+            case LEFT:
+                return Math.toRadians(-90);
+            case UP:
+            default:
+                return 0;
+        }
+    }
+}
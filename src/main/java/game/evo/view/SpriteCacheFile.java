@@ -0,0 +1,348 @@
+package game.evo.view;
+
+import game.evo.config.LevelConfig;
+import game.evo.utils.SpriteGenerator;
+import game.evo.world.MapCacheFile;
+
+import java.awt.image.BufferedImage;
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Cache em disco das folhas de sprites de um nível (as do SpriteAtlas), no formato ".evosprites".
+ *
+ * Layout (big-endian):
+ *   int     MAGIC ("EVOS")
+ *   int     FORMAT_VERSION
+ *   int     SpriteGenerator.VERSION
+ *   int     SpriteAtlas.LAYOUT_VERSION
+ *   int     sheet count N
+ *   N x     long stable hash of the SpriteKey, int halfCell, int spriteWidth, int spriteHeight,
+ *           int sheet width, int sheet height, long offset of the pixels from the start of the
+ *           file, long length of the pixels in bytes
+ *   int[]   the pixels of each sheet, row by row: the number of spans in the row, then for each
+ *           span its first column, its length and its premultiplied ARGB pixels
+ *
+ * A span is a run of pixels that are not fully transparent (0); the rest of the row is not
+ * stored. Every frame sits in a cell padded to the largest frame of the sheet, so most of a
+ * sheet is transparent: level 3's 7 sheets take 1.2 MB as spans instead of 3.2 MB raw. The
+ * spans are still raw pixels, so the file is memory-mapped when a level starts and a sheet is
+ * copied span by span straight into a BufferedImage when the atlas first needs it, with no
+ * decoder. A file written by another format, generator or atlas layout version is ignored and
+ * rebuilt; sprites missing from it (genes that changed with the level config) are baked as usual
+ * and the file is rewritten.
+ *
+ * A file is never replaced in place: the atlas keeps the level's file mapped while it plays, and
+ * Windows refuses to replace or delete a mapped file (Java only unmaps it when the buffer is
+ * garbage collected). Each save writes a new generation, "sprites_seed_S.G.evosprites", open()
+ * maps the newest one, and older generations are deleted once they can be (at the latest by
+ * the next open(), when they are no longer mapped).
+ */
+public final class SpriteCacheFile {
+
+    public static final String EXTENSION = ".evosprites";
+    public static final String LOCAL_DIR = MapCacheFile.LOCAL_DIR;
+
+    private static final int MAGIC = 0x45564F53; // "EVOS"
+    private static final int FORMAT_VERSION = 3;
+    private static final int HEADER_BYTES = 5 * 4;
+    private static final int INDEX_ENTRY_BYTES = 8 + 5 * 4 + 8 + 8;
+
+    /**
+     * A baked sheet and its layout, as SpriteAtlas uses it.
+     */
+    public record Sheet(long hash, BufferedImage image, int halfCell, int spriteWidth, int spriteHeight) {}
+
+    private final ByteBuffer data;              // The whole file, memory-mapped
+    private final Map<Long, Integer> entries;   // Stable hash -> position of its index entry
+
+    private SpriteCacheFile(ByteBuffer data, Map<Long, Integer> entries) {
+        this.data = data;
+        this.entries = entries;
+    }
+
+    /**
+     * Nome do arquivo de uma geração do cache de um nível.
+     */
+    public static String fileNameFor(LevelConfig config, long generation) {
+        return "sprites_seed_" + config.proceduralSeed + "." + generation + EXTENSION;
+    }
+
+    /**
+     * Mapeia a geração mais nova do cache de sprites do nível da pasta cache/, apagando as antigas.
+     * @return O cache, ou null se não existir ou tiver sido escrito por outra versão.
+     */
+    public static SpriteCacheFile open(LevelConfig config) {
+        long generation = newestGeneration(config);
+        if (generation < 0) {
+            return null;
+        }
+        deleteGenerationsBefore(config, generation);
+        File file = new File(LOCAL_DIR, fileNameFor(config, generation));
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            // The mapping stays valid after the channel is closed.
+            SpriteCacheFile cache = read(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+            if (cache == null) {
+                System.out.println("[INFO SpriteCacheFile] Stale sprite cache, will rebuild: " + file.getPath());
+            } else {
+                System.out.println("[INFO SpriteCacheFile] Mapped sprite cache: " + file.getPath() + " (" + cache.size() + " sheets)");
+            }
+            return cache;
+        } catch (IOException e) {
+            System.err.println("[WARN SpriteCacheFile] Failed to read sprite cache " + file.getPath() + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Validates the header and index of a mapped file.
+     * @return The cache, or null if it was written by another format, generator or layout version.
+     */
+    static SpriteCacheFile read(ByteBuffer data) throws IOException {
+        if (data.limit() < HEADER_BYTES || data.getInt(0) != MAGIC) {
+            throw new IOException("Not a sprite cache file.");
+        }
+        if (data.getInt(4) != FORMAT_VERSION || data.getInt(8) != SpriteGenerator.VERSION
+                || data.getInt(12) != SpriteAtlas.LAYOUT_VERSION) {
+            return null;
+        }
+        int count = data.getInt(16);
+        if (count < 0 || HEADER_BYTES + (long) count * INDEX_ENTRY_BYTES > data.limit()) {
+            throw new IOException("Invalid sheet count " + count);
+        }
+        Map<Long, Integer> entries = new HashMap<>(count * 2);
+        for (int i = 0; i < count; i++) {
+            int position = HEADER_BYTES + i * INDEX_ENTRY_BYTES;
+            int width = data.getInt(position + 20);
+            int height = data.getInt(position + 24);
+            long offset = data.getLong(position + 28);
+            long length = data.getLong(position + 36);
+            if (width <= 0 || height <= 0 || offset < 0 || offset % 4 != 0 || length < (long) height * 4
+                    || length % 4 != 0 || offset + length > data.limit()) {
+                throw new IOException("Invalid sheet " + i);
+            }
+            entries.put(data.getLong(position), position);
+        }
+        return new SpriteCacheFile(data, entries);
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public boolean contains(long hash) {
+        return entries.containsKey(hash);
+    }
+
+    /**
+     * Copies a sheet out of the mapped file, one span at a time.
+     * @return The sheet, or null if the file does not have it (or has it damaged).
+     */
+    public Sheet read(long hash) {
+        Integer position = entries.get(hash);
+        if (position == null) {
+            return null;
+        }
+        int width = data.getInt(position + 20);
+        int height = data.getInt(position + 24);
+        int offset = (int) data.getLong(position + 28);
+        IntBuffer spans = data.duplicate().position(offset).limit(offset + (int) data.getLong(position + 36)).asIntBuffer();
+        int[] pixels = new int[width * height]; // Transparent where no span covers it
+        try {
+            for (int y = 0; y < height; y++) {
+                for (int count = spans.get(); count > 0; count--) {
+                    int x = spans.get();
+                    int length = spans.get();
+                    if (x < 0 || length <= 0 || length > width - x) {
+                        throw new IOException("Invalid span " + x + " x " + length + " in row " + y);
+                    }
+                    spans.get(pixels, y * width + x, length);
+                }
+            }
+        } catch (IOException | BufferUnderflowException e) {
+            System.err.println("[WARN SpriteCacheFile] Damaged sprite sheet " + Long.toHexString(hash) + ", baking it again: " + e);
+            return null;
+        }
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB_PRE);
+        image.getRaster().setDataElements(0, 0, width, height, pixels);
+        return new Sheet(hash, image, data.getInt(position + 8), data.getInt(position + 12), data.getInt(position + 16));
+    }
+
+    /**
+     * Salva as folhas na pasta cache/ local, substituindo o arquivo anterior do nível.
+     * Escreve num arquivo temporário e o renomeia, para nunca deixar um arquivo pela metade.
+     */
+    public static void save(LevelConfig config, List<Sheet> sheets) {
+        File cacheDir = new File(LOCAL_DIR);
+        if (!cacheDir.exists()) {
+            cacheDir.mkdirs(); // Cria a pasta 'cache' se ela não existir
+        }
+        long generation = newestGeneration(config) + 1; // A new file: the current one may be mapped
+        Path target = new File(cacheDir, fileNameFor(config, generation)).toPath();
+        Path temporary = new File(cacheDir, fileNameFor(config, generation) + ".tmp").toPath();
+        try {
+            try (OutputStream out = Files.newOutputStream(temporary)) {
+                write(out, sheets);
+            }
+            try {
+                Files.move(temporary, target, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temporary, target);
+            }
+            System.out.println("[INFO SpriteCacheFile] " + sheets.size() + " sprite sheets saved to cache: " + target);
+        } catch (IOException e) {
+            System.err.println("[WARN SpriteCacheFile] Error saving sprite cache " + target + ": " + e.getMessage());
+            return;
+        }
+        deleteGenerationsBefore(config, generation);
+    }
+
+    /**
+     * @return The newest generation of the level's file in cache/, or -1 if there is none.
+     */
+    private static long newestGeneration(LevelConfig config) {
+        long newest = -1;
+        String[] names = new File(LOCAL_DIR).list();
+        if (names != null) {
+            for (String name : names) {
+                newest = Math.max(newest, generationOf(config, name));
+            }
+        }
+        return newest;
+    }
+
+    /**
+     * Deletes the older generations of the level's file. One still mapped (on Windows) stays
+     * until a later call.
+     */
+    private static void deleteGenerationsBefore(LevelConfig config, long generation) {
+        String[] names = new File(LOCAL_DIR).list();
+        if (names == null) {
+            return;
+        }
+        for (String name : names) {
+            long old = generationOf(config, name);
+            if (old >= 0 && old < generation) {
+                try {
+                    Files.deleteIfExists(new File(LOCAL_DIR, name).toPath());
+                } catch (IOException e) {
+                    // Still mapped: deleted by a later open() or save()
+                }
+            }
+        }
+    }
+
+    /**
+     * @return The generation of a file name of the level ("sprites_seed_S.G.evosprites"), or -1.
+     */
+    private static long generationOf(LevelConfig config, String name) {
+        String prefix = "sprites_seed_" + config.proceduralSeed + ".";
+        if (!name.startsWith(prefix) || !name.endsWith(EXTENSION)) {
+            return -1;
+        }
+        String generation = name.substring(prefix.length(), name.length() - EXTENSION.length());
+        try {
+            return generation.isEmpty() ? -1 : Long.parseLong(generation);
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    static void write(OutputStream output, List<Sheet> sheets) throws IOException {
+        // Encoded first: the index holds each sheet's offset and length.
+        List<IntBuffer> encoded = new ArrayList<>(sheets.size());
+        for (Sheet sheet : sheets) {
+            encoded.add(encodeSpans(sheet.image()));
+        }
+
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(output, 1 << 16));
+        out.writeInt(MAGIC);
+        out.writeInt(FORMAT_VERSION);
+        out.writeInt(SpriteGenerator.VERSION);
+        out.writeInt(SpriteAtlas.LAYOUT_VERSION);
+        out.writeInt(sheets.size());
+        long offset = HEADER_BYTES + (long) sheets.size() * INDEX_ENTRY_BYTES;
+        for (int i = 0; i < sheets.size(); i++) {
+            Sheet sheet = sheets.get(i);
+            long length = encoded.get(i).remaining() * 4L;
+            out.writeLong(sheet.hash());
+            out.writeInt(sheet.halfCell());
+            out.writeInt(sheet.spriteWidth());
+            out.writeInt(sheet.spriteHeight());
+            out.writeInt(sheet.image().getWidth());
+            out.writeInt(sheet.image().getHeight());
+            out.writeLong(offset);
+            out.writeLong(length);
+            offset += length;
+        }
+        ByteBuffer bytes = ByteBuffer.allocate(1 << 14);
+        for (IntBuffer spans : encoded) {
+            while (spans.hasRemaining()) {
+                bytes.clear();
+                int count = Math.min(spans.remaining(), bytes.capacity() / 4);
+                bytes.asIntBuffer().put(spans.array(), spans.position(), count);
+                spans.position(spans.position() + count);
+                out.write(bytes.array(), 0, count * 4);
+            }
+        }
+        out.flush();
+    }
+
+    /**
+     * The spans of a sheet in the file's layout (see the class comment).
+     */
+    private static IntBuffer encodeSpans(BufferedImage image) {
+        int width = image.getWidth();
+        int[] row = new int[width];
+        int[] spans = new int[1024];
+        int size = 0;
+        for (int y = 0; y < image.getHeight(); y++) {
+            // Raw premultiplied pixels (the atlas bakes TYPE_INT_ARGB_PRE sheets), so a sheet
+            // read back is identical to the one baked.
+            image.getRaster().getDataElements(0, y, width, 1, row);
+            if (size == spans.length) {
+                spans = Arrays.copyOf(spans, spans.length * 2);
+            }
+            int countAt = size++;
+            int count = 0;
+            for (int x = 0; x < width; ) {
+                if (row[x] == 0) {
+                    x++;
+                    continue;
+                }
+                int end = x + 1;
+                while (end < width && row[end] != 0) {
+                    end++;
+                }
+                if (size + 2 + (end - x) > spans.length) {
+                    spans = Arrays.copyOf(spans, Math.max(spans.length * 2, size + 2 + (end - x)));
+                }
+                spans[size++] = x;
+                spans[size++] = end - x;
+                System.arraycopy(row, x, spans, size, end - x);
+                size += end - x;
+                count++;
+                x = end;
+            }
+            spans[countAt] = count;
+        }
+        return IntBuffer.wrap(spans, 0, size);
+    }
+}
@@ -0,0 +1,305 @@
+package game.evo.view;
+
+import game.evo.components.PositionComponent;
+import game.evo.components.ProceduralSpriteComponent;
+import game.evo.components.SceneryComponent;
+import game.evo.ecs.Entity;
+import game.evo.ecs.World;
+import game.evo.utils.GameConstants;
+import game.evo.utils.SpriteGenerator;
+
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * The terrain cut into chunks of CHUNK_TILES x CHUNK_TILES tiles, each drawn once into an opaque
+ * image together with the static scenery standing on it (entities with a SceneryComponent). A
+ * frame only copies the visible chunks, so drawing the map costs the same with or without
+ * scenery, and the scenery is no longer sorted and drawn as entities.
+ *
+ * The chunks follow the world through the SceneryComponent version: scenery added (spawns,
+ * respawns) is drawn into the chunks its sprite overlaps once the SpriteAtlas has baked it, and
+ * for scenery removed (eaten) only the region its sprite covered is drawn again, terrain first.
+ * A chunk is drawn when it first becomes visible and only the TERRAIN_CHUNK_CACHE_SIZE most
+ * recently shown are kept, so the memory used does not depend on the map size.
+ *
+ * Used only from the thread that draws, like the SpriteAtlas.
+ */
+public final class TerrainChunks {
+
+    private static final int CHUNK_TILES = 4;
+    private static final int CHUNK_PIXELS = CHUNK_TILES * GameConstants.CELL_SIZE;
+
+    /**
+     * Draws the terrain without scenery (the TerrainRenderer, or the prebaked map image).
+     */
+    public interface TerrainPainter {
+        /**
+         * Draws the terrain of the area of the map at world pixel (x, y) at the origin of g.
+         */
+        void paint(Graphics2D g, int x, int y, int width, int height);
+    }
+
+    /**
+     * A piece of scenery and where its sprite goes, in world pixels.
+     */
+    private static final class Placed {
+        final Entity entity;
+        final SceneryComponent scenery;
+        final int x;      // Sprite box, placed the way RenderSystem draws an entity on its tile
+        final int y;
+        Rectangle bounds; // Pixels covered by the sprite, null until its sheet is baked
+
+        Placed(Entity entity, SceneryComponent scenery, int x, int y) {
+            this.entity = entity;
+            this.scenery = scenery;
+            this.x = x;
+            this.y = y;
+        }
+    }
+
+    private static final class Chunk {
+        final long key;
+        final int originX; // World pixel of the top left corner
+        final int originY;
+        final List<Placed> scenery = new ArrayList<>(); // Sprites overlapping the chunk, in drawing order
+        BufferedImage image; // null until the chunk is first shown, or after it left the cache
+        Rectangle dirty;     // World pixels to draw again before the next copy, null if the image is current
+
+        Chunk(long key, int column, int row) {
+            this.key = key;
+            this.originX = column * CHUNK_PIXELS;
+            this.originY = row * CHUNK_PIXELS;
+        }
+    }
+
+    private final World world;
+    private final SpriteAtlas spriteAtlas;
+    private final TerrainPainter terrain;
+    private final Map<Entity, Placed> placed = new HashMap<>();
+    private final List<Placed> waiting = new ArrayList<>(); // Placed, but not baked yet
+    private final Map<Long, Chunk> chunks = new HashMap<>();
+    private final Map<Long, Chunk> drawnChunks = new LinkedHashMap<>(16, 0.75f, true) { // Access order = LRU
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, Chunk> eldest) {
+            if (size() <= GameConstants.TERRAIN_CHUNK_CACHE_SIZE) {
+                return false;
+            }
+            eldest.getValue().image = null; // Drawn again if it is shown again
+            eldest.getValue().dirty = null;
+            return true;
+        }
+    };
+    private int syncedVersion = -1;
+    private int version;        // Changes whenever the contents of the chunks change
+    private boolean retryDirty; // Some chunk could not be drawn completely (a sheet was evicted)
+
+    public TerrainChunks(World world, SpriteAtlas spriteAtlas, TerrainPainter terrain) {
+        this.world = world;
+        this.spriteAtlas = spriteAtlas;
+        this.terrain = terrain;
+    }
+
+    /**
+     * Picks up scenery added to or removed from the world and scenery whose sprite finished baking.
+     * @return A value that changes whenever render() would draw something different for the same
+     * camera, so a cached copy of the map knows when to redraw.
+     */
+    public int update() {
+        int sceneryVersion = world.getComponentVersion(SceneryComponent.class);
+        if (sceneryVersion != syncedVersion) {
+            syncedVersion = sceneryVersion;
+            sync();
+        }
+        if (!waiting.isEmpty()) {
+            placeBaked();
+        }
+        if (retryDirty) {
+            retryDirty = false;
+            version++;
+        }
+        return version;
+    }
+
+    /**
+     * Draws the chunks intersecting the viewport, drawing first the regions that changed.
+     * @param g The panel's graphics, in screen coordinates.
+     */
+    public void render(Graphics2D g, int cameraX, int cameraY, int screenWidth, int screenHeight) {
+        update();
+        int firstColumn = Math.floorDiv(cameraX, CHUNK_PIXELS);
+        int firstRow = Math.floorDiv(cameraY, CHUNK_PIXELS);
+        int lastColumn = Math.floorDiv(cameraX + screenWidth - 1, CHUNK_PIXELS);
+        int lastRow = Math.floorDiv(cameraY + screenHeight - 1, CHUNK_PIXELS);
+        for (int row = firstRow; row <= lastRow; row++) {
+            for (int column = firstColumn; column <= lastColumn; column++) {
+                Chunk chunk = chunkAt(column, row);
+                if (chunk.image == null || chunk.dirty != null) {
+                    redraw(chunk);
+                }
+                drawnChunks.get(chunk.key); // Marks it as recently shown
+                g.drawImage(chunk.image, chunk.originX - cameraX, chunk.originY - cameraY, null);
+            }
+        }
+    }
+
+    /**
+     * Diffs the placed scenery against the world's. Only runs when scenery was added or removed.
+     */
+    private void sync() {
+        Set<Entity> current = world.getEntitiesWithComponent(SceneryComponent.class);
+        List<Entity> replaced = new ArrayList<>();
+        Iterator<Placed> iterator = placed.values().iterator();
+        while (iterator.hasNext()) {
+            Placed piece = iterator.next();
+            boolean present = current.remove(piece.entity);
+            if (present && world.getComponent(piece.entity, SceneryComponent.class) == piece.scenery) {
+                continue;
+            }
+            iterator.remove();
+            unplace(piece);
+            if (present) {
+                replaced.add(piece.entity); // Same entity, new genes
+            }
+        }
+        // Whatever is left in 'current' is new.
+        current.addAll(replaced);
+        for (Entity entity : current) {
+            place(entity);
+        }
+    }
+
+    private void place(Entity entity) {
+        PositionComponent position = world.getComponent(entity, PositionComponent.class);
+        SceneryComponent scenery = world.getComponent(entity, SceneryComponent.class);
+        if (position == null || scenery == null || scenery.sprite == null) {
+            return;
+        }
+        ProceduralSpriteComponent sprite = scenery.sprite;
+        if (sprite.spriteHandle == 0) {
+            sprite.spriteHandle = spriteAtlas.handleFor(sprite, false);
+        }
+        int x = position.column * GameConstants.CELL_SIZE + (GameConstants.CELL_SIZE - SpriteGenerator.getWidthFor(sprite)) / 2;
+        int y = position.row * GameConstants.CELL_SIZE + (GameConstants.CELL_SIZE - SpriteGenerator.getHeightFor(sprite)) / 2;
+        Placed piece = new Placed(entity, scenery, x, y);
+        placed.put(entity, piece);
+        waiting.add(piece);
+    }
+
+    /**
+     * Adds the waiting scenery whose sheet is baked to the chunks it overlaps. The sheet is needed
+     * first because the area a sprite covers is only known once it is baked.
+     */
+    private void placeBaked() {
+        Iterator<Placed> iterator = waiting.iterator();
+        while (iterator.hasNext()) {
+            Placed piece = iterator.next();
+            ProceduralSpriteComponent sprite = piece.scenery.sprite;
+            Rectangle bounds = spriteAtlas.getStillBounds(sprite, sprite.spriteHandle, piece.x, piece.y);
+            if (bounds == null) {
+                continue;
+            }
+            iterator.remove();
+            piece.bounds = bounds;
+            forEachChunk(bounds, chunk -> {
+                chunk.scenery.add(piece);
+                invalidate(chunk, bounds);
+            });
+        }
+    }
+
+    private void unplace(Placed piece) {
+        if (piece.bounds == null) {
+            waiting.remove(piece);
+            return;
+        }
+        forEachChunk(piece.bounds, chunk -> {
+            chunk.scenery.remove(piece);
+            invalidate(chunk, piece.bounds);
+        });
+    }
+
+    private void invalidate(Chunk chunk, Rectangle area) {
+        if (chunk.image == null) {
+            return; // Drawn whole when it is shown
+        }
+        chunk.dirty = chunk.dirty == null ? new Rectangle(area) : chunk.dirty.union(area);
+        version++;
+    }
+
+    /**
+     * Draws the dirty region of a chunk (all of it for a chunk without an image): the terrain,
+     * then the scenery overlapping it, clipped to it.
+     */
+    private void redraw(Chunk chunk) {
+        Rectangle area = chunk.dirty;
+        if (chunk.image == null) {
+            chunk.image = new BufferedImage(CHUNK_PIXELS, CHUNK_PIXELS, BufferedImage.TYPE_INT_RGB);
+            drawnChunks.put(chunk.key, chunk);
+            area = new Rectangle(chunk.originX, chunk.originY, CHUNK_PIXELS, CHUNK_PIXELS);
+        }
+        area = area.intersection(new Rectangle(chunk.originX, chunk.originY, CHUNK_PIXELS, CHUNK_PIXELS));
+
+        Graphics2D g = chunk.image.createGraphics();
+        boolean complete = true;
+        try {
+            g.clipRect(area.x - chunk.originX, area.y - chunk.originY, area.width, area.height);
+            Graphics2D ground = (Graphics2D) g.create();
+            try {
+                ground.translate(area.x - chunk.originX, area.y - chunk.originY);
+                terrain.paint(ground, area.x, area.y, area.width, area.height);
+            } finally {
+                ground.dispose();
+            }
+
+            g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+            for (Placed piece : chunk.scenery) {
+                if (piece.bounds.intersects(area)) {
+                    ProceduralSpriteComponent sprite = piece.scenery.sprite;
+                    complete &= spriteAtlas.drawStillIfBaked(g, sprite, sprite.spriteHandle,
+                            piece.x - chunk.originX, piece.y - chunk.originY);
+                }
+            }
+        } finally {
+            g.dispose();
+        }
+        // A sheet evicted from the AssetManager is being baked again: draw the region once it is back.
+        chunk.dirty = complete ? null : area;
+        retryDirty |= !complete;
+    }
+
+    private Chunk chunkAt(int column, int row) {
+        long key = ((long) row << 32) | (column & 0xFFFFFFFFL);
+        Chunk chunk = chunks.get(key);
+        if (chunk == null) {
+            chunk = new Chunk(key, column, row);
+            chunks.put(key, chunk);
+        }
+        return chunk;
+    }
+
+    /**
+     * Runs an action on each chunk a sprite's bounds overlap.
+     */
+    private void forEachChunk(Rectangle bounds, Consumer<Chunk> action) {
+        int firstColumn = Math.floorDiv(bounds.x, CHUNK_PIXELS);
+        int firstRow = Math.floorDiv(bounds.y, CHUNK_PIXELS);
+        int lastColumn = Math.floorDiv(bounds.x + bounds.width - 1, CHUNK_PIXELS);
+        int lastRow = Math.floorDiv(bounds.y + bounds.height - 1, CHUNK_PIXELS);
+        for (int row = firstRow; row <= lastRow; row++) {
+            for (int column = firstColumn; column <= lastColumn; column++) {
+                action.accept(chunkAt(column, row));
+            }
+        }
+    }
+}
@@ -0,0 +1,211 @@
+package game.evo.view;
+
+import game.evo.utils.AssetManager;
+import game.evo.utils.GameConstants;
+import game.evo.world.GameMap;
+import game.evo.world.MapGenerator;
+import game.evo.world.TileType;
+
+import java.awt.AlphaComposite;
+import java.awt.Color;
+import java.awt.GradientPaint;
+import java.awt.Graphics2D;
+import java.awt.Image;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.awt.image.IndexColorModel;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Draws the terrain tile by tile from a small atlas instead of blitting a prebaked map image.
+ * The atlas holds one CELL_SIZE tile per biome (a bundled texture from assets/imgs/tiles,
+ * tinted with the biome color, or the flat color when there is no texture) plus one soft
+ * edge overlay per biome and side. Only the visible tiles are drawn each frame, so the
+ * memory used for the terrain no longer depends on the map size.
+ *
+ * Border transitions come from a 4-bit neighbour mask per tile (bit set = the neighbour on
+ * that side is a different biome), computed once from the logical grid. A precomputed table
+ * turns each mask into the list of sides whose overlay must be drawn on top of the tile.
+ */
+public class TerrainRenderer {
+
+    // Sides, in mask bit order.
+    private static final int NORTH = 0, EAST = 1, SOUTH = 2, WEST = 3;
+
+    private static final int BLEND_WIDTH = 8;          // Width of a border transition, in pixels
+    private static final float TEXTURE_TINT_ALPHA = 0.45f; // How much of the biome color covers the texture
+    private static final int EDGE_ALPHA = 160;          // Opacity of a neighbour's color right at the edge
+
+    // For every neighbour mask, the sides to draw an overlay on.
+    private static final int[][] SIDES_FOR_MASK = new int[16][];
+
+    static {
+        for (int mask = 0; mask < 16; mask++) {
+            int[] sides = new int[Integer.bitCount(mask)];
+            int n = 0;
+            for (int side = NORTH; side <= WEST; side++) {
+                if ((mask & (1 << side)) != 0) {
+                    sides[n++] = side;
+                }
+            }
+            SIDES_FOR_MASK[mask] = sides;
+        }
+    }
+
+    // Biome -> texture in assets/imgs/tiles. Biomes without an entry use their flat color.
+    private static final Map<TileType, String> TEXTURES = new EnumMap<>(TileType.class);
+
+    static {
+        TEXTURES.put(TileType.OCEAN_DEEP, "tiles/water.png");
+        TEXTURES.put(TileType.OCEAN_SHALLOW, "tiles/water.png");
+        TEXTURES.put(TileType.BEACH_SAND, "tiles/sand.png");
+        TEXTURES.put(TileType.DESERT, "tiles/sand.png");
+        TEXTURES.put(TileType.GRASSLAND, "tiles/grass.png");
+        TEXTURES.put(TileType.FOREST, "tiles/bush.png");
+        TEXTURES.put(TileType.JUNGLE, "tiles/bush.png");
+        TEXTURES.put(TileType.TUNDRA, "tiles/swamp.png");
+        TEXTURES.put(TileType.MOUNTAIN_ROCK, "tiles/gravel.png");
+    }
+
+    private final GameMap gameMap;
+    private final BufferedImage[] tiles;          // Indexed by TileType ordinal
+    private final BufferedImage[][] edgeOverlays; // [neighbour TileType ordinal][side]
+    private final int[] sideOffsets;              // Grid index offset of the neighbour on each side
+    private final byte[] neighbourMasks;          // Indexed like the GameMap grid (GameMap.indexOf)
+
+    public TerrainRenderer(GameMap gameMap) {
+        this.gameMap = gameMap;
+        IndexColorModel palette = MapGenerator.createBiomePalette();
+        TileType[] types = TileType.values();
+
+        this.tiles = new BufferedImage[types.length];
+        this.edgeOverlays = new BufferedImage[types.length][];
+        for (TileType type : types) {
+            Color color = new Color(palette.getRGB(type.ordinal()));
+            tiles[type.ordinal()] = createTile(type, color);
+            edgeOverlays[type.ordinal()] = createEdgeOverlays(color);
+        }
+
+        int stride = gameMap.getRowStride();
+        this.sideOffsets = new int[] {-stride, 1, stride, -1};
+        this.neighbourMasks = computeNeighbourMasks(gameMap, sideOffsets);
+    }
+
+    private static BufferedImage createTile(TileType type, Color color) {
+        int size = GameConstants.CELL_SIZE;
+        BufferedImage tile = new BufferedImage(size, size, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = tile.createGraphics();
+        try {
+            g.setColor(color);
+            g.fillRect(0, 0, size, size);
+
+            String texturePath = TEXTURES.get(type);
+            Image texture = texturePath != null ? AssetManager.getInstance().getImage(GameConstants.ASSETS_PATH + texturePath) : null;
+            if (texture != null) {
+                g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+                g.drawImage(texture, 0, 0, size, size, null);
+                // Tint so biomes sharing a texture (deep/shallow water...) stay distinguishable.
+                g.setComposite(AlphaComposite.getInstance(AlphaComposite.SRC_OVER, TEXTURE_TINT_ALPHA));
+                g.setColor(color);
+                g.fillRect(0, 0, size, size);
+            }
+        } finally {
+            g.dispose();
+        }
+        return tile;
+    }
+
+    /**
+     * Creates, for one biome color, the gradient drawn on a tile's side when that neighbour is this biome.
+     */
+    private static BufferedImage[] createEdgeOverlays(Color color) {
+        int size = GameConstants.CELL_SIZE;
+        Color edge = new Color(color.getRed(), color.getGreen(), color.getBlue(), EDGE_ALPHA);
+        Color clear = new Color(color.getRed(), color.getGreen(), color.getBlue(), 0);
+
+        BufferedImage[] overlays = new BufferedImage[4];
+        overlays[NORTH] = gradient(size, BLEND_WIDTH, new GradientPaint(0, 0, edge, 0, BLEND_WIDTH, clear));
+        overlays[SOUTH] = gradient(size, BLEND_WIDTH, new GradientPaint(0, BLEND_WIDTH, edge, 0, 0, clear));
+        overlays[WEST] = gradient(BLEND_WIDTH, size, new GradientPaint(0, 0, edge, BLEND_WIDTH, 0, clear));
+        overlays[EAST] = gradient(BLEND_WIDTH, size, new GradientPaint(BLEND_WIDTH, 0, edge, 0, 0, clear));
+        return overlays;
+    }
+
+    private static BufferedImage gradient(int width, int height, GradientPaint paint) {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g = image.createGraphics();
+        try {
+            g.setPaint(paint);
+            g.fillRect(0, 0, width, height);
+        } finally {
+            g.dispose();
+        }
+        return image;
+    }
+
+    private static byte[] computeNeighbourMasks(GameMap map, int[] sideOffsets) {
+        int width = map.getWidthInTiles();
+        int height = map.getHeightInTiles();
+        byte[] masks = new byte[map.indexOf(height, width) + 1];
+        for (int r = 0; r < height; r++) {
+            int rowIndex = map.indexOf(r, 0);
+            for (int c = 0; c < width; c++) {
+                int index = rowIndex + c;
+                TileType type = map.getTileAt(index);
+                int mask = 0;
+                for (int side = NORTH; side <= WEST; side++) {
+                    // The grid's UNKNOWN border makes every neighbour index valid
+                    TileType neighbour = map.getTileAt(index + sideOffsets[side]);
+                    if (neighbour != type && neighbour != TileType.UNKNOWN) {
+                        mask |= 1 << side; // The map edge (UNKNOWN) gets no transition
+                    }
+                }
+                masks[index] = (byte) mask;
+            }
+        }
+        return masks;
+    }
+
+    /**
+     * Draws the tiles intersecting the viewport.
+     * @param g The panel's graphics, in screen coordinates.
+     * @param cameraX World pixel shown at the left edge of the screen.
+     * @param cameraY World pixel shown at the top edge of the screen.
+     */
+    public void render(Graphics2D g, int cameraX, int cameraY, int screenWidth, int screenHeight) {
+        int size = GameConstants.CELL_SIZE;
+        int firstCol = Math.max(0, cameraX / size);
+        int firstRow = Math.max(0, cameraY / size);
+        int lastCol = Math.min(gameMap.getWidthInTiles() - 1, (cameraX + screenWidth) / size);
+        int lastRow = Math.min(gameMap.getHeightInTiles() - 1, (cameraY + screenHeight) / size);
+
+        // Pass 1: base tiles.
+        for (int r = firstRow; r <= lastRow; r++) {
+            int y = r * size - cameraY;
+            int rowIndex = gameMap.indexOf(r, 0);
+            for (int c = firstCol; c <= lastCol; c++) {
+                g.drawImage(tiles[gameMap.getTileAt(rowIndex + c).ordinal()], c * size - cameraX, y, null);
+            }
+        }
+
+        // Pass 2: transitions, after every base tile so overlays are never covered by a neighbour.
+        for (int r = firstRow; r <= lastRow; r++) {
+            int y = r * size - cameraY;
+            int rowIndex = gameMap.indexOf(r, 0);
+            for (int c = firstCol; c <= lastCol; c++) {
+                int index = rowIndex + c;
+                int mask = neighbourMasks[index];
+                if (mask == 0) continue;
+                int x = c * size - cameraX;
+                for (int side : SIDES_FOR_MASK[mask]) {
+                    TileType neighbour = gameMap.getTileAt(index + sideOffsets[side]);
+                    BufferedImage overlay = edgeOverlays[neighbour.ordinal()][side];
+                    int ox = (side == EAST) ? x + size - BLEND_WIDTH : x;
+                    int oy = (side == SOUTH) ? y + size - BLEND_WIDTH : y;
+                    g.drawImage(overlay, ox, oy, null);
+                }
+            }
+        }
+    }
+}
@@ -10,6 +10,7 @@ import game.evo.utils.GameConstants;
 import java.awt.Color;
 import java.util.Map;
 import java.util.Random;
+import java.util.function.LongSupplier;
 
 /**
  * Factory class to create game entities from configuration objects. It now uses
@@ -19,11 +20,20 @@ public class EntityFactory {
 
     private final World world;
     private final Random random = new Random();
+    private LongSupplier clock = System::currentTimeMillis; // Stamps the move timer of new NPCs
 
     public EntityFactory(World world) {
         this.world = world;
     }
 
+    /**
+     * Replaces the wall clock used to start the move timer of new NPCs. Must be the same clock
+     * the AISystem reads, e.g. the SimulationClock of a headless run.
+     */
+    public void setClock(LongSupplier clock) {
+        this.clock = clock;
+    }
+
     /**
      * Cria a entidade do jogador com base em sua configuração. A seed da
      * entidade é usada para gerar status e uma forma de sprite determinística.
@@ -95,6 +105,21 @@ public class EntityFactory {
         }
     }
 
+    /**
+     * Diz se uma entidade deste tipo e propriedades ganha um CollisionComponent e nunca se move,
+     * ou seja, bloqueia o seu tile para sempre (ver PopulationSystem.labelReachableRegions).
+     * Usa os mesmos padrões de "isWalkable" que createProceduralScenery e createStaticObject.
+     */
+    public static boolean isStaticObstacle(String type, Map<String, Object> properties) {
+        if ("ProceduralScenery".equals(type)) {
+            return !getBooleanFromProperties(properties, "isWalkable", true);
+        }
+        if ("StaticObject".equals(type)) {
+            return !getBooleanFromProperties(properties, "isWalkable", false);
+        }
+        return false;
+    }
+
     /**
      * Cria um objeto de cenário procedural (árvore, rocha, arbusto) a partir da
      * configuração. Este método lê propriedades do JSON para adicionar
@@ -107,7 +132,7 @@ public class EntityFactory {
         world.addComponent(sceneryEntity, new PositionComponent(config.row, config.column));
 
         // LÓGICA DE SEED: Usa a seed do JSON, ou gera uma aleatória se não existir
-        long entitySeed = getLongFromProperties(config.properties, "seed", random.nextLong());
+        long entitySeed = getEntitySeed(config);
         Random rand = new Random(entitySeed);
 
         boolean isWalkable = getBooleanFromProperties(config.properties, "isWalkable", true);
@@ -148,9 +173,14 @@ public class EntityFactory {
             }
         }
 
-        world.addComponent(sceneryEntity, new ProceduralSpriteComponent(
+        ProceduralSpriteComponent sprite = new ProceduralSpriteComponent(
                 entitySeed, size, primaryColor, secondaryColor, bodyType
-        ));
+        );
+        if (GameConstants.STATIC_SCENERY_BAKING_ENABLED) {
+            world.addComponent(sceneryEntity, new SceneryComponent(sprite)); // Desenhado no terreno, não como entidade
+        } else {
+            world.addComponent(sceneryEntity, sprite);
+        }
 
         System.out.println("[INFO EntityFactory] Procedural Scenery '" + bodyType + "' created with seed: " + entitySeed);
         return sceneryEntity;
@@ -178,7 +208,7 @@ public class EntityFactory {
         ProceduralSpriteComponent.BodyType npcBodyType = getBodyTypeFromProperties(config.properties, "bodyType", ProceduralSpriteComponent.BodyType.BIPED_TERRESTRIAL);
 
         // LÓGICA DE SEED: Usa a seed do JSON, ou gera uma aleatória se não existir
-        long entitySeed = getLongFromProperties(config.properties, "seed", random.nextLong());
+        long entitySeed = getEntitySeed(config);
         Random rand = new Random(entitySeed); // Cria um gerador aleatório com a seed da entidade
 
         // GERAÇÃO DE CORES ALEATÓRIAS
@@ -198,7 +228,13 @@ public class EntityFactory {
                 entitySeed, npcSize, primaryColor, secondaryColor, npcBodyType
         ));
 
-        AiComponent ai = new AiComponent(AiComponent.BehaviorType.WANDER_RANDOM, moveDelay);
+        // The behavior comes from the optional "behavior" property, otherwise from the temperament
+        AiComponent.BehaviorType behavior = getBehaviorTypeFromProperties(config.properties, "behavior", AiComponent.BehaviorType.forTemperament(temperament));
+        AiComponent ai = new AiComponent(behavior, moveDelay);
+        ai.lastMoveTime = clock.getAsLong();
+        ai.patrolRange = getIntFromProperties(config.properties, "patrolRange", 3);
+        ai.initialRow = config.row;
+        ai.initialColumn = config.column;
         world.addComponent(npcEntity, ai);
 
         System.out.println("[INFO EntityFactory] Created " + temperament + " " + diet + " NPC with seed: " + entitySeed);
@@ -236,7 +272,7 @@ public class EntityFactory {
         world.addComponent(foodEntity, new FoodComponent(nutrition));
 
         world.addComponent(foodEntity, new ProceduralSpriteComponent(
-                random.nextLong(), size, Color.RED, Color.WHITE,
+                getEntitySeed(config), size, Color.RED, Color.WHITE,
                 ProceduralSpriteComponent.BodyType.MEAT_CHUNK
         ));
 
@@ -307,6 +343,16 @@ public class EntityFactory {
                 hpIV, attackIV, defenseIV, speedIV, specialIV);
     }
 
+    /**
+     * A seed da entidade: a "seed" das properties, senão EntityConfig.seed, senão uma aleatória.
+     */
+    private long getEntitySeed(EntityConfig config) {
+        if (config.properties != null && config.properties.get("seed") instanceof Number) {
+            return ((Number) config.properties.get("seed")).longValue();
+        }
+        return config.seed != null ? config.seed : random.nextLong();
+    }
+
     // --- Utility functions to safely read from the 'properties' map ---
     private int getIntFromProperties(Map<String, Object> props, String key, int defaultValue) {
         if (props != null && props.get(key) instanceof Number) {
@@ -329,7 +375,7 @@ public class EntityFactory {
         return defaultValue;
     }
 
-    private boolean getBooleanFromProperties(Map<String, Object> props, String key, boolean defaultValue) {
+    private static boolean getBooleanFromProperties(Map<String, Object> props, String key, boolean defaultValue) {
         if (props != null && props.get(key) instanceof Boolean) {
             return (Boolean) props.get(key);
         }
@@ -347,6 +393,17 @@ public class EntityFactory {
         return defaultValue;
     }
 
+    private AiComponent.BehaviorType getBehaviorTypeFromProperties(Map<String, Object> props, String key, AiComponent.BehaviorType defaultValue) {
+        if (props != null && props.get(key) instanceof String) {
+            try {
+                return AiComponent.BehaviorType.valueOf(((String) props.get(key)).toUpperCase());
+            } catch (IllegalArgumentException e) {
+                System.err.println("[WARN EntityFactory] Invalid BehaviorType '" + props.get(key) + "'. Using default.");
+            }
+        }
+        return defaultValue;
+    }
+
     private EcologyComponent.DietaryType getDietaryTypeFromProperties(Map<String, Object> props, String key, EcologyComponent.DietaryType defaultValue) {
         if (props != null && props.get(key) instanceof String) {
             try {
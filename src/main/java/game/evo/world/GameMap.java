@@ -7,89 +7,122 @@ import game.evo.ecs.Entity;
 import game.evo.ecs.World;
 import game.evo.utils.GameConstants;
 
-import javax.imageio.ImageIO;
 import java.awt.image.BufferedImage;
-import java.io.File;
-import java.io.IOException;
+import java.util.Arrays;
 
 /**
  * Gerencia o mapa do jogo, orquestrando a geração procedural e o armazenamento
  * da imagem visual e da grade lógica.
- * REFATORADO: Agora implementa um sistema de cache para acelerar o carregamento.
+ * REFATORADO: Agora implementa um sistema de cache para acelerar o carregamento (ver MapCacheFile).
  */
 public class GameMap {
     private final int widthInTiles;
     private final int heightInTiles;
     private final World world;
 
-    private TileType[][] logicalGrid;
+    // Grade lógica: um byte (ordinal do TileType) por tile, linha a linha, com uma borda de UNKNOWN
+    // de um tile em volta do mapa. Assim os vizinhos de qualquer tile do mapa (índice ± 1, ± stride)
+    // são sempre índices válidos e nenhuma consulta de vizinho precisa testar limites.
+    private final int stride;
+    private final byte[] tiles;
+    private RegionLabels regions; // Regiões conectadas de tiles andáveis
     private BufferedImage mapImage;
 
     /**
      * Constrói e gera um GameMap.
-     * Primeiro, tenta carregar o mapa de um arquivo de cache. Se não encontrar,
-     * gera um novo mapa proceduralmente e o salva em cache para uso futuro.
+     * Primeiro procura um cache .evomap válido para o nível (embutido no classpath pelo MapBaker ou
+     * salvo em cache/); se não encontrar, gera o mapa e o salva em cache/.
+     * Com TILE_ATLAS_RENDERING_ENABLED o terreno é desenhado tile a tile pelo TerrainRenderer
+     * e só a grade lógica é necessária.
      * @param world A instância do mundo ECS.
      * @param config A configuração completa do nível, contendo a seed e outras informações.
      */
     public GameMap(World world, LevelConfig config) {
+        this(world, config, !GameConstants.TILE_ATLAS_RENDERING_ENABLED, true);
+    }
+
+    /**
+     * Constrói um GameMap, opcionalmente sem a imagem visual.
+     * Sem imagem, apenas a grade lógica é gerada e o cache em disco não é usado,
+     * o que serve para simulações e ferramentas que não desenham o mapa.
+     * @param world A instância do mundo ECS.
+     * @param config A configuração completa do nível.
+     * @param withImage Se false, gera somente a grade lógica.
+     */
+    public GameMap(World world, LevelConfig config, boolean withImage) {
+        this(world, config, withImage, withImage);
+    }
+
+    private GameMap(World world, LevelConfig config, boolean withImage, boolean useCache) {
         if (world == null || config == null) {
             throw new IllegalArgumentException("World e LevelConfig não podem ser nulos para a inicialização do GameMap.");
         }
         this.widthInTiles = config.mapWidth;
         this.heightInTiles = config.mapHeight;
         this.world = world;
+        this.stride = widthInTiles + 2;
 
-        // --- LÓGICA DE CACHE ---
-        String cacheFileName = "cache/map_seed_" + config.proceduralSeed + ".png";
-        File cacheFile = new File(cacheFileName);
+        if (useCache) {
+            this.tiles = loadOrGenerate(config, withImage);
+        } else {
+            this.tiles = new MapGenerator(config).generateLogicalGridOnly(widthInTiles, heightInTiles, config.noiseScale);
+            this.regions = RegionLabels.label(tiles, widthInTiles, heightInTiles);
+        }
 
-        if (cacheFile.exists() && !GameConstants.DEBUG_MODE_ON) { // O cache é ignorado em modo debug para forçar a regeneração
-            System.out.println("[INFO GameMap] Loading map from cache file: " + cacheFileName);
-            try {
-                // Carrega a imagem do mapa diretamente do arquivo de cache
-                this.mapImage = ImageIO.read(cacheFile);
+        createEntitiesForSpecialTiles();
+    }
 
-                // A grade lógica ainda precisa ser gerada para colisões e biomas
-                MapGenerator logicalGenerator = new MapGenerator(config);
-                this.logicalGrid = logicalGenerator.generateLogicalGridOnly(config.mapWidth, config.mapHeight, config.noiseScale);
+    /**
+     * Usa o cache do nível quando ele existe e é válido (o cache é ignorado em modo debug para
+     * forçar a regeneração). Sem cache, a grade é gerada e salva em cache/ para os próximos
+     * carregamentos. A imagem só é lida do cache se ele a tiver (MapBaker --images) com as
+     * configurações atuais; senão é desenhada a partir da grade, o que não exige ruído.
+     */
+    private byte[] loadOrGenerate(LevelConfig config, boolean withImage) {
+        MapCacheFile cache = GameConstants.DEBUG_MODE_ON ? null : MapCacheFile.load(config, withImage);
 
-            } catch (IOException e) {
-                System.err.println("Failed to load map from cache. Regenerating...");
-                generateAndCacheMap(config);
+        if (cache == null) {
+            System.out.println("[INFO GameMap] No cache found or debug mode is on. Generating new map...");
+            MapGenerator generator = new MapGenerator(config);
+            byte[] generated = generator.generateLogicalGridOnly(widthInTiles, heightInTiles, config.noiseScale);
+            if (withImage) {
+                this.mapImage = generator.generateImage(generated, widthInTiles, heightInTiles);
             }
+            this.regions = RegionLabels.label(generated, widthInTiles, heightInTiles);
+            // Só a grade vai para o cache: redesenhar a imagem a partir dela é mais rápido que decodificar um PNG
+            new MapCacheFile(generated, widthInTiles, heightInTiles, regions, null, GameConstants.MAP_BLENDING_ENABLED).saveLocal(config);
+            return generated;
+        }
+
+        this.regions = cache.getRegions();
+        if (!withImage) {
+            return cache.getTiles();
+        }
+        if (cache.hasUsableImage()) {
+            this.mapImage = cache.getMapImage();
         } else {
-            System.out.println("[INFO GameMap] No cache found or debug mode is on. Generating new map...");
-            generateAndCacheMap(config);
+            // A grade veio do cache; só a imagem precisa ser desenhada (sem ruído)
+            System.out.println("[INFO GameMap] Drawing map image from the cached grid...");
+            this.mapImage = new MapGenerator(config).generateImage(cache.getTiles(), widthInTiles, heightInTiles);
         }
+        return cache.getTiles();
+    }
 
-        createEntitiesForSpecialTiles();
+    /**
+     * Novo array de grade com borda para um mapa width x height, todo UNKNOWN. O MapGenerator e o
+     * MapCacheFile escrevem as linhas direto nele (a partir de rowStart), sem matriz intermediária.
+     */
+    static byte[] newTileArray(int width, int height) {
+        byte[] tiles = new byte[(height + 2) * (width + 2)];
+        Arrays.fill(tiles, (byte) TileType.UNKNOWN.ordinal());
+        return tiles;
     }
-    
-    
+
     /**
-     * Método auxiliar que centraliza a lógica de gerar um novo mapa e salvá-lo em cache.
+     * Índice do tile (row, 0) no array de grade com borda de um mapa com esta largura.
      */
-    private void generateAndCacheMap(LevelConfig config) {
-        MapGenerator generator = new MapGenerator(config);
-        generator.generate(config.mapWidth, config.mapHeight, GameConstants.CELL_SIZE, config.noiseScale);
-        
-        this.mapImage = generator.getMapImage();
-        this.logicalGrid = generator.getLogicalGrid();
-
-        // Salva a imagem recém-gerada no cache para uso futuro
-        try {
-            File cacheDir = new File("cache");
-            if (!cacheDir.exists()) {
-                cacheDir.mkdirs(); // Cria a pasta 'cache' se ela não existir
-            }
-            String cacheFileName = "cache/map_seed_" + config.proceduralSeed + ".png";
-            ImageIO.write(this.mapImage, "PNG", new File(cacheFileName));
-            System.out.println("[INFO GameMap] Map saved to cache: " + cacheFileName);
-        } catch (IOException e) {
-            System.err.println("Error saving map to cache file.");
-            e.printStackTrace();
-        }
+    static int rowStart(int width, int row) {
+        return (row + 1) * (width + 2) + 1;
     }
 
     /**
@@ -97,15 +130,12 @@ public class GameMap {
      * para quaisquer tiles que não sejam "andáveis", para que possam fazer parte do sistema de colisão.
      */
     private void createEntitiesForSpecialTiles() {
-        if (logicalGrid == null) {
-             System.err.println("[ERROR GameMap] Logical grid is null. Cannot create special tile entities.");
-             return;
-        }
         for (int r = 0; r < heightInTiles; r++) {
+            int index = indexOf(r, 0);
             for (int c = 0; c < widthInTiles; c++) {
-                TileType currentType = logicalGrid[r][c];
+                TileType currentType = getTileAt(index + c);
                 
-                if (currentType != null && !currentType.isWalkable) {
+                if (!currentType.isWalkable) {
                     Entity obstacleEntity = world.createEntity();
                     world.addComponent(obstacleEntity, new PositionComponent(r, c));
                     world.addComponent(obstacleEntity, new CollisionComponent());
@@ -121,26 +151,81 @@ public class GameMap {
      * @return O TileType nessa posição, ou TileType.UNKNOWN se fora dos limites.
      */
     public TileType getLogicalTileType(int row, int column) {
-        if (logicalGrid != null && row >= 0 && row < heightInTiles && column >= 0 && column < widthInTiles) {
-            return logicalGrid[row][column];
+        // Uma comparação sem sinal por eixo: aceita também a borda (-1 e width/height), que já é UNKNOWN
+        if (Integer.compareUnsigned(row + 1, heightInTiles + 2) < 0 && Integer.compareUnsigned(column + 1, stride) < 0) {
+            return TileType.VALUES[tiles[indexOf(row, column)]];
         }
         return TileType.UNKNOWN;
     }
+
+    /**
+     * Regiões conectadas de tiles andáveis, calculadas na geração do mapa e guardadas no cache.
+     * Dois tiles são alcançáveis um a partir do outro se estão na mesma região. Considera só o
+     * terreno; para incluir os obstáculos de cenário, veja labelRegions.
+     */
+    public RegionLabels getRegions() {
+        return regions;
+    }
+
+    /**
+     * Regiões conectadas tratando também alguns tiles andáveis como bloqueados (obstáculos como
+     * rochas e árvores com colisão). getRegions só conhece o terreno, que é o que vai para o cache;
+     * a grade do mapa não muda.
+     * @param blocked Índices (de indexOf) dos tiles bloqueados.
+     */
+    public RegionLabels labelRegions(int[] blocked) {
+        byte[] withObstacles = tiles.clone();
+        for (int index : blocked) {
+            withObstacles[index] = (byte) TileType.UNKNOWN.ordinal();
+        }
+        return RegionLabels.label(withObstacles, widthInTiles, heightInTiles);
+    }
+
+    /**
+     * Índice de um tile no array da grade. Válido para -1 <= row <= heightInTiles e
+     * -1 <= column <= widthInTiles (a borda); os vizinhos de um tile do mapa ficam em
+     * index - 1, index + 1, index - getRowStride() e index + getRowStride().
+     */
+    public int indexOf(int row, int column) {
+        return (row + 1) * stride + column + 1;
+    }
+
+    /**
+     * Tipo do tile em um índice obtido de indexOf, sem teste de limites.
+     */
+    public TileType getTileAt(int index) {
+        return TileType.VALUES[tiles[index]];
+    }
+
+    /**
+     * Distância, no array da grade, entre um tile e o tile logo abaixo.
+     */
+    public int getRowStride() {
+        return stride;
+    }
     
     /**
      * Retorna a imagem pré-renderizada de todo o mapa.
-     * @return O BufferedImage do mapa.
+     * @return O BufferedImage do mapa, ou null se o mapa foi criado sem imagem.
      */
     public BufferedImage getMapImage() {
         return this.mapImage;
     }
 
     /**
-     * Retorna a matriz 2D que representa a grade lógica do mapa.
-     * @return A grade lógica TileType[][].
+     * Retorna uma cópia da grade lógica como matriz 2D, por compatibilidade. Para percorrer o mapa
+     * prefira getLogicalTileType ou indexOf/getTileAt, que não alocam.
+     * @return Uma nova matriz TileType[heightInTiles][widthInTiles].
      */
     public TileType[][] getLogicalGrid() {
-        return this.logicalGrid;
+        TileType[][] grid = new TileType[heightInTiles][widthInTiles];
+        for (int r = 0; r < heightInTiles; r++) {
+            int index = indexOf(r, 0);
+            for (int c = 0; c < widthInTiles; c++) {
+                grid[r][c] = getTileAt(index + c);
+            }
+        }
+        return grid;
     }
     
     public int getWidthInTiles() {
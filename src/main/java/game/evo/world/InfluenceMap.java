@@ -0,0 +1,225 @@
+package game.evo.world;
+
+/**
+ * A set of low-resolution influence layers laid over the GameMap grid.
+ * Each layer cell covers TILES_PER_CELL x TILES_PER_CELL tiles and holds two parts:
+ * the exact "presence" of the sources currently standing in (or next to) the cell,
+ * and a decaying "trail" left behind when a source moves away or disappears.
+ * Both use the same 3x3 stamp, so when a source leaves a cell the values around it
+ * do not jump: its presence turns into a trail of the same shape that then fades.
+ * Sources are stamped and unstamped incrementally, so sampling a layer is O(1)
+ * and the cost of an update only depends on how many sources changed cell.
+ */
+public class InfluenceMap {
+
+    /**
+     * The kinds of influence tracked by the map.
+     */
+    public enum Layer {
+        DANGER,   // Aggressive NPCs and the player
+        FOOD,     // Entities with a FoodComponent
+        CROWDING  // Every NPC
+    }
+
+    public static final int TILES_PER_CELL = 2;
+
+    // Weights of the 3x3 stamp around the source cell (center, edges, corners).
+    private static final int WEIGHT_CENTER = 4;
+    private static final int WEIGHT_EDGE = 2;
+    private static final int WEIGHT_CORNER = 1;
+    private static final float PRESENCE_SCALE = 1.0f / WEIGHT_CENTER;
+
+    private static final int MAX_TRAIL_AGE = 64; // Beyond this age a trail is considered gone
+
+    private final int cellsWide;
+    private final int cellsHigh;
+
+    // Integer presence keeps stamp/unstamp exact, so values never drift.
+    private final int[][] presence;
+    private final float[][] trail;
+    private final int[][] trailTick;
+    private final float[] decayByAge;
+
+    private int currentTick = 0;
+
+    /**
+     * Creates empty influence layers covering the given map.
+     * @param gameMap The map whose grid the layers cover.
+     * @param decayPerTick Fraction (0..1) of a trail kept from one tick to the next.
+     */
+    public InfluenceMap(GameMap gameMap, float decayPerTick) {
+        this(gameMap.getWidthInTiles(), gameMap.getHeightInTiles(), decayPerTick);
+    }
+
+    public InfluenceMap(int widthInTiles, int heightInTiles, float decayPerTick) {
+        this.cellsWide = Math.max(1, (widthInTiles + TILES_PER_CELL - 1) / TILES_PER_CELL);
+        this.cellsHigh = Math.max(1, (heightInTiles + TILES_PER_CELL - 1) / TILES_PER_CELL);
+
+        int layers = Layer.values().length;
+        int cells = cellsWide * cellsHigh;
+        this.presence = new int[layers][cells];
+        this.trail = new float[layers][cells];
+        this.trailTick = new int[layers][cells];
+
+        // Decay is applied lazily when a cell is read or written, using this table.
+        this.decayByAge = new float[MAX_TRAIL_AGE + 1];
+        float factor = 1.0f;
+        for (int age = 0; age <= MAX_TRAIL_AGE; age++) {
+            decayByAge[age] = factor;
+            factor *= decayPerTick;
+        }
+        decayByAge[MAX_TRAIL_AGE] = 0.0f;
+    }
+
+    /**
+     * Advances the decay clock by one tick. Called once per game tick, before sources are updated.
+     */
+    public void advanceTick() {
+        currentTick++;
+    }
+
+    /**
+     * Converts a tile coordinate into the index of the layer cell that contains it.
+     * @return The cell index, or -1 if the tile lies outside the map.
+     */
+    public int cellIndexFor(int row, int column) {
+        if (row < 0 || column < 0) {
+            return -1;
+        }
+        int cellRow = row / TILES_PER_CELL;
+        int cellCol = column / TILES_PER_CELL;
+        if (cellRow >= cellsHigh || cellCol >= cellsWide) {
+            return -1;
+        }
+        return cellRow * cellsWide + cellCol;
+    }
+
+    /**
+     * Stamps a source of the given strength around a cell.
+     */
+    public void addSource(Layer layer, int cellIndex, int strength) {
+        stamp(presence[layer.ordinal()], cellIndex, strength);
+    }
+
+    /**
+     * Removes a previously added source. Its contribution is turned into a decaying trail.
+     */
+    public void removeSource(Layer layer, int cellIndex, int strength) {
+        if (cellIndex < 0) {
+            return;
+        }
+        int l = layer.ordinal();
+        stamp(presence[l], cellIndex, -strength);
+        leaveTrail(l, cellIndex, strength);
+    }
+
+    /**
+     * Moves a source from one cell to another, updating only the touched cells.
+     */
+    public void moveSource(Layer layer, int fromCell, int toCell, int strength) {
+        if (fromCell == toCell) {
+            return;
+        }
+        removeSource(layer, fromCell, strength);
+        addSource(layer, toCell, strength);
+    }
+
+    /**
+     * The share of a unit-strength source's presence that one of its stamp cells holds, as
+     * returned by sample(). Lets a source subtract its own stamp from what it samples.
+     * @return 0 when the cell is outside the source's 3x3 stamp.
+     */
+    public float presenceShare(int sourceCell, int cellIndex) {
+        if (sourceCell < 0 || cellIndex < 0) {
+            return 0.0f;
+        }
+        int dr = Math.abs(cellIndex / cellsWide - sourceCell / cellsWide);
+        int dc = Math.abs(cellIndex % cellsWide - sourceCell % cellsWide);
+        if (dr > 1 || dc > 1) {
+            return 0.0f;
+        }
+        return weight(dr, dc) * PRESENCE_SCALE;
+    }
+
+    /**
+     * The share of a unit-strength trail left around trailCell at trailTick that one cell still holds.
+     */
+    public float trailShare(int trailCell, int trailTick, int cellIndex) {
+        int age = Math.min(MAX_TRAIL_AGE, currentTick - trailTick);
+        return presenceShare(trailCell, cellIndex) * decayByAge[age];
+    }
+
+    public int getCurrentTick() {
+        return currentTick;
+    }
+
+    /**
+     * Samples a layer at a tile coordinate in O(1).
+     * @return The combined presence and decayed trail, or 0 outside the map.
+     */
+    public float sample(Layer layer, int row, int column) {
+        int cell = cellIndexFor(row, column);
+        if (cell < 0) {
+            return 0.0f;
+        }
+        int l = layer.ordinal();
+        return presence[l][cell] * PRESENCE_SCALE + decayedTrail(l, cell);
+    }
+
+    private void stamp(int[] values, int cellIndex, int strength) {
+        if (cellIndex < 0) {
+            return;
+        }
+        int cellRow = cellIndex / cellsWide;
+        int cellCol = cellIndex % cellsWide;
+        for (int dr = -1; dr <= 1; dr++) {
+            int r = cellRow + dr;
+            if (r < 0 || r >= cellsHigh) continue;
+            for (int dc = -1; dc <= 1; dc++) {
+                int c = cellCol + dc;
+                if (c < 0 || c >= cellsWide) continue;
+                values[r * cellsWide + c] += weight(dr, dc) * strength;
+            }
+        }
+    }
+
+    /**
+     * Turns a removed presence stamp into a trail with the same 3x3 shape and values.
+     */
+    private void leaveTrail(int layer, int cellIndex, int strength) {
+        int cellRow = cellIndex / cellsWide;
+        int cellCol = cellIndex % cellsWide;
+        for (int dr = -1; dr <= 1; dr++) {
+            int r = cellRow + dr;
+            if (r < 0 || r >= cellsHigh) continue;
+            for (int dc = -1; dc <= 1; dc++) {
+                int c = cellCol + dc;
+                if (c < 0 || c >= cellsWide) continue;
+                int cell = r * cellsWide + c;
+                trail[layer][cell] = decayedTrail(layer, cell) + weight(dr, dc) * strength * PRESENCE_SCALE;
+                trailTick[layer][cell] = currentTick;
+            }
+        }
+    }
+
+    private static int weight(int dr, int dc) {
+        return (dr == 0 && dc == 0) ? WEIGHT_CENTER : (dr == 0 || dc == 0) ? WEIGHT_EDGE : WEIGHT_CORNER;
+    }
+
+    private float decayedTrail(int layer, int cellIndex) {
+        float value = trail[layer][cellIndex];
+        if (value == 0.0f) {
+            return 0.0f;
+        }
+        int age = Math.min(MAX_TRAIL_AGE, currentTick - trailTick[layer][cellIndex]);
+        return value * decayByAge[age];
+    }
+
+    public int getCellsWide() {
+        return cellsWide;
+    }
+
+    public int getCellsHigh() {
+        return cellsHigh;
+    }
+}
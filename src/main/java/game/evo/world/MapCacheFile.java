@@ -0,0 +1,324 @@
+package game.evo.world;
+
+import game.evo.config.LevelConfig;
+import game.evo.config.TerrainRuleConfig;
+import game.evo.utils.GameConstants;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Cache de um mapa gerado, no formato binário versionado ".evomap".
+ *
+ * Layout (DataOutputStream, big-endian):
+ *   int     MAGIC ("EVOM")
+ *   int     FORMAT_VERSION
+ *   long    fingerprint of the level's map settings (see fingerprint)
+ *   int     width, height (in tiles)
+ *   byte[]  width * height TileType ordinals, row-major
+ *   int     region count N, then int[N] region sizes (ids 1..N)
+ *   runs    width * height region ids, row-major (see RegionLabels), run-length encoded as
+ *           (varint id, varint length) pairs; regions are large contiguous areas, so this
+ *           takes a few bytes per row instead of 4 bytes per tile
+ *   boolean hasImage
+ *   if hasImage: int cellSize, boolean blended, int length, byte[length] PNG
+ *
+ * A file is only used when its version and fingerprint match the current level config,
+ * so a stale cache is ignored instead of producing a wrong map. The image is optional:
+ * with tile atlas rendering only the grid is needed.
+ *
+ * Caches are looked up first on the classpath (assets/mapcache, baked by MapBaker and
+ * bundled with the game) and then in the local cache/ folder written at runtime.
+ */
+public final class MapCacheFile {
+
+    public static final String EXTENSION = ".evomap";
+    public static final String CLASSPATH_DIR = "assets/mapcache/";
+    public static final String LOCAL_DIR = "cache";
+
+    private static final int MAGIC = 0x45564F4D; // "EVOM"
+    private static final int FORMAT_VERSION = 3;
+
+    private final byte[] tiles; // In GameMap's padded layout (see GameMap.newTileArray)
+    private final int width;
+    private final int height;
+    private final RegionLabels regions;
+    private final BufferedImage mapImage; // May be null
+    private final boolean blended;
+
+    public MapCacheFile(byte[] tiles, int width, int height, RegionLabels regions, BufferedImage mapImage, boolean blended) {
+        this.tiles = tiles;
+        this.width = width;
+        this.height = height;
+        this.regions = regions;
+        this.mapImage = mapImage;
+        this.blended = blended;
+    }
+
+    /**
+     * @return The logical grid in GameMap's padded layout, ready to be used as is.
+     */
+    public byte[] getTiles() { return tiles; }
+    public RegionLabels getRegions() { return regions; }
+    public BufferedImage getMapImage() { return mapImage; }
+    public boolean isBlended() { return blended; }
+
+    /**
+     * @return true if the cached image can be drawn as is with the current settings.
+     */
+    public boolean hasUsableImage() {
+        return mapImage != null && blended == GameConstants.MAP_BLENDING_ENABLED;
+    }
+
+    /**
+     * Nome do arquivo de cache de um nível. O conteúdo é validado pelo fingerprint, então o nome
+     * só precisa distinguir as seeds.
+     */
+    public static String fileNameFor(LevelConfig config) {
+        return "map_seed_" + config.proceduralSeed + EXTENSION;
+    }
+
+    /**
+     * Hash (FNV-1a, 64 bits) of everything that determines the logical grid: the generator
+     * version, seed, dimensions, noise scale and terrain rules.
+     */
+    public static long fingerprint(LevelConfig config) {
+        Fnv hash = new Fnv();
+        hash.add(MapGenerator.ALGORITHM_VERSION);
+        hash.add(config.proceduralSeed);
+        hash.add(config.mapWidth);
+        hash.add(config.mapHeight);
+        hash.add(Double.doubleToLongBits(config.noiseScale));
+        if (config.terrainRules != null) {
+            hash.add(config.terrainRules.size());
+            for (TerrainRuleConfig rule : config.terrainRules) {
+                if (rule == null) {
+                    hash.add(-1);
+                    continue;
+                }
+                hash.add(rule.biome == null ? "" : rule.biome);
+                hash.add(Double.doubleToLongBits(rule.maxElevation));
+                hash.add(rule.minMoisture == null ? 0 : 1);
+                hash.add(rule.minMoisture == null ? 0 : Double.doubleToLongBits(rule.minMoisture));
+                hash.add(rule.maxMoisture == null ? 0 : 1);
+                hash.add(rule.maxMoisture == null ? 0 : Double.doubleToLongBits(rule.maxMoisture));
+            }
+        }
+        return hash.value;
+    }
+
+    /**
+     * Procura o cache do nível no classpath e depois na pasta cache/.
+     * @param withImage Se false, a imagem do cache (se houver) nem é decodificada.
+     * @return O cache válido para esta configuração, ou null se não houver nenhum.
+     */
+    public static MapCacheFile load(LevelConfig config, boolean withImage) {
+        String fileName = fileNameFor(config);
+        try (InputStream in = MapCacheFile.class.getClassLoader().getResourceAsStream(CLASSPATH_DIR + fileName)) {
+            if (in != null) {
+                MapCacheFile cache = read(in, config, withImage);
+                if (cache != null) {
+                    System.out.println("[INFO MapCacheFile] Loaded bundled map cache: " + CLASSPATH_DIR + fileName);
+                    return cache;
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("[WARN MapCacheFile] Failed to read bundled map cache " + fileName + ": " + e.getMessage());
+        }
+
+        File localFile = new File(LOCAL_DIR, fileName);
+        if (localFile.exists()) {
+            try (InputStream in = new FileInputStream(localFile)) {
+                MapCacheFile cache = read(in, config, withImage);
+                if (cache != null) {
+                    System.out.println("[INFO MapCacheFile] Loaded map cache: " + localFile.getPath());
+                    return cache;
+                }
+            } catch (IOException e) {
+                System.err.println("[WARN MapCacheFile] Failed to read map cache " + localFile.getPath() + ": " + e.getMessage());
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Salva este cache na pasta cache/ local.
+     */
+    public void saveLocal(LevelConfig config) {
+        File cacheDir = new File(LOCAL_DIR);
+        if (!cacheDir.exists()) {
+            cacheDir.mkdirs(); // Cria a pasta 'cache' se ela não existir
+        }
+        File file = new File(cacheDir, fileNameFor(config));
+        try (OutputStream out = new FileOutputStream(file)) {
+            write(out, config);
+            System.out.println("[INFO MapCacheFile] Map saved to cache: " + file.getPath());
+        } catch (IOException e) {
+            System.err.println("[WARN MapCacheFile] Error saving map cache " + file.getPath() + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Reads a cache, returning null if it was written for another format version or level config.
+     * @param withImage If false, the image section is skipped without decoding it.
+     */
+    public static MapCacheFile read(InputStream input, LevelConfig config, boolean withImage) throws IOException {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(input));
+        if (in.readInt() != MAGIC) {
+            throw new IOException("Not a map cache file.");
+        }
+        if (in.readInt() != FORMAT_VERSION || in.readLong() != fingerprint(config)) {
+            return null; // Stale: written by another version or for other map settings
+        }
+        int width = in.readInt();
+        int height = in.readInt();
+        if (width != config.mapWidth || height != config.mapHeight) {
+            return null;
+        }
+
+        // Rows are read straight into the padded array; the border stays UNKNOWN.
+        byte[] tiles = GameMap.newTileArray(width, height);
+        for (int r = 0; r < height; r++) {
+            int row = GameMap.rowStart(width, r);
+            in.readFully(tiles, row, width);
+            for (int c = 0; c < width; c++) {
+                int ordinal = tiles[row + c] & 0xFF;
+                if (ordinal >= TileType.VALUES.length) {
+                    throw new IOException("Invalid tile type " + ordinal + " at " + r + "," + c);
+                }
+            }
+        }
+
+        int regionCount = in.readInt();
+        if (regionCount < 0 || regionCount > width * height) {
+            throw new IOException("Invalid region count " + regionCount);
+        }
+        int[] sizes = new int[regionCount + 1];
+        for (int id = 1; id <= regionCount; id++) {
+            sizes[id] = in.readInt();
+        }
+        int[] ids = new int[width * height];
+        for (int i = 0; i < ids.length; ) {
+            int id = readVarInt(in);
+            int length = readVarInt(in);
+            if (id < 0 || id > regionCount || length <= 0 || length > ids.length - i) {
+                throw new IOException("Invalid region run " + id + " x " + length + " at tile " + i);
+            }
+            Arrays.fill(ids, i, i + length, id);
+            i += length;
+        }
+        RegionLabels regions = new RegionLabels(width, height, ids, sizes);
+
+        BufferedImage image = null;
+        boolean blended = false;
+        if (in.readBoolean()) {
+            int cellSize = in.readInt();
+            blended = in.readBoolean();
+            int length = in.readInt();
+            if (withImage && cellSize == GameConstants.CELL_SIZE) {
+                byte[] png = new byte[length];
+                in.readFully(png);
+                image = ImageIO.read(new ByteArrayInputStream(png));
+            } else {
+                in.skipNBytes(length);
+            }
+        }
+        return new MapCacheFile(tiles, width, height, regions, image, blended);
+    }
+
+    public void write(OutputStream output, LevelConfig config) throws IOException {
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(output));
+        out.writeInt(MAGIC);
+        out.writeInt(FORMAT_VERSION);
+        out.writeLong(fingerprint(config));
+        out.writeInt(width);
+        out.writeInt(height);
+        for (int r = 0; r < height; r++) {
+            out.write(tiles, GameMap.rowStart(width, r), width);
+        }
+
+        int[] sizes = regions.sizes();
+        out.writeInt(sizes.length - 1);
+        for (int id = 1; id < sizes.length; id++) {
+            out.writeInt(sizes[id]);
+        }
+        int[] ids = regions.ids();
+        for (int i = 0; i < ids.length; ) {
+            int end = i + 1;
+            while (end < ids.length && ids[end] == ids[i]) {
+                end++;
+            }
+            writeVarInt(out, ids[i]);
+            writeVarInt(out, end - i);
+            i = end;
+        }
+
+        out.writeBoolean(mapImage != null);
+        if (mapImage != null) {
+            ByteArrayOutputStream png = new ByteArrayOutputStream();
+            ImageIO.write(mapImage, "PNG", png);
+            out.writeInt(GameConstants.CELL_SIZE);
+            out.writeBoolean(blended);
+            out.writeInt(png.size());
+            png.writeTo(out);
+        }
+        out.flush();
+    }
+
+    /**
+     * Writes a non-negative int in 7-bit groups, low group first (1 byte below 128).
+     */
+    private static void writeVarInt(DataOutputStream out, int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            out.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+
+    private static int readVarInt(DataInputStream in) throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            int b = in.readUnsignedByte();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Malformed varint.");
+    }
+
+    private static final class Fnv {
+        long value = 0xcbf29ce484222325L;
+
+        void add(long v) {
+            for (int i = 0; i < 8; i++) {
+                value ^= (v >>> (i * 8)) & 0xFF;
+                value *= 0x100000001b3L;
+            }
+        }
+
+        void add(String s) {
+            byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+            add(bytes.length);
+            for (byte b : bytes) {
+                value ^= b & 0xFF;
+                value *= 0x100000001b3L;
+            }
+        }
+    }
+}
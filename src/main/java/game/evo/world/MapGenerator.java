@@ -1,12 +1,16 @@
 package game.evo.world;
 
 import game.evo.config.LevelConfig;
-import game.evo.config.TerrainRuleConfig;
 import game.evo.utils.GameConstants;
 import game.evo.utils.OpenSimplexNoise;
 
 import java.awt.Color;
 import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.awt.image.IndexColorModel;
+import java.awt.image.WritableRaster;
+import java.util.Arrays;
+import java.util.stream.IntStream;
 
 /**
  * Gera o mapa proceduralmente usando uma técnica híbrida otimizada.
@@ -15,16 +19,31 @@ import java.awt.image.BufferedImage;
  */
 public class MapGenerator {
 
+    // Incrementar sempre que a geração da grade lógica mudar, para invalidar os caches de mapa (.evomap)
+    public static final int ALGORITHM_VERSION = 1;
+
+    private static final int BLEND_WIDTH = 8; // Largura de cada lado da zona de mistura (em pixels)
+
+    // Cor RGB de cada bioma, indexada pelo ordinal do TileType (sem o canal alfa, como no raster INT_RGB)
+    private static final int[] baseColors = new int[TileType.values().length];
+
+    static {
+        for (TileType type : TileType.values()) {
+            baseColors[type.ordinal()] = getColorForBiome(type).getRGB() & 0xFFFFFF;
+        }
+    }
+
     private final OpenSimplexNoise elevationNoise;
     private final OpenSimplexNoise moistureNoise;
     private final OpenSimplexNoise blendNoise;
     
     private final LevelConfig levelConfig;
-    private TileType[][] logicalGrid;
+    private final TerrainClassifier terrainClassifier;
     private BufferedImage mapImage;
 
     public MapGenerator(LevelConfig config) {
         this.levelConfig = config;
+        this.terrainClassifier = TerrainClassifier.compile(config.terrainRules); // Compila as regras uma única vez
         this.elevationNoise = new OpenSimplexNoise(config.proceduralSeed);
         this.moistureNoise = new OpenSimplexNoise(config.proceduralSeed + 1);
         this.blendNoise = new OpenSimplexNoise(config.proceduralSeed + 2);
@@ -33,145 +52,195 @@ public class MapGenerator {
     
     /**
      * Orquestra a nova geração de mapa em duas etapas: estampar e suavizar.
+     * @return A grade lógica gerada (ver generateLogicalGridOnly); a imagem fica em getMapImage().
      */
-    public void generate(int widthInTiles, int heightInTiles, int CELL_SIZE, double noiseScale) {
-        // Primeiro, gera a grade lógica de biomas
-        this.logicalGrid = generateLogicalGridOnly(widthInTiles, heightInTiles, levelConfig.noiseScale);
-        
-        // Inicializa a imagem final do mapa
-        this.mapImage = new BufferedImage(
-            widthInTiles * GameConstants.CELL_SIZE, 
-            heightInTiles * GameConstants.CELL_SIZE, 
-            BufferedImage.TYPE_INT_RGB
-        );
-        
-        // PASSO 1: Estampa as texturas base em alta resolução
-        stampBaseTextures();
-        
-        // PASSO 2: Suaviza apenas as bordas entre os biomas
-        if (GameConstants.MAP_BLENDING_ENABLED) {
-            blendTileBorders();
+    public byte[] generate(int widthInTiles, int heightInTiles, int CELL_SIZE, double noiseScale) {
+        // Primeiro gera a grade lógica de biomas, depois a imagem a partir dela
+        byte[] tiles = generateLogicalGridOnly(widthInTiles, heightInTiles, levelConfig.noiseScale);
+        generateImage(tiles, widthInTiles, heightInTiles);
+        return tiles;
+    }
+
+    /**
+     * Desenha a imagem do mapa a partir de uma grade lógica já pronta (gerada agora ou lida do cache).
+     * @param tiles A grade no layout com borda de GameMap.
+     * @return A imagem gerada, também disponível em getMapImage().
+     */
+    public BufferedImage generateImage(byte[] tiles, int widthInTiles, int heightInTiles) {
+
+        if (!GameConstants.MAP_BLENDING_ENABLED) {
+            // Sem mistura cada tile é uma cor da paleta de biomas: 1 byte por pixel em vez de 4
+            this.mapImage = new BufferedImage(
+                widthInTiles * GameConstants.CELL_SIZE,
+                heightInTiles * GameConstants.CELL_SIZE,
+                BufferedImage.TYPE_BYTE_INDEXED,
+                createBiomePalette()
+            );
+            stampIndexedTiles(tiles, widthInTiles, heightInTiles);
+        } else {
+            // Inicializa a imagem final do mapa (a mistura gera cores fora da paleta)
+            this.mapImage = new BufferedImage(
+                widthInTiles * GameConstants.CELL_SIZE,
+                heightInTiles * GameConstants.CELL_SIZE,
+                BufferedImage.TYPE_INT_RGB
+            );
+
+            // PASSOS 1 e 2: Estampa as cores base e suaviza as bordas entre os biomas
+            stampAndBlendTiles(tiles, widthInTiles, heightInTiles);
         }
 
         System.out.println("[INFO MapGenerator] Hybrid map generated successfully.");
+        return mapImage;
     }
 
     /**
-     * PASSO 1: Preenche o mapa com as texturas base de cada bioma, sem mistura.
+     * Cria a paleta do mapa indexado: o índice de cada cor é o ordinal do TileType,
+     * e as cores são as mesmas de getColorForBiome.
      */
-    private void stampBaseTextures() {
-        for (int r = 0; r < logicalGrid.length; r++) {
-            for (int c = 0; c < logicalGrid[r].length; c++) {
-                TileType biome = logicalGrid[r][c];
-                Color color = getColorForBiome(biome); // Pega a cor base
-                
-                // Pinta todo o tile com a cor base
-                for (int y = 0; y < GameConstants.CELL_SIZE; y++) {
-                    for (int x = 0; x < GameConstants.CELL_SIZE; x++) {
-                        // Poderíamos adicionar ruído de textura aqui se quiséssemos
-                        mapImage.setRGB(c * GameConstants.CELL_SIZE + x, r * GameConstants.CELL_SIZE + y, color.getRGB());
-                    }
-                }
+    public static IndexColorModel createBiomePalette() {
+        TileType[] types = TileType.values();
+        byte[] reds = new byte[types.length];
+        byte[] greens = new byte[types.length];
+        byte[] blues = new byte[types.length];
+        for (TileType type : types) {
+            Color color = getColorForBiome(type);
+            reds[type.ordinal()] = (byte) color.getRed();
+            greens[type.ordinal()] = (byte) color.getGreen();
+            blues[type.ordinal()] = (byte) color.getBlue();
+        }
+        return new IndexColorModel(8, types.length, reds, greens, blues);
+    }
+
+    /**
+     * PASSO 1 (mapa indexado): escreve o índice do bioma de cada tile, uma linha de pixels por vez.
+     * Todas as linhas de pixels de uma linha de tiles são iguais, então a linha é montada uma só vez.
+     */
+    private void stampIndexedTiles(byte[] tiles, int widthInTiles, int heightInTiles) {
+        WritableRaster raster = mapImage.getRaster();
+        int cellSize = GameConstants.CELL_SIZE;
+        byte[] pixelRow = new byte[mapImage.getWidth()];
+        for (int r = 0; r < heightInTiles; r++) {
+            int row = GameMap.rowStart(widthInTiles, r);
+            for (int c = 0; c < widthInTiles; c++) {
+                Arrays.fill(pixelRow, c * cellSize, (c + 1) * cellSize, tiles[row + c]);
+            }
+            for (int y = 0; y < cellSize; y++) {
+                raster.setDataElements(0, r * cellSize + y, pixelRow.length, 1, pixelRow);
             }
         }
     }
 
     /**
-     * PASSO 2: Percorre o mapa e suaviza apenas as fronteiras entre tiles de biomas diferentes.
+     * PASSOS 1 e 2 (mapa com mistura): escreve direto no buffer int[] do raster, uma linha de
+     * tiles por tarefa, em paralelo. Cada faixa de mistura é uma tira de gradiente pré-calculada
+     * por par de biomas, copiada em bloco.
+     *
+     * O resultado é idêntico ao da versão sequencial que estampava os tiles e depois percorria as
+     * bordas em ordem (direita e depois baixo, tile a tile, com setRGB pixel a pixel). Nessa ordem,
+     * nas BLEND_WIDTH primeiras linhas de pixels de um tile a borda vertical sobrescreve a horizontal,
+     * e nas BLEND_WIDTH últimas é a horizontal que sobrescreve a vertical. Como cada linha de pixels
+     * só depende da sua linha de tiles e das vizinhas, as linhas de tiles são independentes.
+     * Requer CELL_SIZE >= 2 * BLEND_WIDTH, para que as faixas de um mesmo tile não se sobreponham.
      */
-    private void blendTileBorders() {
-        int blendWidth = 8; // Largura da zona de mistura (em pixels). Ajuste para bordas mais largas ou mais finas.
-
-        for (int r = 0; r < logicalGrid.length; r++) {
-            for (int c = 0; c < logicalGrid[r].length; c++) {
-                
-                // Verifica a borda com o vizinho da DIREITA
-                if (c + 1 < logicalGrid[r].length) {
-                    TileType biomeA = logicalGrid[r][c];
-                    TileType biomeB = logicalGrid[r][c+1];
-                    if (biomeA != biomeB) {
-                        blendVerticalBorder(c + 1, r, blendWidth, biomeA, biomeB);
-                    }
+    private void stampAndBlendTiles(byte[] tiles, int widthInTiles, int heightInTiles) {
+        int cellSize = GameConstants.CELL_SIZE;
+        int imageWidth = mapImage.getWidth();
+        int[] pixels = ((DataBufferInt) mapImage.getRaster().getDataBuffer()).getData();
+        int[][][] strips = createGradientStrips();
+        int stride = widthInTiles + 2;
+
+        IntStream.range(0, heightInTiles).parallel().forEach(r -> {
+            // Início das linhas no array com borda; a borda é UNKNOWN, por isso os testes de r abaixo
+            int row = GameMap.rowStart(widthInTiles, r);
+            int above = r > 0 ? row - stride : -1;
+            int below = r + 1 < heightInTiles ? row + stride : -1;
+
+            // Linha de pixels comum a todo o tile: cores base mais as faixas das bordas verticais
+            int[] template = new int[imageWidth];
+            for (int c = 0; c < widthInTiles; c++) {
+                Arrays.fill(template, c * cellSize, (c + 1) * cellSize, baseColors[tiles[row + c]]);
+            }
+            for (int c = 0; c + 1 < widthInTiles; c++) {
+                if (tiles[row + c] != tiles[row + c + 1]) {
+                    System.arraycopy(strips[tiles[row + c]][tiles[row + c + 1]], 0, template, (c + 1) * cellSize - BLEND_WIDTH, BLEND_WIDTH * 2);
                 }
+            }
+
+            int firstPixelRow = r * cellSize;
+            for (int y = 0; y < cellSize; y++) {
+                int offset = (firstPixelRow + y) * imageWidth;
+                System.arraycopy(template, 0, pixels, offset, imageWidth);
 
-                // Verifica a borda com o vizinho de BAIXO
-                if (r + 1 < logicalGrid.length) {
-                    TileType biomeA = logicalGrid[r][c];
-                    TileType biomeC = logicalGrid[r+1][c];
-                    if (biomeA != biomeC) {
-                        blendHorizontalBorder(c, r + 1, blendWidth, biomeA, biomeC);
+                if (above >= 0 && y < BLEND_WIDTH) {
+                    // Metade de baixo da faixa da borda com o tile de cima...
+                    for (int c = 0; c < widthInTiles; c++) {
+                        if (tiles[above + c] != tiles[row + c]) {
+                            int color = strips[tiles[above + c]][tiles[row + c]][BLEND_WIDTH + y];
+                            Arrays.fill(pixels, offset + c * cellSize, offset + (c + 1) * cellSize, color);
+                        }
+                    }
+                    // ...que as bordas verticais deste tile sobrescrevem
+                    for (int c = 0; c + 1 < widthInTiles; c++) {
+                        if (tiles[row + c] != tiles[row + c + 1]) {
+                            int x = (c + 1) * cellSize - BLEND_WIDTH;
+                            System.arraycopy(template, x, pixels, offset + x, BLEND_WIDTH * 2);
+                        }
+                    }
+                } else if (below >= 0 && y >= cellSize - BLEND_WIDTH) {
+                    // Metade de cima da faixa da borda com o tile de baixo, por cima das bordas verticais
+                    int i = y - (cellSize - BLEND_WIDTH);
+                    for (int c = 0; c < widthInTiles; c++) {
+                        if (tiles[row + c] != tiles[below + c]) {
+                            int color = strips[tiles[row + c]][tiles[below + c]][i];
+                            Arrays.fill(pixels, offset + c * cellSize, offset + (c + 1) * cellSize, color);
+                        }
                     }
                 }
             }
-        }
-    }
-    
-    private void blendVerticalBorder(int tileCol, int tileRow, int blendWidth, TileType biomeLeft, TileType biomeRight) {
-        int borderX = tileCol * GameConstants.CELL_SIZE;
-        int startY = tileRow * GameConstants.CELL_SIZE;
-        
-        Color colorLeft = getColorForBiome(biomeLeft);
-        Color colorRight = getColorForBiome(biomeRight);
-        
-        for (int i = 0; i < blendWidth * 2; i++) {
-            int currentX = borderX - blendWidth + i;
-            
-            // Fator de mistura baseado na distância da borda
-            double blendFactor = (double) i / (blendWidth * 2 - 1);
-            
-            int blendedColor = lerpColor(colorLeft.getRGB(), colorRight.getRGB(), blendFactor);
-            
-            for (int y = 0; y < GameConstants.CELL_SIZE; y++) {
-                mapImage.setRGB(currentX, startY + y, blendedColor);
-            }
-        }
+        });
     }
 
-    private void blendHorizontalBorder(int tileCol, int tileRow, int blendWidth, TileType biomeTop, TileType biomeBottom) {
-        int borderY = tileRow * GameConstants.CELL_SIZE;
-        int startX = tileCol * GameConstants.CELL_SIZE;
-        
-        Color colorTop = getColorForBiome(biomeTop);
-        Color colorBottom = getColorForBiome(biomeBottom);
-        
-        for (int i = 0; i < blendWidth * 2; i++) {
-            int currentY = borderY - blendWidth + i;
-            
-            double blendFactor = (double) i / (blendWidth * 2 - 1);
-            int blendedColor = lerpColor(colorTop.getRGB(), colorBottom.getRGB(), blendFactor);
-            
-            for (int x = 0; x < GameConstants.CELL_SIZE; x++) {
-                mapImage.setRGB(startX + x, currentY, blendedColor);
+    /**
+     * Pré-calcula, para cada par de biomas (a, b), a tira de 2 * BLEND_WIDTH cores que vai de a até b.
+     */
+    private static int[][][] createGradientStrips() {
+        int n = baseColors.length;
+        int[][][] strips = new int[n][n][BLEND_WIDTH * 2];
+        for (int a = 0; a < n; a++) {
+            for (int b = 0; b < n; b++) {
+                for (int i = 0; i < BLEND_WIDTH * 2; i++) {
+                    // Fator de mistura baseado na distância da borda
+                    double blendFactor = (double) i / (BLEND_WIDTH * 2 - 1);
+                    strips[a][b][i] = lerpColor(baseColors[a], baseColors[b], blendFactor);
+                }
             }
         }
+        return strips;
     }
 
     // --- MÉTODOS AUXILIARES (a maioria já existe no seu código) ---
 
-    public TileType[][] generateLogicalGridOnly(int widthInTiles, int heightInTiles, double noiseScale) {
-        TileType[][] grid = new TileType[heightInTiles][widthInTiles];
+    /**
+     * Gera só a grade lógica, sem imagem, direto no layout com borda de GameMap
+     * (um byte, o ordinal do TileType, por tile; ver GameMap.newTileArray).
+     */
+    public byte[] generateLogicalGridOnly(int widthInTiles, int heightInTiles, double noiseScale) {
+        byte[] tiles = GameMap.newTileArray(widthInTiles, heightInTiles);
+        double[] elevationRow = new double[widthInTiles];
+        double[] moistureRow = new double[widthInTiles];
         for (int r = 0; r < heightInTiles; r++) {
+            // Avalia o ruído de uma linha inteira de uma vez (mesmo resultado que ponto a ponto)
+            elevationNoise.fractalRow(elevationRow, 0, 0, r, widthInTiles, 5, 2.0, 0.5, noiseScale / GameConstants.CELL_SIZE);
+            moistureNoise.fractalRow(moistureRow, 0, 0, r, widthInTiles, 5, 2.0, 0.5, noiseScale / GameConstants.CELL_SIZE * 0.75);
+            int row = GameMap.rowStart(widthInTiles, r);
             for (int c = 0; c < widthInTiles; c++) {
-                double e = fractalNoise(c, r, elevationNoise, 5, 2.0, 0.5, noiseScale / GameConstants.CELL_SIZE);
-                double m = fractalNoise(c, r, moistureNoise, 5, 2.0, 0.5, noiseScale / GameConstants.CELL_SIZE * 0.75);
-                grid[r][c] = getTileTypeForBiome(e, m);
+                tiles[row + c] = (byte) getTileTypeForBiome(elevationRow[c], moistureRow[c]).ordinal();
             }
         }
-        return grid;
+        return tiles;
     }
 
-    private double fractalNoise(double x, double y, OpenSimplexNoise noise, int octaves, double lacunarity, double persistence, double scale) {
-        double total = 0, frequency = 1, amplitude = 1, maxValue = 0;
-        for (int i = 0; i < octaves; i++) {
-            total += noise.eval(x * frequency / scale, y * frequency / scale) * amplitude;
-            maxValue += amplitude;
-            amplitude *= persistence;
-            frequency *= lacunarity;
-        }
-        return total / maxValue;
-    }
-
-    private int lerpColor(int c1, int c2, double factor) {
+    private static int lerpColor(int c1, int c2, double factor) {
         if (factor > 1.0) factor = 1.0; if (factor < 0.0) factor = 0.0;
         int r = (int) (((c1 >> 16) & 0xFF) * (1.0 - factor) + ((c2 >> 16) & 0xFF) * factor);
         int g = (int) (((c1 >> 8) & 0xFF) * (1.0 - factor) + ((c2 >> 8) & 0xFF) * factor);
@@ -180,19 +249,10 @@ public class MapGenerator {
     }
 
     private TileType getTileTypeForBiome(double e, double m) {
-        for (TerrainRuleConfig rule : levelConfig.terrainRules) {
-            if (e < rule.maxElevation) {
-                if (rule.minMoisture != null && m < rule.minMoisture) continue;
-                if (rule.maxMoisture != null && m > rule.maxMoisture) continue;
-                try {
-                    return TileType.valueOf(rule.biome);
-                } catch (IllegalArgumentException ex) { return TileType.UNKNOWN; }
-            }
-        }
-        return TileType.GRASSLAND;
+        return terrainClassifier.classify(e, m);
     }
 
-    private Color getColorForBiome(TileType tileType) {
+    private static Color getColorForBiome(TileType tileType) {
         // Use a sua paleta de cores ajustada aqui
         switch (tileType) {
             case OCEAN_DEEP:    return new Color(25, 45, 90);
@@ -209,6 +269,5 @@ public class MapGenerator {
     }
     
     // Getters
-    public TileType[][] getLogicalGrid() { return logicalGrid; }
     public BufferedImage getMapImage() { return mapImage; }
 }
\ No newline at end of file
@@ -0,0 +1,129 @@
+package game.evo.world;
+
+import java.util.Arrays;
+
+/**
+ * Connected regions of walkable tiles (4-neighbourhood, the same moves the player and the AI make).
+ * Every walkable tile gets the id of its region, 1..getRegionCount(); non-walkable tiles get 0.
+ * Two tiles can reach each other exactly when they have the same non-zero id, so reachability is
+ * a comparison instead of a search.
+ */
+public final class RegionLabels {
+
+    public static final int NO_REGION = 0;
+
+    private final int width;
+    private final int height;
+    private final int[] ids;   // Row-major, one per tile
+    private final int[] sizes; // Tiles per region, indexed by id (sizes[NO_REGION] is unused)
+
+    public RegionLabels(int width, int height, int[] ids, int[] sizes) {
+        this.width = width;
+        this.height = height;
+        this.ids = ids;
+        this.sizes = sizes;
+    }
+
+    /**
+     * Labels the walkable regions of a grid with an iterative flood fill.
+     * @param tiles The grid in GameMap's padded layout (see GameMap.newTileArray). Its UNKNOWN
+     *              border is not walkable, so the fill never needs a bounds check.
+     */
+    public static RegionLabels label(byte[] tiles, int width, int height) {
+        int stride = width + 2;
+        int[] ids = new int[width * height]; // Unpadded, row-major
+        int[] stack = new int[width * height]; // Padded indices
+        int[] sizes = new int[16];
+        int regionCount = 0;
+
+        for (int r = 0; r < height; r++) {
+            int rowStart = GameMap.rowStart(width, r);
+            for (int c = 0; c < width; c++) {
+                int start = rowStart + c;
+                if (ids[r * width + c] != NO_REGION || !TileType.VALUES[tiles[start]].isWalkable) {
+                    continue;
+                }
+                int id = ++regionCount;
+                if (id == sizes.length) {
+                    sizes = Arrays.copyOf(sizes, sizes.length * 2);
+                }
+                int size = 0;
+                int top = 0;
+                stack[top++] = start;
+                ids[r * width + c] = id;
+                while (top > 0) {
+                    int index = stack[--top];
+                    int label = index - 2 * (index / stride) - width - 1;
+                    size++;
+                    // Each tile is pushed once (labeled when pushed), so the stack never overflows.
+                    // Walkability is tested first: it is false on the border, where label ± 1 and
+                    // label ± width would point at another row or outside ids.
+                    if (TileType.VALUES[tiles[index - stride]].isWalkable && ids[label - width] == NO_REGION) {
+                        ids[label - width] = id;
+                        stack[top++] = index - stride;
+                    }
+                    if (TileType.VALUES[tiles[index + stride]].isWalkable && ids[label + width] == NO_REGION) {
+                        ids[label + width] = id;
+                        stack[top++] = index + stride;
+                    }
+                    if (TileType.VALUES[tiles[index - 1]].isWalkable && ids[label - 1] == NO_REGION) {
+                        ids[label - 1] = id;
+                        stack[top++] = index - 1;
+                    }
+                    if (TileType.VALUES[tiles[index + 1]].isWalkable && ids[label + 1] == NO_REGION) {
+                        ids[label + 1] = id;
+                        stack[top++] = index + 1;
+                    }
+                }
+                sizes[id] = size;
+            }
+        }
+        return new RegionLabels(width, height, ids, Arrays.copyOf(sizes, regionCount + 1));
+    }
+
+    /**
+     * @return The region id of a tile, or NO_REGION if it is not walkable or outside the map.
+     */
+    public int getRegion(int row, int column) {
+        if (row < 0 || row >= height || column < 0 || column >= width) {
+            return NO_REGION;
+        }
+        return ids[row * width + column];
+    }
+
+    /**
+     * @return true if a walker on tile A can reach tile B.
+     */
+    public boolean isReachable(int rowA, int columnA, int rowB, int columnB) {
+        int region = getRegion(rowA, columnA);
+        return region != NO_REGION && region == getRegion(rowB, columnB);
+    }
+
+    public int getRegionCount() {
+        return sizes.length - 1;
+    }
+
+    /**
+     * @return How many tiles the region has (0 for NO_REGION).
+     */
+    public int getRegionSize(int id) {
+        return id > NO_REGION && id < sizes.length ? sizes[id] : 0;
+    }
+
+    /**
+     * @return The id of the largest region, or NO_REGION if the map has no walkable tile.
+     */
+    public int getLargestRegion() {
+        int largest = NO_REGION;
+        for (int id = 1; id < sizes.length; id++) {
+            if (largest == NO_REGION || sizes[id] > sizes[largest]) {
+                largest = id;
+            }
+        }
+        return largest;
+    }
+
+    // Raw arrays, for MapCacheFile.
+    int[] ids() { return ids; }
+    int[] sizes() { return sizes; }
+}
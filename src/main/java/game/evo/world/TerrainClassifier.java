@@ -0,0 +1,126 @@
+package game.evo.world;
+
+import game.evo.config.TerrainRuleConfig;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The terrain rules of a level compiled into a lookup structure.
+ * The rules are evaluated in list order and the first one with elevation < maxElevation
+ * whose moisture bounds accept the tile wins (GRASSLAND if none does). Since only the
+ * maxElevation thresholds decide which rules are eligible, the elevation axis is split
+ * at the sorted distinct thresholds, and every interval stores the eligible rules in
+ * order with their biome already resolved. Classifying a tile is then a search over a
+ * handful of doubles plus a short scan of primitive bounds: no boxing, no strings and
+ * no allocation.
+ */
+public final class TerrainClassifier {
+
+    private static final TileType FALLBACK = TileType.GRASSLAND;
+
+    private final double[] thresholds;   // Sorted distinct maxElevation values
+    // Per elevation interval i (thresholds[i-1] <= e < thresholds[i]): the eligible rules, in list order.
+    private final double[][] minMoisture; // -Infinity when the rule has no lower bound
+    private final double[][] maxMoisture; // +Infinity when the rule has no upper bound
+    private final TileType[][] types;
+
+    private TerrainClassifier(double[] thresholds, double[][] minMoisture, double[][] maxMoisture, TileType[][] types) {
+        this.thresholds = thresholds;
+        this.minMoisture = minMoisture;
+        this.maxMoisture = maxMoisture;
+        this.types = types;
+    }
+
+    /**
+     * Compiles a list of terrain rules. Rules naming an unknown biome are reported here,
+     * once, and classify their tiles as UNKNOWN.
+     * @param rules The level's terrain rules, in priority order. May be null.
+     */
+    public static TerrainClassifier compile(List<TerrainRuleConfig> rules) {
+        List<TerrainRuleConfig> usable = new ArrayList<>();
+        List<TileType> resolved = new ArrayList<>();
+        if (rules != null) {
+            for (TerrainRuleConfig rule : rules) {
+                if (rule == null || Double.isNaN(rule.maxElevation)) {
+                    continue; // "e < NaN" never holds: the rule can never match
+                }
+                usable.add(rule);
+                resolved.add(resolveBiome(rule.biome));
+            }
+        }
+
+        double[] thresholds = usable.stream().mapToDouble(rule -> rule.maxElevation).sorted().distinct().toArray();
+        int intervals = thresholds.length + 1; // The last interval (e >= every threshold) has no rules
+        double[][] minMoisture = new double[intervals][];
+        double[][] maxMoisture = new double[intervals][];
+        TileType[][] types = new TileType[intervals][];
+
+        for (int i = 0; i < intervals; i++) {
+            List<Integer> eligible = new ArrayList<>();
+            for (int r = 0; r < usable.size(); r++) {
+                // Within the interval, "e < maxElevation" holds exactly when maxElevation >= its upper threshold.
+                if (i < thresholds.length && usable.get(r).maxElevation >= thresholds[i]) {
+                    eligible.add(r);
+                    if (usable.get(r).minMoisture == null && usable.get(r).maxMoisture == null) {
+                        break; // An unconditional rule always matches: later rules are unreachable
+                    }
+                }
+            }
+            minMoisture[i] = new double[eligible.size()];
+            maxMoisture[i] = new double[eligible.size()];
+            types[i] = new TileType[eligible.size()];
+            for (int k = 0; k < eligible.size(); k++) {
+                TerrainRuleConfig rule = usable.get(eligible.get(k));
+                minMoisture[i][k] = rule.minMoisture != null ? rule.minMoisture : Double.NEGATIVE_INFINITY;
+                maxMoisture[i][k] = rule.maxMoisture != null ? rule.maxMoisture : Double.POSITIVE_INFINITY;
+                types[i][k] = resolved.get(eligible.get(k));
+            }
+        }
+        return new TerrainClassifier(thresholds, minMoisture, maxMoisture, types);
+    }
+
+    private static TileType resolveBiome(String biome) {
+        if (biome != null) {
+            try {
+                return TileType.valueOf(biome);
+            } catch (IllegalArgumentException ignored) {
+                // Reported below
+            }
+        }
+        System.err.println("[WARN TerrainClassifier] Terrain rule biome '" + biome + "' does not match any TileType. Its tiles will be UNKNOWN.");
+        return TileType.UNKNOWN;
+    }
+
+    /**
+     * Classifies one tile from its elevation and moisture noise values.
+     */
+    public TileType classify(double elevation, double moisture) {
+        int interval = intervalFor(elevation);
+        double[] mins = minMoisture[interval];
+        double[] maxs = maxMoisture[interval];
+        for (int k = 0; k < mins.length; k++) {
+            // Same comparisons as the rule walk, so NaN behaves identically.
+            if (moisture < mins[k] || moisture > maxs[k]) continue;
+            return types[interval][k];
+        }
+        return FALLBACK;
+    }
+
+    /**
+     * @return The index of the first threshold greater than the elevation, or thresholds.length if none is.
+     */
+    private int intervalFor(double elevation) {
+        int lo = 0;
+        int hi = thresholds.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (elevation < thresholds[mid]) {
+                hi = mid;
+            } else {
+                lo = mid + 1; // Also taken for NaN, which ends in the empty last interval
+            }
+        }
+        return lo;
+    }
+}
@@ -19,6 +19,9 @@ public enum TileType {
 
     UNKNOWN(false);
 
+    // Cópia compartilhada de values(), para converter ordinais sem alocar um array por chamada
+    public static final TileType[] VALUES = values();
+
     public final boolean isWalkable;
 
     TileType(boolean isWalkable) {